@@ -0,0 +1,54 @@
+package com.example.bakkerij.benchmark;
+
+import com.example.bakkerij.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// The account page of a loyal customer: the whole order history is rendered on every visit
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountPageBenchmark {
+
+    @Param({"account.jinja", "account-content.jinja"})
+    public String template;
+
+    @Param({"200"})
+    public int orders;
+
+    private BenchmarkFixtures fixtures;
+    private List<Order> history;
+
+    @Setup
+    public void setUp() {
+        fixtures = new BenchmarkFixtures();
+        history = fixtures.orderHistory(orders);
+    }
+
+    @Benchmark
+    public String renderAccountPage() {
+        Map<String, Object> context = new HashMap<>();
+        context.put("page", "account");
+        context.put("cartCount", 0);
+        context.put("username", "john");
+        context.put("orders", history);
+        return fixtures.templateRenderer.render("templates/" + template, context, "nl");
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.bakkerij.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Compares two JMH JSON result files (see `make bench`) and exits with status 1 when a benchmark
+// got slower than the allowed threshold, so a release can be stopped before it is deployed.
+//   java -cp target/test-classes:... com.example.bakkerij.benchmark.BenchmarkComparison baseline.json current.json [10]
+// All benchmarks here measure time per operation (average or single shot), so a higher score is
+// worse. The secondary metrics in SIZE_METRICS are held to the same threshold; higher is worse there too.
+public class BenchmarkComparison {
+    // CatalogMemoryBenchmark's heap per product
+    private static final Set<String> SIZE_METRICS = Set.of("bytesPerProduct");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkComparison <baseline.json> <current.json> [threshold %]");
+            System.exit(2);
+        }
+        double thresholdPercent = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = load(new File(args[0]));
+        Map<String, JsonNode> current = load(new File(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (compare(entry.getKey(), before == null ? null : before.get("primaryMetric"),
+                    entry.getValue().get("primaryMetric"), thresholdPercent)) {
+                regressions++;
+            }
+            JsonNode secondary = entry.getValue().path("secondaryMetrics");
+            for (String name : SIZE_METRICS) {
+                if (secondary.has(name) && compare(entry.getKey() + ":" + name,
+                        before == null ? null : before.path("secondaryMetrics").get(name), secondary.get(name), thresholdPercent)) {
+                    regressions++;
+                }
+            }
+        }
+
+        if (regressions > 0) {
+            System.out.println(regressions + " benchmark(s) regressed by more than " + thresholdPercent + "%");
+            System.exit(1);
+        }
+    }
+
+    // Prints one line and returns true when current is more than thresholdPercent above previous
+    private static boolean compare(String name, JsonNode previous, JsonNode current, double thresholdPercent) {
+        double score = current.get("score").asDouble();
+        String unit = current.get("scoreUnit").asText();
+        if (previous == null) {
+            System.out.printf("  new   %-90s %12.3f %s%n", name, score, unit);
+            return false;
+        }
+        double before = previous.get("score").asDouble();
+        double change = before == 0 ? 0 : (score - before) / before * 100;
+        boolean regressed = change > thresholdPercent;
+        System.out.printf("%s %-90s %12.3f -> %12.3f %s (%+.1f%%)%n",
+            regressed ? "  WORSE " : "  ok    ", name, before, score, unit, change);
+        return regressed;
+    }
+
+    // Keyed by benchmark name plus its parameters, e.g. TemplateRenderBenchmark.render{lang=nl, template=cart}
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.get("benchmark").asText().replace("com.example.bakkerij.benchmark.", ""));
+            JsonNode params = result.get("params");
+            if (params != null) {
+                key.append('{');
+                Iterator<Map.Entry<String, JsonNode>> fields = params.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    key.append(field.getKey()).append('=').append(field.getValue().asText());
+                    if (fields.hasNext()) {
+                        key.append(", ");
+                    }
+                }
+                key.append('}');
+            }
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.bakkerij.benchmark;
+
+import com.example.bakkerij.model.Order;
+import com.example.bakkerij.model.OrderItem;
+import com.example.bakkerij.model.Product;
+import com.example.bakkerij.repository.CartRepository;
+import com.example.bakkerij.repository.OrderRepository;
+import com.example.bakkerij.repository.ProductRepository;
+import com.example.bakkerij.service.CartService;
+import com.example.bakkerij.service.OrderService;
+import com.example.bakkerij.service.ProductService;
+import com.example.bakkerij.util.ImageVariants;
+import com.example.bakkerij.util.TemplateRenderer;
+import com.example.bakkerij.util.TranslationService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// The real catalog and translations, wired the same way Application does
+final class BenchmarkFixtures {
+    static final String[] LANGUAGES = {"nl", "en", "fr", "de", "es", "zh"};
+
+    final ProductRepository productRepository = new ProductRepository();
+    final ProductService productService = new ProductService(productRepository);
+    final CartRepository cartRepository = new CartRepository();
+    final CartService cartService = new CartService(cartRepository, productService);
+    final OrderRepository orderRepository = new OrderRepository();
+    final OrderService orderService = new OrderService(orderRepository, productService);
+    final TemplateRenderer templateRenderer;
+
+    BenchmarkFixtures() {
+        productRepository.loadProducts("bread_details.json");
+        TranslationService translationService = new TranslationService();
+        translationService.loadTranslations("translations.json");
+        templateRenderer = new TemplateRenderer(translationService, "benchmark");
+        // Pages call the srcset helpers once per image, which belongs in the measurement
+        try {
+            templateRenderer.addGlobal("images", new ImageVariants(Files.createTempDirectory("bakkerij-images"), 1 << 20));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Fixed seed, so every run and every release benchmarks the same history
+    List<Order> orderHistory(int orderCount) {
+        Random random = new Random(42);
+        List<Product> products = productService.getAllProducts();
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < orderCount; i++) {
+            List<OrderItem> items = new ArrayList<>();
+            int lines = random.nextInt(5) + 1;
+            for (int j = 0; j < lines; j++) {
+                items.add(new OrderItem(products.get(random.nextInt(products.size())), random.nextInt(10) + 1));
+            }
+            double total = items.stream().mapToDouble(OrderItem::getSubtotal).sum();
+            orders.add(new Order(orderCount - i, LocalDate.of(2025, 1, 1).plusDays(i).toString(), items, total));
+        }
+        return orders;
+    }
+
+    void fillCart(String sessionId, int lines) {
+        List<Product> products = productService.getAllProducts();
+        for (int i = 0; i < lines; i++) {
+            cartService.addToCart(sessionId, products.get(i % products.size()).getId(), i % 4 + 1);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.bakkerij.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartServiceBenchmark {
+    private static final String SESSION_ID = "benchmark-session";
+
+    @Param({"1", "5", "20"})
+    public int lines;
+
+    private BenchmarkFixtures fixtures;
+
+    @Setup
+    public void setUp() {
+        fixtures = new BenchmarkFixtures();
+        fixtures.fillCart(SESSION_ID, lines);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> getCartItems() {
+        return fixtures.cartService.getCartItems(SESSION_ID);
+    }
+
+    @Benchmark
+    public double getCartTotal() {
+        return fixtures.cartService.getCartTotal(SESSION_ID);
+    }
+}
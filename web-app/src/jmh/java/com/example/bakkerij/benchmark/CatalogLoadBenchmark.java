@@ -0,0 +1,73 @@
+package com.example.bakkerij.benchmark;
+
+import com.example.bakkerij.repository.CatalogJson;
+import com.example.bakkerij.repository.ProductRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Loading a large catalog: the real products copied under new ids until there are skuCount of them.
+// parse is the streaming read alone, load also prepares the detail JSON and indexes like a (re)load.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CatalogLoadBenchmark {
+
+    @Param({"20000"})
+    public int skuCount;
+
+    private byte[] catalog;
+    private ProductRepository productRepository;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<ObjectNode> products = new ArrayList<>();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("bread_details.json")) {
+            Iterator<JsonNode> entries = mapper.readTree(in).elements();
+            entries.forEachRemaining(entry -> products.add((ObjectNode) entry));
+        }
+        ObjectNode large = mapper.createObjectNode();
+        for (int id = 1; id <= skuCount; id++) {
+            ObjectNode product = products.get(id % products.size()).deepCopy();
+            product.put("id", id);
+            product.put("nameNl", product.get("nameNl").textValue() + " " + id);
+            large.set(String.valueOf(id), product);
+        }
+        catalog = mapper.writeValueAsBytes(large);
+        productRepository = new ProductRepository();
+    }
+
+    @Benchmark
+    public CatalogJson.Contents parse() throws IOException {
+        return CatalogJson.read(new ByteArrayInputStream(catalog));
+    }
+
+    @Benchmark
+    public long load() {
+        productRepository.loadProducts(new ByteArrayInputStream(catalog), "benchmark catalog");
+        return productRepository.getCatalogVersion();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.bakkerij.benchmark;
+
+import com.example.bakkerij.repository.ProductRepository;
+import com.example.bakkerij.util.Metrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Heap kept per product by a loaded catalog, with and without sharing equal texts between products.
+// The catalog is the real products copied under new ids, each with its own name in every language;
+// size variants (ids 2n and 2n+1) share their description, the rest is copied as it is.
+// The score is the load time; bytesPerProduct is the heap still in use after the load, indexes included.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CatalogMemoryBenchmark {
+    private static final String[] LANGUAGES = {"Nl", "Fr", "En", "De", "Es", "Zh"};
+
+    @Param({"100000"})
+    public int skuCount;
+
+    @Param({"false", "true"})
+    public boolean deduplicate;
+
+    private byte[] catalog;
+
+    // Measured around each load, outside the timed part
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerProduct;
+        private ProductRepository loaded;
+        private long heapBefore;
+
+        @Setup(Level.Invocation)
+        public void before() {
+            loaded = null;
+            heapBefore = usedHeap();
+        }
+
+        @TearDown(Level.Invocation)
+        public void after() {
+            bytesPerProduct = (usedHeap() - heapBefore) / loaded.findAll().size();
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<ObjectNode> products = new ArrayList<>();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("bread_details.json")) {
+            Iterator<JsonNode> entries = mapper.readTree(in).elements();
+            entries.forEachRemaining(entry -> products.add((ObjectNode) entry));
+        }
+        ObjectNode large = mapper.createObjectNode();
+        for (int id = 1; id <= skuCount; id++) {
+            ObjectNode product = products.get(id % products.size()).deepCopy();
+            product.put("id", id);
+            for (String lang : LANGUAGES) {
+                product.put("name" + lang, product.get("name" + lang).textValue() + " " + id);
+                product.put("description" + lang, product.get("description" + lang).textValue() + " " + id / 2);
+            }
+            large.set(String.valueOf(id), product);
+        }
+        catalog = mapper.writeValueAsBytes(large);
+    }
+
+    @Benchmark
+    public ProductRepository load(Footprint footprint) {
+        ProductRepository productRepository = new ProductRepository(Metrics.disabled(), deduplicate);
+        productRepository.loadProducts(new ByteArrayInputStream(catalog), "benchmark catalog");
+        footprint.loaded = productRepository;
+        return productRepository;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bakkerij.benchmark;
+
+import com.example.bakkerij.model.Order;
+import com.example.bakkerij.repository.OrderRepository;
+import com.example.bakkerij.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderServiceBenchmark {
+
+    private BenchmarkFixtures fixtures;
+    private OrderService orderService;
+    private long user;
+
+    @Setup
+    public void setUp() {
+        fixtures = new BenchmarkFixtures();
+    }
+
+    // A fresh repository per iteration keeps the generated histories from piling up in the heap
+    @Setup(Level.Iteration)
+    public void resetOrders() {
+        orderService = new OrderService(new OrderRepository(), fixtures.productService);
+    }
+
+    // A new user every call: generateOrderHistory only generates for users without a history
+    @Benchmark
+    public List<Order> generateOrderHistory() {
+        return orderService.generateOrderHistory("user" + user++);
+    }
+}
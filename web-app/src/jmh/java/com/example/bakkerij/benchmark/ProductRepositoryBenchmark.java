@@ -0,0 +1,63 @@
+package com.example.bakkerij.benchmark;
+
+import com.example.bakkerij.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductRepositoryBenchmark {
+
+    private BenchmarkFixtures fixtures;
+    private int[] ids;
+    private String[] idStrings;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        fixtures = new BenchmarkFixtures();
+        // Look up existing products in turn, not one id that stays in the L1 cache
+        ids = fixtures.productRepository.findAll().stream().mapToInt(Product::getId).toArray();
+        idStrings = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            idStrings[i] = String.valueOf(ids[i]);
+        }
+    }
+
+    @Benchmark
+    public Optional<Product> findById() {
+        return fixtures.productRepository.findById(ids[nextIndex()]);
+    }
+
+    @Benchmark
+    public List<Product> findByCategory() {
+        return fixtures.productRepository.findByCategory("brood");
+    }
+
+    @Benchmark
+    public String getProductDetailsJson() {
+        return fixtures.productRepository.getProductDetailsJson(idStrings[nextIndex()]);
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == ids.length ? 0 : index + 1;
+        return index;
+    }
+}
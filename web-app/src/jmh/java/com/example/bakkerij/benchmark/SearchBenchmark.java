@@ -0,0 +1,74 @@
+package com.example.bakkerij.benchmark;
+
+import com.example.bakkerij.repository.ProductRepository;
+import com.example.bakkerij.repository.SearchIndex;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Typeahead queries against a large catalog (the real products copied under new ids). "b" is the
+// worst case, a one-letter prefix shared by most words; "bruin 4" narrows down on a number in
+// the name; "面包" is a Chinese character pair.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"50000"})
+    public int skuCount;
+
+    @Param({"nl:b", "nl:volk", "nl:bruin 4", "fr:pain compl", "zh:面包"})
+    public String query;
+
+    private ProductRepository productRepository;
+    private String lang;
+    private String text;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        List<ObjectNode> products = new ArrayList<>();
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("bread_details.json")) {
+            Iterator<JsonNode> entries = mapper.readTree(in).elements();
+            entries.forEachRemaining(entry -> products.add((ObjectNode) entry));
+        }
+        ObjectNode large = mapper.createObjectNode();
+        for (int id = 1; id <= skuCount; id++) {
+            ObjectNode product = products.get(id % products.size()).deepCopy();
+            product.put("id", id);
+            product.put("nameNl", product.get("nameNl").textValue() + " " + id);
+            large.set(String.valueOf(id), product);
+        }
+        productRepository = new ProductRepository();
+        productRepository.loadProducts(new ByteArrayInputStream(mapper.writeValueAsBytes(large)), "benchmark catalog");
+        lang = query.substring(0, query.indexOf(':'));
+        text = query.substring(query.indexOf(':') + 1);
+    }
+
+    @Benchmark
+    public SearchIndex.Result search() {
+        return productRepository.search(text, lang, 8);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.bakkerij.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Every page template in every language, with a context like the one its handler builds
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderBenchmark {
+
+    @Param({"index", "products", "cart", "account", "pickup", "payment", "payment-success", "payment-failed"})
+    public String template;
+
+    @Param({"nl", "en", "fr", "de", "es", "zh"})
+    public String lang;
+
+    private BenchmarkFixtures fixtures;
+    private String templatePath;
+    private Map<String, Object> context;
+
+    @Setup
+    public void setUp() {
+        fixtures = new BenchmarkFixtures();
+        templatePath = "templates/" + template + ".jinja";
+        context = contextFor(template);
+    }
+
+    @Benchmark
+    public String render() {
+        // render() adds the language and translations, so each call gets its own copy
+        return fixtures.templateRenderer.render(templatePath, new HashMap<>(context), lang);
+    }
+
+    private Map<String, Object> contextFor(String template) {
+        Map<String, Object> context = new HashMap<>();
+        switch (template) {
+            case "index" -> context.put("page", "home");
+            case "products" -> {
+                context.put("products", fixtures.productService.getAllProducts());
+                context.put("category", "all");
+                context.put("page", "products");
+            }
+            case "cart" -> {
+                fixtures.fillCart("benchmark", 5);
+                context.put("cartItems", fixtures.cartService.getCartItems("benchmark"));
+                context.put("total", fixtures.cartService.getCartTotal("benchmark"));
+                context.put("itemCount", fixtures.cartService.getCartCount("benchmark"));
+                context.put("page", "cart");
+                context.put("cartCount", fixtures.cartService.getCartCount("benchmark"));
+            }
+            case "account" -> {
+                context.put("page", "account");
+                context.put("username", "john");
+                context.put("orders", fixtures.orderHistory(5));
+            }
+            case "pickup" -> {
+                context.put("page", "pickup");
+                context.put("minDate", LocalDate.of(2025, 1, 2).toString());
+                context.put("maxDate", LocalDate.of(2025, 1, 31).toString());
+            }
+            case "payment" -> {
+                context.put("page", "payment");
+                context.put("retry", false);
+                context.put("lastPaymentMethod", "bancontact");
+            }
+            case "payment-success" -> {
+                context.put("page", "payment");
+                context.put("isCashPayment", false);
+            }
+            default -> context.put("page", "payment");
+        }
+        return context;
+    }
+}
@@ -3,11 +3,23 @@ package com.example.bakkerij;
 import com.example.bakkerij.handler.*;
 import com.example.bakkerij.repository.*;
 import com.example.bakkerij.service.*;
+import com.example.bakkerij.store.KeyValueClient;
 import com.example.bakkerij.util.*;
 import io.github.cdimascio.dotenv.Dotenv;
 import io.javalin.Javalin;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class Application {
     
@@ -25,56 +37,228 @@ public class Application {
         return "unknown";
     }
 
+    // ORDER_JOURNAL_FILE= (empty) keeps orders in memory only, like before
+    private static OrderJournal openOrderJournal(Dotenv dotenv, int nodeId) {
+        String journalFile = dotenv.get("ORDER_JOURNAL_FILE", "data/orders-" + nodeId + ".journal");
+        if (journalFile.isBlank()) {
+            return null;
+        }
+        Duration flushInterval = Duration.ofMillis(Long.parseLong(dotenv.get("ORDER_JOURNAL_FLUSH_MS", "50")));
+        try {
+            return OrderJournal.open(Path.of(journalFile), flushInterval);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open order journal " + journalFile, e);
+        }
+    }
+
+    private static StaticAssets loadStaticAssets() {
+        try {
+            long start = System.nanoTime();
+            Path directory = Files.createTempDirectory("bakkerij-assets");
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> deleteRecursively(directory), "assets-cleanup"));
+            StaticAssets assets = StaticAssets.load("public", directory);
+            System.out.println("Prepared " + assets.size() + " static assets in " + directory + " in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            return assets;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to prepare static assets", e);
+        }
+    }
+
+    // Resized product photos are cached across restarts; IMAGE_CACHE_MAX_MB bounds the disk they use
+    private static ImageVariants openImageVariants(Dotenv dotenv, Metrics metrics) {
+        String cacheDirectory = dotenv.get("IMAGE_CACHE_DIR", "data/image-cache");
+        long maxBytes = Long.parseLong(dotenv.get("IMAGE_CACHE_MAX_MB", "256")) * 1024 * 1024;
+        try {
+            return new ImageVariants(Path.of(cacheDirectory), maxBytes, metrics);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open image cache " + cacheDirectory, e);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Failed to clean up " + directory + ": " + e.getMessage());
+        }
+    }
+
+    // SESSION_STORE_URL points every instance at one KeyValueServer so carts, logins and order
+    // histories survive being routed to another node; left empty, each instance keeps them in its own memory
+    private static SessionStoreProvider openSessionStores(Dotenv dotenv) {
+        String url = dotenv.get("SESSION_STORE_URL", "");
+        if (url.isBlank()) {
+            return SessionStoreProvider.inMemory();
+        }
+        Duration maxStaleness = Duration.ofMillis(Long.parseLong(dotenv.get("SESSION_STORE_MAX_STALENESS_MS", "0")));
+        System.out.println("Keeping carts, sessions and order histories in " + url);
+        // SESSION_STORE_TOKEN: the store's KV_STORE_TOKEN
+        KeyValueClient client = new KeyValueClient(URI.create(url), dotenv.get("SESSION_STORE_TOKEN", ""));
+        return SessionStoreProvider.remote(client, maxStaleness);
+    }
+
+    // CATALOG_FILE= (empty) serves the catalog built into the jar. Pointing it at a file serves that
+    // file instead and reloads it whenever it changes; while it is missing or broken at startup the
+    // built-in catalog is served until the file is fixed.
+    private static void loadCatalog(Dotenv dotenv, ProductRepository productRepository) {
+        String catalogFile = dotenv.get("CATALOG_FILE", "");
+        if (catalogFile.isBlank()) {
+            productRepository.loadProducts("bread_details.json");
+            return;
+        }
+        Path file = Path.of(catalogFile);
+        if (!productRepository.loadProducts(file)) {
+            System.err.println("Serving the built-in catalog until " + file + " loads");
+            productRepository.loadProducts("bread_details.json");
+        }
+        try {
+            CatalogWatcher watcher = new CatalogWatcher(productRepository, file);
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    watcher.close();
+                } catch (IOException e) {
+                    System.err.println("Failed to stop watching " + file + ": " + e.getMessage());
+                }
+            }, "catalog-watcher-close"));
+            System.out.println("Reloading the catalog when " + file + " changes");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to watch catalog file " + file, e);
+        }
+    }
+
     public static void main(String[] args) {
+        // Image resizing needs AWT, but never a display
+        System.setProperty("java.awt.headless", "true");
+        
         // Load .env file if it exists
         Dotenv dotenv = Dotenv.configure()
             .ignoreIfMissing()
             .load();
         
+        start(dotenv);
+    }
+
+    // Builds and starts one instance; all its state hangs off the returned app, so several can run in one JVM
+    public static Javalin start(Dotenv dotenv) {
+        int nodeId = Integer.parseInt(dotenv.get("NODE_ID", "0"));
+        
+        // METRICS_ENABLED=false removes all instrumentation and the /metrics endpoint
+        boolean metricsEnabled = Boolean.parseBoolean(dotenv.get("METRICS_ENABLED", "true"));
+        Metrics metrics = metricsEnabled ? new Metrics() : Metrics.disabled();
+        
         // Initialize repositories
-        ProductRepository productRepository = new ProductRepository();
-        CartRepository cartRepository = new CartRepository();
-        OrderRepository orderRepository = new OrderRepository();
-        UserRepository userRepository = new UserRepository();
+        ProductRepository productRepository = new ProductRepository(metrics);
+        Duration cartTtl = Duration.ofHours(Long.parseLong(dotenv.get("CART_TTL_HOURS", "720")));
+        int maxCarts = Integer.parseInt(dotenv.get("CART_MAX_ENTRIES", String.valueOf(CartRepository.DEFAULT_MAX_CARTS)));
+        SessionStoreProvider sessionStores = openSessionStores(dotenv);
+        CartRepository cartRepository = new CartRepository(sessionStores, cartTtl, maxCarts, metrics);
+        OrderJournal orderJournal = openOrderJournal(dotenv, nodeId);
+        OrderRepository orderRepository = new OrderRepository(sessionStores, orderJournal, metrics);
+        Duration sessionIdleTimeout = Duration.ofHours(Long.parseLong(dotenv.get("SESSION_IDLE_HOURS", "720")));
+        int maxSessions = Integer.parseInt(dotenv.get("SESSION_MAX_ENTRIES", String.valueOf(UserRepository.DEFAULT_MAX_SESSIONS)));
+        UserRepository userRepository = new UserRepository(sessionStores, sessionIdleTimeout, maxSessions, metrics);
         
         // Initialize services
         ProductService productService = new ProductService(productRepository);
         CartService cartService = new CartService(cartRepository, productService);
-        OrderService orderService = new OrderService(orderRepository, productService);
+        OrderNumberGenerator orderNumberGenerator = new OrderNumberGenerator(nodeId,
+            Path.of(dotenv.get("ORDER_SEQUENCE_FILE", "data/order-sequence-" + nodeId)));
+        OrderService orderService = new OrderService(orderRepository, productService, orderNumberGenerator);
         UserService userService = new UserService(userRepository);
         
         // Initialize utilities
         TranslationService translationService = new TranslationService();
         translationService.loadTranslations("translations.json");
         
-        TemplateRenderer templateRenderer = new TemplateRenderer(translationService, APP_VERSION);
+        // Dev mode re-reads templates whose file changed on disk, production parses each template once
+        boolean templateDevMode = Boolean.parseBoolean(dotenv.get("TEMPLATE_DEV_MODE", "false"));
+        TemplateRenderer templateRenderer = new TemplateRenderer(translationService, APP_VERSION, templateDevMode, metrics);
+        // Dev mode serves /public as is, so CSS edits show up without a restart
+        StaticAssets staticAssets = templateDevMode ? StaticAssets.none() : loadStaticAssets();
+        templateRenderer.addGlobal("assets", staticAssets.getUrls());
+        ImageVariants imageVariants = openImageVariants(dotenv, metrics);
+        templateRenderer.addGlobal("images", imageVariants);
         SessionManager sessionManager = new SessionManager();
+        PageCache pageCache = new PageCache(templateRenderer, productService::getCatalogVersion,
+            productService::isKnownCategory, 512);
         
         // Initialize handlers
-        HomeHandler homeHandler = new HomeHandler(templateRenderer, sessionManager, cartService);
-        ProductHandler productHandler = new ProductHandler(productService, cartService, templateRenderer, sessionManager);
+        HomeHandler homeHandler = new HomeHandler(pageCache, sessionManager, cartService);
+        ProductHandler productHandler = new ProductHandler(productService, cartService, pageCache, templateRenderer, sessionManager);
         CartHandler cartHandler = new CartHandler(cartService, productService, templateRenderer, sessionManager);
         AccountHandler accountHandler = new AccountHandler(userService, orderService, cartService, templateRenderer, sessionManager);
-        PaymentHandler paymentHandler = new PaymentHandler(userService, orderService, cartService, templateRenderer, sessionManager);
+        Duration paymentProviderLatency = Duration.ofMillis(Long.parseLong(dotenv.get("PAYMENT_PROVIDER_LATENCY_MS", "0")));
+        PaymentHandler paymentHandler = new PaymentHandler(userService, orderService, cartService, templateRenderer, sessionManager,
+            paymentProviderLatency);
+        // METRICS_TOKEN= (empty) serves /metrics to this machine only, with a token to anyone sending it as bearer token
+        MetricsHandler metricsHandler = new MetricsHandler(metrics, dotenv.get("METRICS_TOKEN", ""));
+        metrics.registerGauge("carts_live", "Carts currently held in memory", cartRepository::getLiveCartCount);
+        metrics.registerCounter("carts_evicted_total", "Carts dropped after expiring or to stay under the cap", cartRepository::getEvictedCartCount);
+        metrics.registerGauge("sessions_live", "Sessions currently held in memory", userRepository::getLiveSessionCount);
+        metrics.registerCounter("sessions_evicted_total", "Sessions dropped after being idle or to stay under the cap", userRepository::getEvictedSessionCount);
+        metrics.registerGauge("image_cache_bytes", "Disk used by cached image variants", imageVariants::getCachedBytes);
+        metrics.registerCounter("image_cache_evictions_total", "Image variants deleted to stay under the cache size", imageVariants::getEvictionCount);
+        metrics.registerGauge("catalog_version", "Number of times the catalog was (re)loaded", productService::getCatalogVersion);
         
         // Load data
         System.out.println("Initializing bakery products...");
-        productRepository.loadProducts("bread_details.json");
+        loadCatalog(dotenv, productRepository);
+        if (orderJournal != null) {
+            long start = System.nanoTime();
+            int replayed = orderRepository.replayJournal(productRepository::findById);
+            System.out.println("Replayed " + replayed + " orders from the order journal in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+            Runtime.getRuntime().addShutdownHook(new Thread(orderJournal::close, "order-journal-close"));
+        }
         
-        // Get port from environment or use default
+        // Background housekeeping: drop abandoned carts and idle sessions (bots, crawlers, one-time visitors)
+        ScheduledExecutorService housekeeping = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "housekeeping");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeping.scheduleAtFixedRate(cartRepository::evictExpired, 10, 10, TimeUnit.MINUTES);
+        housekeeping.scheduleAtFixedRate(userRepository::evictExpired, 10, 10, TimeUnit.MINUTES);
+        
+        // Get port from environment or use default; 0 picks a free one
         int port = Integer.parseInt(dotenv.get("PORT", "7070"));
         
+        // THREAD_MODE=virtual runs every request on its own virtual thread (Java 21+) instead of Jetty's
+        // bounded platform thread pool, so handlers that block no longer starve the whole server
+        boolean virtualThreads = "virtual".equalsIgnoreCase(dotenv.get("THREAD_MODE", "platform"));
+        // short|full: the JDK prints a stack trace whenever a virtual thread blocks while pinned
+        // to its carrier (inside synchronized or native code). Must be set before the first virtual thread.
+        String pinningTrace = dotenv.get("VIRTUAL_THREAD_PINNING_TRACE", "");
+        if (virtualThreads && !pinningTrace.isBlank()) {
+            System.setProperty("jdk.tracePinnedThreads", pinningTrace);
+        }
+        
         // Create and configure Javalin app
         Javalin app = Javalin.create(config -> {
+            config.useVirtualThreads = virtualThreads;
             config.router.ignoreTrailingSlashes = true;
             config.staticFiles.add("/public");
+            if (metricsEnabled) {
+                config.jetty.modifyServer(server -> server.setRequestLog(metricsHandler));
+            }
         }).start(port);
+        
+        if (metricsEnabled) {
+            app.before(metricsHandler::before);
+            app.after(metricsHandler::after);
+            app.get("/metrics", metricsHandler::getMetrics);
+        }
+        app.get(StaticAssets.URL_PREFIX + "/*", staticAssets::serve);
+        app.get(ImageVariants.URL_PREFIX + "/{size}/{hash}/<image>", imageVariants::serve);
 
         // Configure routes
         configureRoutes(app, homeHandler, productHandler, cartHandler, accountHandler, paymentHandler);
 
-        System.out.println("De Groep10 Bakkerij server started on http://localhost:" + port);
-        System.out.println("Navigate to http://localhost:" + port + " to view the application");
+        System.out.println("De Groep10 Bakkerij server started on http://localhost:" + app.port()
+            + (virtualThreads ? " (virtual threads)" : " (platform threads)"));
+        System.out.println("Navigate to http://localhost:" + app.port() + " to view the application");
+        return app;
     }
 
     private static void configureRoutes(Javalin app, HomeHandler homeHandler, ProductHandler productHandler,
@@ -94,6 +278,7 @@ public class Application {
         app.get("/products/{category}", productHandler::getProductsByCategory);
         app.get("/products", productHandler::getProducts);
         app.get("/product/details/{id}", productHandler::getProductDetails);
+        app.get("/search", productHandler::search);
         
         // Payment routes
         app.get("/payment", paymentHandler::getPayment);
@@ -104,6 +289,7 @@ public class Application {
         
         // Account routes
         app.get("/account", accountHandler::getAccount);
+        app.get("/account/orders", accountHandler::getOrderPage);
         app.post("/account/password", accountHandler::changePassword);
         app.post("/account/address", accountHandler::updateAddress);
         app.post("/login", accountHandler::login);
@@ -14,6 +14,9 @@ import java.util.List;
 import java.util.Map;
 
 public class AccountHandler {
+    // Orders can have hundreds of lines, so the history is rendered a few orders at a time
+    static final int ORDERS_PER_PAGE = 3;
+
     private final UserService userService;
     private final OrderService orderService;
     private final CartService cartService;
@@ -38,10 +41,9 @@ public class AccountHandler {
         context.put("cartCount", cartService.getCartCount(sessionId));
         
         userService.getUsername(sessionId).ifPresent(username -> {
-            List<Order> orders = orderService.getOrderHistory(username);
             Address address = userService.getAddress(username).orElse(null);
             context.put("username", username);
-            context.put("orders", orders);
+            putOrderPage(context, username, 0);
             context.put("address", address);
         });
         
@@ -53,6 +55,53 @@ public class AccountHandler {
         ctx.html(templateRenderer.render(template, context, lang));
     }
 
+    // GET /account/orders?before=N: the orders placed before order N, requested by HTMX when the
+    // previous page's last element scrolls into view. Paging by order number rather than offset keeps
+    // an order placed in the meantime from pushing an order already shown onto the next page.
+    public void getOrderPage(Context ctx) {
+        String lang = ctx.queryParam("lang") != null ? ctx.queryParam("lang") : "nl";
+        String sessionId = sessionManager.getOrCreateSessionId(ctx);
+        long before = parseOrderNumber(ctx.queryParam("before"));
+        if (before < 0) {
+            ctx.status(400).result("Invalid order number");
+            return;
+        }
+
+        userService.getUsername(sessionId).ifPresentOrElse(
+            username -> {
+                Map<String, Object> context = new HashMap<>();
+                putOrderPage(context, username, before);
+                ctx.html(templateRenderer.render("templates/account-orders.jinja", context, lang));
+            },
+            () -> ctx.status(401).result("Not logged in")
+        );
+    }
+
+    // 0 without a number (start at the newest order), -1 for anything that is not a positive number
+    private static long parseOrderNumber(String orderNumber) {
+        if (orderNumber == null) {
+            return 0;
+        }
+        try {
+            long parsed = Long.parseLong(orderNumber);
+            return parsed > 0 ? parsed : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // before 0: the newest orders. One order more than shown is read to know whether there is a next page.
+    private void putOrderPage(Map<String, Object> context, String username, long before) {
+        List<Order> orders = before == 0
+            ? orderService.getOrderHistoryPage(username, 0, ORDERS_PER_PAGE + 1)
+            : orderService.getOrderHistoryPageBefore(username, before, ORDERS_PER_PAGE + 1);
+        if (orders.size() > ORDERS_PER_PAGE) {
+            orders = orders.subList(0, ORDERS_PER_PAGE);
+            context.put("nextBefore", orders.get(ORDERS_PER_PAGE - 1).getOrderNumber());
+        }
+        context.put("orders", orders);
+    }
+
     public void login(Context ctx) {
         String firstname = ctx.formParam("firstname");
         String password = ctx.formParam("password");
@@ -125,7 +174,7 @@ public class AccountHandler {
         
         userService.getUsername(sessionId).ifPresentOrElse(
             username -> {
-                int orderNumber = Integer.parseInt(ctx.pathParam("orderNumber"));
+                long orderNumber = Long.parseLong(ctx.pathParam("orderNumber"));
                 orderService.findOrderByNumber(username, orderNumber).ifPresentOrElse(
                     order -> {
                         order.getItems().forEach(item -> 
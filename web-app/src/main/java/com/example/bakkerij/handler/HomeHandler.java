@@ -1,20 +1,22 @@
 package com.example.bakkerij.handler;
 
 import com.example.bakkerij.service.CartService;
+import com.example.bakkerij.util.HttpCaching;
+import com.example.bakkerij.util.PageCache;
 import com.example.bakkerij.util.SessionManager;
-import com.example.bakkerij.util.TemplateRenderer;
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
 
 import java.util.HashMap;
 import java.util.Map;
 
 public class HomeHandler {
-    private final TemplateRenderer templateRenderer;
+    private final PageCache pageCache;
     private final SessionManager sessionManager;
     private final CartService cartService;
 
-    public HomeHandler(TemplateRenderer templateRenderer, SessionManager sessionManager, CartService cartService) {
-        this.templateRenderer = templateRenderer;
+    public HomeHandler(PageCache pageCache, SessionManager sessionManager, CartService cartService) {
+        this.pageCache = pageCache;
         this.sessionManager = sessionManager;
         this.cartService = cartService;
     }
@@ -23,15 +25,21 @@ public class HomeHandler {
         String sessionId = sessionManager.getOrCreateSessionId(ctx);
         String lang = ctx.queryParam("lang") != null ? ctx.queryParam("lang") : "nl";
         
-        Map<String, Object> context = new HashMap<>();
-        context.put("page", "home");
-        context.put("cartCount", cartService.getCartCount(sessionId));
-        
         String htmxRequest = ctx.header("HX-Request");
         String template = (htmxRequest != null && htmxRequest.equals("true")) 
             ? "templates/index-content.jinja" 
             : "templates/index.jinja";
         
-        ctx.html(templateRenderer.render(template, context, lang));
+        PageCache.Page page = pageCache.get(template, lang, null, () -> {
+            Map<String, Object> context = new HashMap<>();
+            context.put("page", "home");
+            return context;
+        });
+        int cartCount = cartService.getCartCount(sessionId);
+        HttpCaching.revalidatePrivately(ctx);
+        if (HttpCaching.notModified(ctx, page.getEtag(cartCount))) {
+            return;
+        }
+        ctx.contentType(ContentType.TEXT_HTML).result(page.withCartBadge(cartCount));
     }
 }
@@ -0,0 +1,95 @@
+package com.example.bakkerij.handler;
+
+import com.example.bakkerij.util.Metrics;
+import io.javalin.http.Context;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.RequestLog;
+import org.eclipse.jetty.server.Response;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Set;
+
+// Records every request into Metrics and serves /metrics.
+// The before and after handlers only stash the start time and route template on the request; the
+// actual recording happens in Jetty's request log, which runs once the response has been written,
+// so the latency includes writing the body and the byte count is what went over the wire.
+//
+// Route and cart sizes say more about the shop than visitors need to know: with a token /metrics
+// wants it as a bearer token, without one it only answers requests from this machine.
+public class MetricsHandler implements RequestLog {
+    private static final String START_ATTRIBUTE = "metrics.start";
+    private static final String ROUTE_ATTRIBUTE = "metrics.route";
+    private static final Set<String> METHODS = Set.of("GET", "HEAD", "POST", "PUT", "DELETE", "PATCH", "OPTIONS");
+
+    private final Metrics metrics;
+    private final byte[] token;
+
+    public MetricsHandler(Metrics metrics) {
+        this(metrics, "");
+    }
+
+    public MetricsHandler(Metrics metrics, String token) {
+        this.metrics = metrics;
+        this.token = token.isBlank() ? null : ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void before(Context ctx) {
+        ctx.req().setAttribute(START_ATTRIBUTE, System.nanoTime());
+    }
+
+    public void after(Context ctx) {
+        ctx.req().setAttribute(ROUTE_ATTRIBUTE, routeOf(ctx));
+    }
+
+    @Override
+    public void log(Request request, Response response) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            return; // rejected by Jetty before it reached Javalin
+        }
+        Object route = request.getAttribute(ROUTE_ATTRIBUTE);
+        metrics.recordRequest(methodOf(request.getMethod()), route == null ? "unmatched" : (String) route, response.getStatus(),
+            System.nanoTime() - (Long) start, response.getHttpChannel().getBytesWritten());
+    }
+
+    public void getMetrics(Context ctx) {
+        if (token != null) {
+            String authorization = ctx.header("Authorization");
+            if (authorization == null
+                || !MessageDigest.isEqual(token, authorization.getBytes(StandardCharsets.UTF_8))) {
+                ctx.header("WWW-Authenticate", "Bearer").status(401);
+                return;
+            }
+        } else if (!isLoopback(ctx.req().getRemoteAddr())) {
+            ctx.status(403);
+            return;
+        }
+        ctx.contentType("text/plain; version=0.0.4; charset=utf-8");
+        ctx.result(metrics.scrape());
+    }
+
+    // Clients can send any token as method, and each would become a series of its own
+    private static String methodOf(String method) {
+        return METHODS.contains(method) ? method : "other";
+    }
+
+    private static boolean isLoopback(String address) {
+        try {
+            return InetAddress.getByName(address).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    // Static files and unknown paths are grouped, raw paths would create a series per URL
+    private static String routeOf(Context ctx) {
+        String route = ctx.endpointHandlerPath();
+        if (route.startsWith("/")) {
+            return route;
+        }
+        return "*".equals(route) ? "static" : "unmatched";
+    }
+}
@@ -8,6 +8,7 @@ import com.example.bakkerij.util.SessionManager;
 import com.example.bakkerij.util.TemplateRenderer;
 import io.javalin.http.Context;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
@@ -19,14 +20,23 @@ public class PaymentHandler {
     private final CartService cartService;
     private final TemplateRenderer templateRenderer;
     private final SessionManager sessionManager;
+    private final Duration paymentProviderLatency;
 
     public PaymentHandler(UserService userService, OrderService orderService, CartService cartService,
                          TemplateRenderer templateRenderer, SessionManager sessionManager) {
+        this(userService, orderService, cartService, templateRenderer, sessionManager, Duration.ZERO);
+    }
+
+    // paymentProviderLatency simulates the blocking call to the payment provider that confirms a payment
+    public PaymentHandler(UserService userService, OrderService orderService, CartService cartService,
+                         TemplateRenderer templateRenderer, SessionManager sessionManager,
+                         Duration paymentProviderLatency) {
         this.userService = userService;
         this.orderService = orderService;
         this.cartService = cartService;
         this.templateRenderer = templateRenderer;
         this.sessionManager = sessionManager;
+        this.paymentProviderLatency = paymentProviderLatency;
     }
 
     public void getPickup(Context ctx) {
@@ -93,6 +103,7 @@ public class PaymentHandler {
         String paymentMethod = ctx.queryParam("method");
         boolean isCashPayment = "cash".equals(paymentMethod);
         
+        confirmWithPaymentProvider();
         userService.getUsername(sessionId).ifPresent(username -> {
             if (!cartService.isCartEmpty(sessionId)) {
                 List<OrderItem> orderItems = cartService.getOrderItems(sessionId);
@@ -126,4 +137,15 @@ public class PaymentHandler {
         
         ctx.html(templateRenderer.render(template, context, lang));
     }
+
+    private void confirmWithPaymentProvider() {
+        if (paymentProviderLatency.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(paymentProviderLatency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
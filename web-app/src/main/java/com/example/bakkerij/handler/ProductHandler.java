@@ -1,26 +1,40 @@
 package com.example.bakkerij.handler;
 
-import com.example.bakkerij.model.Product;
+import com.example.bakkerij.model.ProductDetails;
+import com.example.bakkerij.repository.FacetIndex;
+import com.example.bakkerij.repository.SearchIndex;
 import com.example.bakkerij.service.CartService;
 import com.example.bakkerij.service.ProductService;
+import com.example.bakkerij.util.HttpCaching;
+import com.example.bakkerij.util.PageCache;
 import com.example.bakkerij.util.SessionManager;
 import com.example.bakkerij.util.TemplateRenderer;
+import io.javalin.http.ContentType;
 import io.javalin.http.Context;
 
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public class ProductHandler {
+    private static final int SEARCH_RESULTS = 8;
+    private static final int MAX_QUERY_LENGTH = 100;
+
     private final ProductService productService;
     private final CartService cartService;
+    private final PageCache pageCache;
     private final TemplateRenderer templateRenderer;
     private final SessionManager sessionManager;
 
     public ProductHandler(ProductService productService, CartService cartService, 
-                         TemplateRenderer templateRenderer, SessionManager sessionManager) {
+                         PageCache pageCache, TemplateRenderer templateRenderer, SessionManager sessionManager) {
         this.productService = productService;
         this.cartService = cartService;
+        this.pageCache = pageCache;
         this.templateRenderer = templateRenderer;
         this.sessionManager = sessionManager;
     }
@@ -29,42 +43,156 @@ public class ProductHandler {
         String sessionId = sessionManager.getOrCreateSessionId(ctx);
         String lang = ctx.queryParam("lang") != null ? ctx.queryParam("lang") : "nl";
         
-        Map<String, Object> context = new HashMap<>();
-        context.put("products", productService.getAllProducts());
-        context.put("category", "all");
-        context.put("page", "products");
-        context.put("cartCount", cartService.getCartCount(sessionId));
-        
         String htmxRequest = ctx.header("HX-Request");
         String template = (htmxRequest != null && htmxRequest.equals("true")) 
             ? "templates/products-content.jinja" 
             : "templates/products.jinja";
         
-        ctx.html(templateRenderer.render(template, context, lang));
+        PageCache.Page page = pageCache.get(template, lang, "all", () -> {
+            Map<String, Object> context = filterContext("all", lang, List.of(), List.of());
+            context.put("page", "products");
+            return context;
+        });
+        int cartCount = cartService.getCartCount(sessionId);
+        HttpCaching.revalidatePrivately(ctx);
+        if (HttpCaching.notModified(ctx, page.getEtag(cartCount))) {
+            return;
+        }
+        ctx.contentType(ContentType.TEXT_HTML).result(page.withCartBadge(cartCount));
     }
 
+    // Optional filters: ?tag=white&tag=dark (any of them) and ?free=gluten&free=eggs (none of them)
     public void getProductsByCategory(Context ctx) {
         String category = ctx.pathParam("category");
         String lang = ctx.queryParam("lang") != null ? ctx.queryParam("lang") : "nl";
+        List<String> tags = selected(FacetIndex.TAGS, ctx.queryParams("tag"));
+        List<String> allergenFree = selected(FacetIndex.ALLERGENS, ctx.queryParams("free"));
+        if (tags == null || allergenFree == null) {
+            ctx.status(400).result("Unknown filter");
+            return;
+        }
         
-        List<Product> filtered = productService.getProductsByCategory(category);
-        
+        HttpCaching.revalidatePrivately(ctx);
+        if (tags.isEmpty() && allergenFree.isEmpty()) {
+            PageCache.Page page = pageCache.get("templates/products-area.jinja", lang, category,
+                () -> filterContext(category, lang, tags, allergenFree));
+            if (HttpCaching.notModified(ctx, page.getEtag(0))) {
+                return;
+            }
+            ctx.contentType(ContentType.TEXT_HTML).result(page.withCartBadge(0));
+            return;
+        }
+
+        // Filter combinations are far too many to cache (a crawler following the filter links would
+        // push every other page out), and the facet index answers them from memory anyway
+        byte[] html = templateRenderer.render("templates/products-area.jinja",
+            filterContext(category, lang, tags, allergenFree), lang).getBytes(StandardCharsets.UTF_8);
+        if (HttpCaching.notModified(ctx, "W/\"" + HttpCaching.contentHash(html) + "\"")) {
+            return;
+        }
+        ctx.contentType(ContentType.TEXT_HTML).result(html);
+    }
+
+    // The requested names in canonical order without duplicates, null when one is unknown
+    private static List<String> selected(List<String> known, List<String> requested) {
+        if (!known.containsAll(requested)) {
+            return null;
+        }
+        return known.stream().filter(requested::contains).toList();
+    }
+
+    private Map<String, Object> filterContext(String category, String lang, List<String> tags, List<String> allergenFree) {
+        FacetIndex.Result result = productService.filterProducts(category, tags, allergenFree);
+        Map<String, Object> tagFilters = new HashMap<>();
+        for (String tag : FacetIndex.TAGS) {
+            boolean active = tags.contains(tag);
+            tagFilters.put(tag, filterButton(active, result.getTagCounts().get(tag),
+                filterUrl(category, lang, toggle(tags, tag), allergenFree)));
+        }
+        Map<String, Object> allergenFilters = new HashMap<>();
+        for (String allergen : FacetIndex.ALLERGENS) {
+            boolean active = allergenFree.contains(allergen);
+            allergenFilters.put(allergen, filterButton(active, result.getAllergenFreeCounts().get(allergen),
+                filterUrl(category, lang, tags, toggle(allergenFree, allergen))));
+        }
+
         Map<String, Object> context = new HashMap<>();
-        context.put("products", filtered);
+        context.put("products", result.getProducts());
         context.put("category", category);
-        
-        ctx.html(templateRenderer.render("templates/products-area.jinja", context, lang));
+        context.put("tagFilters", tagFilters);
+        context.put("allergenFilters", allergenFilters);
+        context.put("filtered", !tags.isEmpty() || !allergenFree.isEmpty());
+        return context;
+    }
+
+    private static Map<String, Object> filterButton(boolean active, int count, String url) {
+        Map<String, Object> button = new HashMap<>();
+        button.put("active", active);
+        button.put("count", count);
+        button.put("url", url);
+        return button;
+    }
+
+    private static List<String> toggle(List<String> names, String name) {
+        List<String> toggled = new ArrayList<>(names);
+        if (!toggled.remove(name)) {
+            toggled.add(name);
+        }
+        return toggled;
+    }
+
+    private static String filterUrl(String category, String lang, List<String> tags, List<String> allergenFree) {
+        StringBuilder url = new StringBuilder("/products/")
+            .append(URLEncoder.encode(category, StandardCharsets.UTF_8).replace("+", "%20"))
+            .append("?lang=").append(URLEncoder.encode(lang, StandardCharsets.UTF_8));
+        FacetIndex.TAGS.stream().filter(tags::contains).forEach(tag -> url.append("&tag=").append(tag));
+        FacetIndex.ALLERGENS.stream().filter(allergenFree::contains).forEach(allergen -> url.append("&free=").append(allergen));
+        return url.toString();
+    }
+
+    // Typeahead suggestions for the search box: /search?q=volk&lang=nl. Not page cached, every
+    // keystroke is a new query; the index answers from memory.
+    public void search(Context ctx) {
+        String lang = ctx.queryParam("lang") != null ? ctx.queryParam("lang") : "nl";
+        String query = ctx.queryParam("q") != null ? ctx.queryParam("q").strip() : "";
+        if (query.length() > MAX_QUERY_LENGTH) {
+            query = query.substring(0, MAX_QUERY_LENGTH);
+        }
+
+        SearchIndex.Result result = productService.searchProducts(query, lang, SEARCH_RESULTS);
+        Map<String, Object> context = new HashMap<>();
+        context.put("query", query);
+        context.put("products", result.getProducts());
+        context.put("more", result.getTotal() - result.getProducts().size());
+        ctx.html(templateRenderer.render("templates/search-results.jinja", context, lang));
     }
 
     public void getProductDetails(Context ctx) {
-        String productId = ctx.pathParam("id");
-        String productJson = productService.getProductDetailsJson(productId);
+        Optional<ProductDetails> details;
+        try {
+            details = productService.getProductDetails(Integer.parseInt(ctx.pathParam("id")));
+        } catch (NumberFormatException e) {
+            details = Optional.empty();
+        }
         
-        if (productJson == null) {
+        if (details.isEmpty()) {
             ctx.status(404).result("Product not found");
             return;
         }
         
-        ctx.contentType("application/json").result(productJson);
+        ProductDetails productDetails = details.get();
+        ctx.header("Vary", "Accept-Encoding");
+        boolean gzip = HttpCaching.acceptsEncoding(ctx.header("Accept-Encoding"), "gzip");
+        if (HttpCaching.notModified(ctx, HttpCaching.encodedEtag(productDetails.getEtag(), gzip ? "gzip" : null))) {
+            return;
+        }
+        
+        ctx.contentType("application/json");
+        if (gzip) {
+            ctx.header("Content-Encoding", "gzip").result(productDetails.getGzippedJson());
+        } else {
+            // Javalin would otherwise gzip it anyway (it ignores q=0), under the identity ETag
+            ctx.disableCompression().result(productDetails.getJson());
+        }
     }
 }
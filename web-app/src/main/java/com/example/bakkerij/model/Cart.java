@@ -1,48 +1,125 @@
 package com.example.bakkerij.model;
 
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+// Carts are shared between concurrent requests of the same session (HTMX double clicks, parallel
+// swaps), so every access goes through the cart's own monitor. The critical sections never block,
+// so holding the monitor on a virtual thread only pins its carrier for a few nanoseconds.
+// A cart rarely holds more than a handful of lines, so lines are kept in two parallel int arrays
+// in insertion order and looked up with a linear scan: no boxing, no hashing, no entry objects.
 public class Cart {
-    private final Map<Integer, Integer> items; // productId -> quantity
+    private static final int INITIAL_CAPACITY = 8;
 
-    public Cart() {
-        this.items = new HashMap<>();
+    private int[] productIds = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private int size;
+    private int totalItems;
+
+    public synchronized void addItem(int productId, int quantity) {
+        int index = indexOf(productId);
+        if (index < 0) {
+            if (quantity > 0) {
+                append(productId, quantity);
+            }
+            return;
+        }
+        setQuantityAt(index, quantities[index] + quantity);
     }
 
-    public void addItem(int productId, int quantity) {
-        items.put(productId, items.getOrDefault(productId, 0) + quantity);
+    public synchronized void updateItem(int productId, int quantity) {
+        int index = indexOf(productId);
+        if (index >= 0) {
+            setQuantityAt(index, quantity);
+        } else if (quantity > 0) {
+            append(productId, quantity);
+        }
     }
 
-    public void updateItem(int productId, int quantity) {
-        if (quantity <= 0) {
-            items.remove(productId);
-        } else {
-            items.put(productId, quantity);
+    public synchronized void removeItem(int productId) {
+        int index = indexOf(productId);
+        if (index >= 0) {
+            removeAt(index);
+        }
+    }
+
+    public synchronized int getQuantity(int productId) {
+        int index = indexOf(productId);
+        return index < 0 ? 0 : quantities[index];
+    }
+
+    public synchronized Map<Integer, Integer> getItems() {
+        Map<Integer, Integer> items = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            items.put(productIds[i], quantities[i]);
+        }
+        return items;
+    }
+
+    // Visits every line in insertion order while holding the cart lock, without copying the cart
+    public synchronized void forEachItem(ItemConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(productIds[i], quantities[i]);
         }
     }
 
-    public void removeItem(int productId) {
-        items.remove(productId);
+    public synchronized int getTotalItems() {
+        return totalItems;
+    }
+
+    public synchronized int getLineCount() {
+        return size;
     }
 
-    public int getQuantity(int productId) {
-        return items.getOrDefault(productId, 0);
+    public synchronized void clear() {
+        size = 0;
+        totalItems = 0;
     }
 
-    public Map<Integer, Integer> getItems() {
-        return new HashMap<>(items);
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int indexOf(int productId) {
+        for (int i = 0; i < size; i++) {
+            if (productIds[i] == productId) {
+                return i;
+            }
+        }
+        return -1;
     }
 
-    public int getTotalItems() {
-        return items.values().stream().mapToInt(Integer::intValue).sum();
+    private void append(int productId, int quantity) {
+        if (size == productIds.length) {
+            productIds = Arrays.copyOf(productIds, size * 2);
+            quantities = Arrays.copyOf(quantities, size * 2);
+        }
+        productIds[size] = productId;
+        quantities[size] = quantity;
+        size++;
+        totalItems += quantity;
+    }
+
+    private void setQuantityAt(int index, int quantity) {
+        if (quantity <= 0) {
+            removeAt(index);
+            return;
+        }
+        totalItems += quantity - quantities[index];
+        quantities[index] = quantity;
     }
 
-    public void clear() {
-        items.clear();
+    private void removeAt(int index) {
+        totalItems -= quantities[index];
+        int moved = size - index - 1;
+        System.arraycopy(productIds, index + 1, productIds, index, moved);
+        System.arraycopy(quantities, index + 1, quantities, index, moved);
+        size--;
     }
 
-    public boolean isEmpty() {
-        return items.isEmpty();
+    @FunctionalInterface
+    public interface ItemConsumer {
+        void accept(int productId, int quantity);
     }
 }
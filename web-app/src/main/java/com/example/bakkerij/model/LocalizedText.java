@@ -0,0 +1,81 @@
+package com.example.bakkerij.model;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+// A text in each of the shop's languages. Missing translations fall back to Dutch, the language
+// every catalog entry is written in first.
+public final class LocalizedText {
+    public static final List<String> LANGUAGES = List.of("nl", "fr", "en", "de", "es", "zh");
+    public static final LocalizedText EMPTY = new LocalizedText(null, null, null, null, null, null);
+
+    private final String[] values; // in LANGUAGES order
+
+    public LocalizedText(String nl, String fr, String en, String de, String es, String zh) {
+        this.values = new String[] {nl, fr, en, de, es, zh};
+    }
+
+    // values in LANGUAGES order; the array is copied. All missing gives EMPTY, most products have
+    // no text for some fields.
+    public static LocalizedText of(String[] values) {
+        if (values.length != LANGUAGES.size()) {
+            throw new IllegalArgumentException("Expected " + LANGUAGES.size() + " languages, got " + values.length);
+        }
+        if (Arrays.stream(values).allMatch(Objects::isNull)) {
+            return EMPTY;
+        }
+        return new LocalizedText(values[0], values[1], values[2], values[3], values[4], values[5]);
+    }
+
+    // Position of lang in LANGUAGES, -1 when the shop does not offer it
+    public static int languageIndex(String lang) {
+        return switch (lang) {
+            case "nl" -> 0;
+            case "fr" -> 1;
+            case "en" -> 2;
+            case "de" -> 3;
+            case "es" -> 4;
+            case "zh" -> 5;
+            default -> -1;
+        };
+    }
+
+    public String get(String lang) {
+        int index = languageIndex(lang);
+        String value = index < 0 ? null : values[index];
+        return value != null ? value : values[0];
+    }
+
+    // Without falling back to Dutch: null when there is no translation
+    public String getExact(String lang) {
+        int index = languageIndex(lang);
+        return index < 0 ? null : values[index];
+    }
+
+    public boolean isEmpty() {
+        for (String value : values) {
+            if (value != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return Arrays.equals(values, ((LocalizedText) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return "LocalizedText{nl='" + values[0] + "'}";
+    }
+}
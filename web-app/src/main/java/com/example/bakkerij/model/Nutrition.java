@@ -0,0 +1,64 @@
+package com.example.bakkerij.model;
+
+import java.util.Objects;
+
+// Nutritional values per 100 g, as printed on the label ("1.2g", "240 kcal / 1005 kJ")
+public class Nutrition {
+    public static final Nutrition EMPTY = new Nutrition(null, null, null, null, null, null, null, null);
+
+    private final String energy;
+    private final String fat;
+    private final String saturatedFat;
+    private final String carbohydrates;
+    private final String sugars;
+    private final String fiber;
+    private final String protein;
+    private final String salt;
+
+    public Nutrition(String energy, String fat, String saturatedFat, String carbohydrates,
+                     String sugars, String fiber, String protein, String salt) {
+        this.energy = energy;
+        this.fat = fat;
+        this.saturatedFat = saturatedFat;
+        this.carbohydrates = carbohydrates;
+        this.sugars = sugars;
+        this.fiber = fiber;
+        this.protein = protein;
+        this.salt = salt;
+    }
+
+    public String getEnergy() { return energy; }
+    public String getFat() { return fat; }
+    public String getSaturatedFat() { return saturatedFat; }
+    public String getCarbohydrates() { return carbohydrates; }
+    public String getSugars() { return sugars; }
+    public String getFiber() { return fiber; }
+    public String getProtein() { return protein; }
+    public String getSalt() { return salt; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Nutrition that = (Nutrition) o;
+        return Objects.equals(energy, that.energy) &&
+               Objects.equals(fat, that.fat) &&
+               Objects.equals(saturatedFat, that.saturatedFat) &&
+               Objects.equals(carbohydrates, that.carbohydrates) &&
+               Objects.equals(sugars, that.sugars) &&
+               Objects.equals(fiber, that.fiber) &&
+               Objects.equals(protein, that.protein) &&
+               Objects.equals(salt, that.salt);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(energy, fat, saturatedFat, carbohydrates, sugars, fiber, protein, salt);
+    }
+
+    @Override
+    public String toString() {
+        return "Nutrition{energy='" + energy + "', fat='" + fat + "', carbohydrates='" + carbohydrates
+            + "', protein='" + protein + "', salt='" + salt + "'}";
+    }
+}
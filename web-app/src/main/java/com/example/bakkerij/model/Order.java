@@ -4,12 +4,12 @@ import java.util.List;
 import java.util.Objects;
 
 public class Order {
-    private final int orderNumber;
+    private final long orderNumber;
     private final String date;
     private final List<OrderItem> items;
     private final double total;
 
-    public Order(int orderNumber, String date, List<OrderItem> items, double total) {
+    public Order(long orderNumber, String date, List<OrderItem> items, double total) {
         if (items == null || items.isEmpty()) {
             throw new IllegalArgumentException("Order must have at least one item");
         }
@@ -19,7 +19,7 @@ public class Order {
         this.total = total;
     }
 
-    public int getOrderNumber() { return orderNumber; }
+    public long getOrderNumber() { return orderNumber; }
     public String getDate() { return date; }
     public List<OrderItem> getItems() { return items; }
     public double getTotal() { return total; }
@@ -0,0 +1,36 @@
+package com.example.bakkerij.model;
+
+import java.util.Objects;
+
+// The pickup date and time a customer chose, as submitted by the pickup form
+public class PickupSlot {
+    private final String date;
+    private final String time;
+
+    public PickupSlot(String date, String time) {
+        this.date = date;
+        this.time = time;
+    }
+
+    public String getDate() { return date; }
+    public String getTime() { return time; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PickupSlot that = (PickupSlot) o;
+        return Objects.equals(date, that.date) &&
+               Objects.equals(time, that.time);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(date, time);
+    }
+
+    @Override
+    public String toString() {
+        return "PickupSlot{date='" + date + "', time='" + time + "'}";
+    }
+}
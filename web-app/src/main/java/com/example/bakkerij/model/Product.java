@@ -2,82 +2,81 @@ package com.example.bakkerij.model;
 
 import java.util.Objects;
 
+// Everything the catalog says about one product. Immutable, shared by all requests.
 public class Product {
     private final int id;
-    private final String nameNl;
-    private final String nameFr;
-    private final String nameEn;
-    private final String nameDe;
-    private final String nameEs;
-    private final String nameZh;
-    private final String descriptionNl;
-    private final String descriptionFr;
-    private final String descriptionEn;
-    private final String descriptionDe;
-    private final String descriptionEs;
-    private final String descriptionZh;
+    private final LocalizedText name;
+    private final LocalizedText description;
     private final double price;
     private final String image;
     private final String category;
+    private final String weight;
+    private final String calories;
+    private final LocalizedText mainIngredients;
+    private final LocalizedText allergens;
+    private final Nutrition nutrition;
+    private final LocalizedText healthInfo;
+    private final LocalizedText storage;
 
     public Product(int id, String nameNl, String nameFr, String nameEn, String nameDe, String nameEs, String nameZh,
                   String descriptionNl, String descriptionFr, String descriptionEn, String descriptionDe, 
                   String descriptionEs, String descriptionZh, double price, String image, String category) {
+        this(id, new LocalizedText(nameNl, nameFr, nameEn, nameDe, nameEs, nameZh),
+            new LocalizedText(descriptionNl, descriptionFr, descriptionEn, descriptionDe, descriptionEs, descriptionZh),
+            price, image, category, null, null, LocalizedText.EMPTY, LocalizedText.EMPTY, Nutrition.EMPTY,
+            LocalizedText.EMPTY, LocalizedText.EMPTY);
+    }
+
+    public Product(int id, LocalizedText name, LocalizedText description, double price, String image, String category,
+                   String weight, String calories, LocalizedText mainIngredients, LocalizedText allergens,
+                   Nutrition nutrition, LocalizedText healthInfo, LocalizedText storage) {
         this.id = id;
-        this.nameNl = nameNl;
-        this.nameFr = nameFr;
-        this.nameEn = nameEn;
-        this.nameDe = nameDe;
-        this.nameEs = nameEs;
-        this.nameZh = nameZh;
-        this.descriptionNl = descriptionNl;
-        this.descriptionFr = descriptionFr;
-        this.descriptionEn = descriptionEn;
-        this.descriptionDe = descriptionDe;
-        this.descriptionEs = descriptionEs;
-        this.descriptionZh = descriptionZh;
+        this.name = name;
+        this.description = description;
         this.price = price;
         this.image = image;
         this.category = category;
+        this.weight = weight;
+        this.calories = calories;
+        this.mainIngredients = mainIngredients;
+        this.allergens = allergens;
+        this.nutrition = nutrition;
+        this.healthInfo = healthInfo;
+        this.storage = storage;
     }
 
     public int getId() { return id; }
-    public String getNameNl() { return nameNl; }
-    public String getNameFr() { return nameFr; }
-    public String getNameEn() { return nameEn; }
-    public String getNameDe() { return nameDe; }
-    public String getNameEs() { return nameEs; }
-    public String getNameZh() { return nameZh; }
-    public String getDescriptionNl() { return descriptionNl; }
-    public String getDescriptionFr() { return descriptionFr; }
-    public String getDescriptionEn() { return descriptionEn; }
-    public String getDescriptionDe() { return descriptionDe; }
-    public String getDescriptionEs() { return descriptionEs; }
-    public String getDescriptionZh() { return descriptionZh; }
+    public String getNameNl() { return name.getExact("nl"); }
+    public String getNameFr() { return name.getExact("fr"); }
+    public String getNameEn() { return name.getExact("en"); }
+    public String getNameDe() { return name.getExact("de"); }
+    public String getNameEs() { return name.getExact("es"); }
+    public String getNameZh() { return name.getExact("zh"); }
+    public String getDescriptionNl() { return description.getExact("nl"); }
+    public String getDescriptionFr() { return description.getExact("fr"); }
+    public String getDescriptionEn() { return description.getExact("en"); }
+    public String getDescriptionDe() { return description.getExact("de"); }
+    public String getDescriptionEs() { return description.getExact("es"); }
+    public String getDescriptionZh() { return description.getExact("zh"); }
     public double getPrice() { return price; }
     public String getImage() { return image; }
     public String getCategory() { return category; }
+    public LocalizedText getName() { return name; }
+    public LocalizedText getDescription() { return description; }
+    public String getWeight() { return weight; }
+    public String getCalories() { return calories; }
+    public LocalizedText getMainIngredients() { return mainIngredients; }
+    public LocalizedText getAllergens() { return allergens; }
+    public Nutrition getNutrition() { return nutrition; }
+    public LocalizedText getHealthInfo() { return healthInfo; }
+    public LocalizedText getStorage() { return storage; }
     
     public String getNameForLanguage(String lang) {
-        return switch (lang) {
-            case "fr" -> nameFr;
-            case "en" -> nameEn;
-            case "de" -> nameDe;
-            case "es" -> nameEs;
-            case "zh" -> nameZh;
-            default -> nameNl;
-        };
+        return name.get(lang);
     }
     
     public String getDescriptionForLanguage(String lang) {
-        return switch (lang) {
-            case "fr" -> descriptionFr;
-            case "en" -> descriptionEn;
-            case "de" -> descriptionDe;
-            case "es" -> descriptionEs;
-            case "zh" -> descriptionZh;
-            default -> descriptionNl;
-        };
+        return description.get(lang);
     }
 
     @Override
@@ -95,6 +94,6 @@ public class Product {
 
     @Override
     public String toString() {
-        return "Product{id=" + id + ", nameNl='" + nameNl + "', price=" + price + ", category='" + category + "'}";
+        return "Product{id=" + id + ", nameNl='" + getNameNl() + "', price=" + price + ", category='" + category + "'}";
     }
 }
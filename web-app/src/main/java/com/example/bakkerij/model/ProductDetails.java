@@ -0,0 +1,70 @@
+package com.example.bakkerij.model;
+
+import com.example.bakkerij.util.HttpCaching;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+// Ready-to-send detail JSON for one product. ProductRepository serializes it the first time the
+// product's details are requested and keeps it until the next catalog load; the gzipped copy and
+// the ETag are in turn derived on first use. Loading a catalog of tens of thousands of products
+// therefore serializes and compresses none of them up front. Threads racing to build any of these
+// compute the same value, so no locking is needed.
+// The byte arrays are shared between requests and must not be modified.
+public class ProductDetails {
+    private final int productId;
+    private final byte[] json;
+    private volatile byte[] gzippedJson;
+    private volatile String etag;
+
+    public ProductDetails(int productId, byte[] json) {
+        if (json == null || json.length == 0) {
+            throw new IllegalArgumentException("Product details JSON cannot be empty");
+        }
+        this.productId = productId;
+        this.json = json;
+    }
+
+    public int getProductId() { return productId; }
+    public byte[] getJson() { return json; }
+
+    public byte[] getGzippedJson() {
+        byte[] gzipped = gzippedJson;
+        if (gzipped == null) {
+            gzipped = gzip(json);
+            gzippedJson = gzipped;
+        }
+        return gzipped;
+    }
+
+    public String getEtag() {
+        String tag = etag;
+        if (tag == null) {
+            tag = "\"" + HttpCaching.contentHash(json) + "\"";
+            etag = tag;
+        }
+        return tag;
+    }
+
+    public String getJsonString() {
+        return new String(json, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return "ProductDetails{productId=" + productId + ", bytes=" + json.length + ", etag=" + getEtag() + "}";
+    }
+}
@@ -1,25 +1,102 @@
 package com.example.bakkerij.repository;
 
 import com.example.bakkerij.model.Cart;
+import com.example.bakkerij.util.Metrics;
 
-import java.util.HashMap;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
 
 public class CartRepository {
-    private final Map<String, Cart> carts = new HashMap<>();
+    public static final Duration DEFAULT_TTL = Duration.ofDays(30); // same as the sessionId cookie
+    public static final int DEFAULT_MAX_CARTS = 100_000;
 
-    public Cart getCart(String sessionId) {
-        return carts.computeIfAbsent(sessionId, k -> new Cart());
+    // Line count, then product id and quantity per line
+    static final ValueCodec<Cart> CODEC = new ValueCodec<>() {
+        @Override
+        public void write(Cart cart, DataOutputStream out) throws IOException {
+            Map<Integer, Integer> items = cart.getItems();
+            out.writeInt(items.size());
+            for (Map.Entry<Integer, Integer> item : items.entrySet()) {
+                out.writeInt(item.getKey());
+                out.writeInt(item.getValue());
+            }
+        }
+
+        @Override
+        public Cart read(DataInputStream in) throws IOException {
+            Cart cart = new Cart();
+            int lines = in.readInt();
+            for (int i = 0; i < lines; i++) {
+                cart.addItem(in.readInt(), in.readInt());
+            }
+            return cart;
+        }
+    };
+
+    private final SessionStore<Cart> carts;
+
+    public CartRepository() {
+        this(DEFAULT_TTL, DEFAULT_MAX_CARTS);
+    }
+
+    public CartRepository(Duration ttl, int maxCarts) {
+        this(ttl, maxCarts, Metrics.disabled());
+    }
+
+    public CartRepository(Duration ttl, int maxCarts, Metrics metrics) {
+        this(SessionStoreProvider.inMemory(), ttl, maxCarts, metrics);
+    }
+
+    public CartRepository(SessionStoreProvider stores, Duration ttl, int maxCarts, Metrics metrics) {
+        this(stores.open("carts", CODEC, ttl, maxCarts, metrics));
+    }
+
+    CartRepository(Duration ttl, int maxCarts, LongSupplier clock) {
+        this(ttl, maxCarts, clock, Metrics.disabled());
+    }
+
+    CartRepository(Duration ttl, int maxCarts, LongSupplier clock, Metrics metrics) {
+        this(new ExpiringMap<>(ttl, maxCarts, clock, metrics, "carts"));
+    }
+
+    private CartRepository(SessionStore<Cart> carts) {
+        this.carts = carts;
+    }
+
+    public Cart updateCart(String sessionId, Consumer<Cart> change) {
+        return carts.update(sessionId, Cart::new, change);
+    }
+
+    // Read-only lookup: unknown or expired sessions get Optional.empty() and no cart is created
+    public Optional<Cart> findCart(String sessionId) {
+        return carts.find(sessionId);
     }
 
     public void clearCart(String sessionId) {
-        Cart cart = carts.get(sessionId);
-        if (cart != null) {
-            cart.clear();
+        if (carts.find(sessionId).isPresent()) {
+            carts.update(sessionId, Cart::new, Cart::clear);
         }
     }
 
     public void removeCart(String sessionId) {
         carts.remove(sessionId);
     }
+
+    public int evictExpired() {
+        return carts.evictExpired();
+    }
+
+    public int getLiveCartCount() {
+        return carts.size();
+    }
+
+    public long getEvictedCartCount() {
+        return carts.getEvictedCount();
+    }
 }
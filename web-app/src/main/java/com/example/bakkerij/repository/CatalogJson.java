@@ -0,0 +1,307 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.model.LocalizedText;
+import com.example.bakkerij.model.Nutrition;
+import com.example.bakkerij.model.Product;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Reads bread_details.json straight into Products with Jackson's streaming parser: one pass over
+// the tokens, no tree or map per product. The catalog is an object keyed by product id (an array of
+// products is accepted too). Localized fields are named <field><Language>, e.g. nameNl, allergensZh.
+// A malformed catalog fails as a whole with the position of the problem, so a bad edit never
+// replaces a good catalog with half of one.
+//
+// Size variants of a bread repeat everything but their name: description, ingredients, allergens,
+// nutrition, storage advice. Read with deduplicate, equal texts, translations and nutrition tables
+// become one shared instance instead of a copy per product, which is most of a large catalog's heap.
+public final class CatalogJson {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final String[] LANGUAGE_SUFFIXES = {"Nl", "Fr", "En", "De", "Es", "Zh"};
+
+    private CatalogJson() {
+    }
+
+    public static Contents read(InputStream in) throws IOException {
+        return read(in, true);
+    }
+
+    public static Contents read(InputStream in, boolean deduplicate) throws IOException {
+        Pool pool = new Pool(deduplicate);
+        try (JsonParser parser = JSON.createParser(in)) {
+            List<Product> products = new ArrayList<>();
+            Set<Integer> ids = new HashSet<>();
+            Set<String> unknownFields = new TreeSet<>();
+
+            JsonToken start = parser.nextToken();
+            boolean keyed = start == JsonToken.START_OBJECT;
+            if (!keyed && start != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Catalog must be a JSON object or array");
+            }
+            JsonToken end = keyed ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+            while (parser.nextToken() != end) {
+                String key = keyed ? parser.currentName() : null;
+                if (keyed) {
+                    parser.nextToken();
+                }
+                Product product = readProduct(parser, unknownFields, pool);
+                if (key != null && !key.equals(String.valueOf(product.getId()))) {
+                    throw new JsonParseException(parser, "Product " + product.getId() + " is listed under key '" + key + "'");
+                }
+                if (!ids.add(product.getId())) {
+                    throw new JsonParseException(parser, "Duplicate product id " + product.getId());
+                }
+                products.add(product);
+            }
+            if (parser.nextToken() != null) {
+                throw new JsonParseException(parser, "Unexpected content after the catalog");
+            }
+            return new Contents(products, unknownFields);
+        }
+    }
+
+    private static Product readProduct(JsonParser parser, Set<String> unknownFields, Pool pool) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a product object");
+        }
+        int id = -1;
+        double price = Double.NaN;
+        String image = null;
+        String category = null;
+        String weight = null;
+        String calories = null;
+        Nutrition nutrition = Nutrition.EMPTY;
+        String[] name = new String[LANGUAGE_SUFFIXES.length];
+        String[] description = new String[LANGUAGE_SUFFIXES.length];
+        String[] mainIngredients = new String[LANGUAGE_SUFFIXES.length];
+        String[] allergens = new String[LANGUAGE_SUFFIXES.length];
+        String[] healthInfo = new String[LANGUAGE_SUFFIXES.length];
+        String[] storage = new String[LANGUAGE_SUFFIXES.length];
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            int language = languageOf(field);
+            if (language >= 0) {
+                String[] localized = switch (field.substring(0, field.length() - 2)) {
+                    case "name" -> name;
+                    case "description" -> description;
+                    case "mainIngredients" -> mainIngredients;
+                    case "allergens" -> allergens;
+                    case "healthInfo" -> healthInfo;
+                    case "storage" -> storage;
+                    default -> null;
+                };
+                if (localized != null) {
+                    localized[language] = text(parser, field);
+                    continue;
+                }
+            }
+            switch (field) {
+                case "id" -> id = integer(parser, field);
+                case "price" -> price = number(parser, field);
+                case "image" -> image = text(parser, field);
+                case "category" -> category = text(parser, field);
+                case "weight" -> weight = text(parser, field);
+                case "calories" -> calories = text(parser, field);
+                case "nutritionPer100g" -> nutrition = readNutrition(parser, unknownFields, pool);
+                default -> {
+                    unknownFields.add(field);
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (id <= 0) {
+            throw new JsonParseException(parser, "Product without a positive id");
+        }
+        if (name[0] == null || name[0].isBlank()) {
+            throw new JsonParseException(parser, "Product " + id + " has no nameNl");
+        }
+        if (!(price >= 0) || Double.isInfinite(price)) {
+            throw new JsonParseException(parser, "Product " + id + " has no valid price");
+        }
+        return new Product(id, pool.localized(name), pool.localized(description), price, pool.share(image),
+            pool.share(category), pool.share(weight), pool.share(calories), pool.localized(mainIngredients),
+            pool.localized(allergens), nutrition, pool.localized(healthInfo), pool.localized(storage));
+    }
+
+    private static Nutrition readNutrition(JsonParser parser, Set<String> unknownFields, Pool pool) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return Nutrition.EMPTY;
+        }
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an object for nutritionPer100g");
+        }
+        String energy = null, fat = null, saturatedFat = null, carbohydrates = null;
+        String sugars = null, fiber = null, protein = null, salt = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "energy" -> energy = text(parser, field);
+                case "fat" -> fat = text(parser, field);
+                case "saturatedFat" -> saturatedFat = text(parser, field);
+                case "carbohydrates" -> carbohydrates = text(parser, field);
+                case "sugars" -> sugars = text(parser, field);
+                case "fiber" -> fiber = text(parser, field);
+                case "protein" -> protein = text(parser, field);
+                case "salt" -> salt = text(parser, field);
+                default -> {
+                    unknownFields.add("nutritionPer100g." + field);
+                    parser.skipChildren();
+                }
+            }
+        }
+        return pool.share(new Nutrition(pool.share(energy), pool.share(fat), pool.share(saturatedFat),
+            pool.share(carbohydrates), pool.share(sugars), pool.share(fiber), pool.share(protein), pool.share(salt)));
+    }
+
+    // Index into LocalizedText.LANGUAGES of the field's language suffix, -1 for other fields
+    private static int languageOf(String field) {
+        if (field.length() < 3) {
+            return -1;
+        }
+        for (int i = 0; i < LANGUAGE_SUFFIXES.length; i++) {
+            if (field.endsWith(LANGUAGE_SUFFIXES[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String text(JsonParser parser, String field) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NULL -> null;
+            default -> throw new JsonParseException(parser, "Expected text for " + field);
+        };
+    }
+
+    private static int integer(JsonParser parser, String field) throws IOException {
+        if (parser.currentToken() != JsonToken.VALUE_NUMBER_INT) {
+            throw new JsonParseException(parser, "Expected a whole number for " + field);
+        }
+        return parser.getIntValue();
+    }
+
+    private static double number(JsonParser parser, String field) throws IOException {
+        if (!parser.currentToken().isNumeric()) {
+            throw new JsonParseException(parser, "Expected a number for " + field);
+        }
+        return parser.getDoubleValue();
+    }
+
+    // The detail JSON the product modal reads: the catalog entry's own flat format, so the page
+    // script keeps working with fields like allergensFr. Absent fields are left out.
+    public static byte[] writeDetails(Product product) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(2048);
+        try (JsonGenerator json = JSON.createGenerator(bytes)) {
+            json.writeStartObject();
+            json.writeNumberField("id", product.getId());
+            writeLocalized(json, "name", product.getName());
+            writeLocalized(json, "description", product.getDescription());
+            json.writeNumberField("price", product.getPrice());
+            writeText(json, "image", product.getImage());
+            writeText(json, "category", product.getCategory());
+            writeText(json, "weight", product.getWeight());
+            writeLocalized(json, "mainIngredients", product.getMainIngredients());
+            writeLocalized(json, "allergens", product.getAllergens());
+            writeText(json, "calories", product.getCalories());
+            Nutrition nutrition = product.getNutrition();
+            if (!nutrition.equals(Nutrition.EMPTY)) {
+                json.writeObjectFieldStart("nutritionPer100g");
+                writeText(json, "energy", nutrition.getEnergy());
+                writeText(json, "fat", nutrition.getFat());
+                writeText(json, "saturatedFat", nutrition.getSaturatedFat());
+                writeText(json, "carbohydrates", nutrition.getCarbohydrates());
+                writeText(json, "sugars", nutrition.getSugars());
+                writeText(json, "fiber", nutrition.getFiber());
+                writeText(json, "protein", nutrition.getProtein());
+                writeText(json, "salt", nutrition.getSalt());
+                json.writeEndObject();
+            }
+            writeLocalized(json, "healthInfo", product.getHealthInfo());
+            writeLocalized(json, "storage", product.getStorage());
+            json.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeLocalized(JsonGenerator json, String field, LocalizedText text) throws IOException {
+        for (int i = 0; i < LANGUAGE_SUFFIXES.length; i++) {
+            writeText(json, field + LANGUAGE_SUFFIXES[i], text.getExact(LocalizedText.LANGUAGES.get(i)));
+        }
+    }
+
+    private static void writeText(JsonGenerator json, String field, String value) throws IOException {
+        if (value != null) {
+            json.writeStringField(field, value);
+        }
+    }
+
+    // One shared instance per distinct value of one catalog; disabled, every value stays as read
+    private static final class Pool {
+        private final Map<Object, Object> values;
+
+        Pool(boolean enabled) {
+            this.values = enabled ? new HashMap<>() : null;
+            share(LocalizedText.EMPTY);
+            share(Nutrition.EMPTY);
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T share(T value) {
+            if (values == null || value == null) {
+                return value;
+            }
+            Object shared = values.putIfAbsent(value, value);
+            return shared == null ? value : (T) shared;
+        }
+
+        LocalizedText localized(String[] texts) {
+            for (int i = 0; i < texts.length; i++) {
+                texts[i] = share(texts[i]);
+            }
+            return share(LocalizedText.of(texts));
+        }
+    }
+
+    // The products of one catalog file, in file order
+    public static final class Contents {
+        private final List<Product> products;
+        private final Set<String> unknownFields;
+
+        private Contents(List<Product> products, Set<String> unknownFields) {
+            this.products = List.copyOf(products);
+            this.unknownFields = Collections.unmodifiableSet(unknownFields);
+        }
+
+        public List<Product> getProducts() {
+            return products;
+        }
+
+        // Fields the loader does not know and skipped, most likely typos in the catalog
+        public Set<String> getUnknownFields() {
+            return unknownFields;
+        }
+    }
+}
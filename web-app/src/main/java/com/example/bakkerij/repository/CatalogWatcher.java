@@ -0,0 +1,114 @@
+package com.example.bakkerij.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Reloads the catalog in the background whenever its file changes, so a new price or bread goes
+// live without rebuilding and restarting.
+//
+// The watch is on the file's directory, because deploy scripts and editors often replace a file
+// by renaming a new one over it. After a change the watcher waits for the directory to be quiet
+// for a moment, so a copy still in progress is not loaded halfway through. If that happens
+// anyway, the catalog fails to parse, the current one stays and the next write triggers another
+// load. Readers are never involved: they keep the catalog they had until the new one is swapped in.
+public class CatalogWatcher implements Closeable {
+    private static final Duration QUIET_PERIOD = Duration.ofMillis(300);
+
+    private final ProductRepository productRepository;
+    private final Path file;
+    private final Duration quietPeriod;
+    private final WatchService watchService;
+    private final Thread thread;
+    private List<Object> loadedVersion;
+
+    public CatalogWatcher(ProductRepository productRepository, Path file) throws IOException {
+        this(productRepository, file, QUIET_PERIOD);
+    }
+
+    public CatalogWatcher(ProductRepository productRepository, Path file, Duration quietPeriod) throws IOException {
+        this.productRepository = productRepository;
+        this.file = file.toAbsolutePath();
+        this.quietPeriod = quietPeriod;
+        this.loadedVersion = fileVersion();
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::run, "catalog-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                if (!mentionsFile(watchService.take())) {
+                    continue;
+                }
+                // Let a burst of writes and renames settle before reading the file
+                WatchKey next;
+                while ((next = watchService.poll(quietPeriod.toMillis(), TimeUnit.MILLISECONDS)) != null) {
+                    mentionsFile(next);
+                }
+                reloadIfChanged();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed
+        }
+    }
+
+    private boolean mentionsFile(WatchKey key) {
+        boolean mentioned = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            mentioned |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                || file.getFileName().equals(event.context());
+        }
+        if (!key.reset()) {
+            System.err.println("Stopped watching " + file + ": its directory is gone");
+        }
+        return mentioned;
+    }
+
+    // One write can raise several events and a chmod raises one too; only a new modification time
+    // or size is worth a new catalog version (which also empties the page cache)
+    private void reloadIfChanged() {
+        List<Object> version = fileVersion();
+        if (version == null || version.equals(loadedVersion)) {
+            return;
+        }
+        System.out.println("Catalog file " + file + " changed, reloading");
+        if (productRepository.loadProducts(file)) {
+            loadedVersion = version;
+        }
+    }
+
+    // Modification time and size, null while the file does not exist (between delete and rename)
+    private List<Object> fileVersion() {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return List.of(attributes.lastModifiedTime(), attributes.size());
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            System.err.println("Failed to check " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+        thread.interrupt();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.util.Metrics;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+// The in-memory SessionStore: per-session state that expires after a period of inactivity and is
+// capped in size. Reads and writes go straight to a ConcurrentHashMap; expiry sweeps and trimming
+// walk it without locking readers out, so they can run while requests are served. Values are kept
+// as live objects and changed in place, so they must be safe for concurrent use themselves.
+final class ExpiringMap<V> implements SessionStore<V> {
+    // Access times are only rewritten when they moved by more than this, to keep hot entries from
+    // bouncing their cache line between cores on every request
+    private static final long TOUCH_RESOLUTION_MILLIS = 1_000;
+    // When the cap is hit, trim down to this fraction so the sort is amortized over many inserts
+    private static final double TRIM_TARGET = 0.9;
+
+    private final Map<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock trimLock = new ReentrantLock();
+    private final LongAdder evicted = new LongAdder();
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Metrics metrics;
+    private final String evictMetric;
+    private final String trimMetric;
+
+    // metricName prefixes the repository operations recorded in metrics, e.g. "carts"
+    ExpiringMap(Duration ttl, int maxEntries, LongSupplier clock, Metrics metrics, String metricName) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.ttlMillis = ttl.toMillis();
+        this.maxEntries = maxEntries;
+        this.clock = clock;
+        this.metrics = metrics;
+        this.evictMetric = metricName + ".evict_expired";
+        this.trimMetric = metricName + ".trim";
+    }
+
+    @Override
+    public V update(String key, Supplier<V> factory, Consumer<V> change) {
+        Entry<V> entry = getOrCreate(key, factory);
+        change.accept(entry.value);
+        // A trim or expiry sweep can evict the entry while it is being changed: its last access may
+        // be up to a touch resolution old. Put it back rather than lose the change, or when a new
+        // entry has taken its place in the meantime, apply the change to that one as well.
+        while (entries.get(key) != entry) {
+            Entry<V> current = entries.putIfAbsent(key, entry);
+            if (current == null) {
+                break;
+            }
+            entry = current;
+            change.accept(entry.value);
+        }
+        return entry.value;
+    }
+
+    // The live entry for key, replacing an expired one with a fresh value from factory
+    private Entry<V> getOrCreate(String key, Supplier<V> factory) {
+        long now = clock.getAsLong();
+        Entry<V> entry = entries.get(key);
+        if (entry != null && !entry.isExpired(now, ttlMillis)) {
+            entry.touch(now);
+            return entry;
+        }
+        if (entry != null && entries.remove(key, entry)) {
+            evicted.increment();
+        }
+
+        entry = entries.computeIfAbsent(key, k -> new Entry<>(factory.get(), now));
+        if (entries.size() > maxEntries) {
+            trimToCapacity(now);
+        }
+        return entry;
+    }
+
+    @Override
+    public Optional<V> find(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long now = clock.getAsLong();
+        if (entry.isExpired(now, ttlMillis)) {
+            if (entries.remove(key, entry)) {
+                evicted.increment();
+            }
+            return Optional.empty();
+        }
+        entry.touch(now);
+        return Optional.of(entry.value);
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public int evictExpired() {
+        long start = metrics.startTimer();
+        long now = clock.getAsLong();
+        int removed = 0;
+        for (Map.Entry<String, Entry<V>> e : entries.entrySet()) {
+            if (e.getValue().isExpired(now, ttlMillis) && entries.remove(e.getKey(), e.getValue())) {
+                removed++;
+            }
+        }
+        evicted.add(removed);
+        metrics.recordRepository(evictMetric, start);
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    private void trimToCapacity(long now) {
+        // One thread trims, the others keep serving; being briefly over the cap is harmless
+        if (!trimLock.tryLock()) {
+            return;
+        }
+        long start = metrics.startTimer();
+        try {
+            if (entries.size() <= maxEntries) {
+                return;
+            }
+            evictExpired();
+            int target = (int) (maxEntries * TRIM_TARGET);
+            int excess = entries.size() - target;
+            if (excess <= 0) {
+                return;
+            }
+
+            long[] accessTimes = entries.values().stream().mapToLong(entry -> entry.lastAccess).toArray();
+            Arrays.sort(accessTimes);
+            long cutoff = accessTimes[Math.min(excess, accessTimes.length) - 1];
+
+            int removed = 0;
+            for (Map.Entry<String, Entry<V>> e : entries.entrySet()) {
+                if (removed >= excess) {
+                    break;
+                }
+                // Spare entries created in this very request; update() puts back the ones it was
+                // changing, which can look a whole touch resolution older than they are
+                if (e.getValue().lastAccess <= cutoff && e.getValue().lastAccess < now
+                        && entries.remove(e.getKey(), e.getValue())) {
+                    removed++;
+                }
+            }
+            evicted.add(removed);
+        } finally {
+            trimLock.unlock();
+            metrics.recordRepository(trimMetric, start);
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private volatile long lastAccess;
+
+        private Entry(V value, long now) {
+            this.value = value;
+            this.lastAccess = now;
+        }
+
+        private boolean isExpired(long now, long ttlMillis) {
+            return now - lastAccess > ttlMillis;
+        }
+
+        private void touch(long now) {
+            if (now - lastAccess > TOUCH_RESOLUTION_MILLIS) {
+                lastAccess = now;
+            }
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.model.LocalizedText;
+import com.example.bakkerij.model.Product;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Product filters evaluated on the server. Every tag ("white", "chocolate") and allergen ("gluten")
+// is a bitset over the catalog's product positions, worked out once per catalog load from the
+// names, descriptions, ingredients and allergen statements in all six languages. A filter request
+// is then a few word-wise ANDs and ORs, and the facet counts are bit counts over the same sets.
+//
+// Terms are matched against whole words, and words that start with the term when it is four or
+// more letters ("tarwe" matches "Tarwebloem"); Chinese terms are matched anywhere in the text.
+// An allergen match errs towards caution: a product is only allergen-free when no term is found.
+public final class FacetIndex {
+    private static final Map<String, List<String>> TAG_TERMS = new LinkedHashMap<>();
+    private static final Map<String, List<String>> ALLERGEN_TERMS = new LinkedHashMap<>();
+
+    static {
+        // Tags shown as type filters, matched in name, description and ingredients. No one-character
+        // Chinese terms here: 小 or 白 also occur inside 小麦 (wheat) and 蛋白 (protein). No "vegetable"
+        // either, that is mostly vegetable oil.
+        TAG_TERMS.put("white", List.of("wit", "witte", "blanc", "blanche", "white", "weiß", "weiss", "blanco", "白面包"));
+        TAG_TERMS.put("dark", List.of("donker", "bruin", "bruine", "foncé", "brun", "dark", "brown", "dunkel", "braun", "oscuro", "moreno", "褐色", "黑面包"));
+        TAG_TERMS.put("whole-grain", List.of("volkoren", "complet", "vollkorn", "integral", "全麦"));
+        TAG_TERMS.put("multigrain", List.of("meergranen", "granen", "multicéréales", "multigrain", "mehrkorn", "multigranos", "多谷物"));
+        TAG_TERMS.put("chocolate", List.of("chocolade", "chocolat", "cacao", "chocolate", "schokolade", "巧克力"));
+        TAG_TERMS.put("vanilla", List.of("vanille", "vanilla", "vainilla", "香草"));
+        TAG_TERMS.put("fruit", List.of("fruit", "framboos", "aardbei", "appel", "frucht", "obst", "fruta", "水果"));
+        TAG_TERMS.put("nut", List.of("noot", "noten", "noix", "amandel", "hazelnoot", "nut", "nuts", "nuss", "nüsse", "nuez", "nueces", "坚果"));
+        TAG_TERMS.put("small", List.of("klein", "kleine", "petit", "petite", "small", "pequeño"));
+        TAG_TERMS.put("medium", List.of("middel", "moyen", "medium", "mittel", "mediano"));
+        TAG_TERMS.put("large", List.of("groot", "grote", "grand", "grande", "large", "groß"));
+        TAG_TERMS.put("cheese", List.of("kaas", "fromage", "cheese", "käse", "queso", "奶酪"));
+        TAG_TERMS.put("ham", List.of("ham", "jambon", "schinken", "jamón", "火腿"));
+        TAG_TERMS.put("veggie", List.of("groente", "groenten", "végétarien", "veggie", "vegetarian", "gemüse", "verdura", "蔬菜"));
+        TAG_TERMS.put("chicken", List.of("kip", "poulet", "chicken", "huhn", "hähnchen", "pollo", "鸡肉"));
+
+        // Allergens the shop filters on, matched in the allergen statement and the ingredients
+        ALLERGEN_TERMS.put("gluten", List.of("gluten", "tarwe", "spelt", "rogge", "gerst", "blé", "seigle", "orge", "wheat", "rye",
+            "barley", "weizen", "roggen", "gerste", "dinkel", "trigo", "centeno", "cebada", "麸质", "小麦", "黑麦", "大麦"));
+        ALLERGEN_TERMS.put("lactose", List.of("lactose", "melk", "boter", "kaas", "room", "lait", "beurre", "fromage", "crème",
+            "milk", "butter", "cheese", "cream", "dairy", "milch", "käse", "sahne", "leche", "mantequilla", "queso", "nata",
+            "乳糖", "牛奶", "黄油", "奶酪", "奶油"));
+        ALLERGEN_TERMS.put("nuts", List.of("noot", "noten", "amandel", "hazelnoot", "walnoot", "noix", "noisette", "amande", "nut",
+            "nuts", "almond", "hazelnut", "walnut", "nuss", "nüsse", "mandel", "haselnuss", "nuez", "nueces", "almendra",
+            "avellana", "坚果", "杏仁", "榛子", "核桃"));
+        ALLERGEN_TERMS.put("eggs", List.of("ei", "eieren", "eigeel", "œuf", "œufs", "oeuf", "oeufs", "egg", "eggs", "eier", "huevo",
+            "huevos", "鸡蛋", "蛋黄", "蛋清", "全蛋", "蛋液", "蛋粉"));
+        ALLERGEN_TERMS.put("soy", List.of("soja", "soy", "soya", "soybean", "大豆"));
+    }
+
+    public static final List<String> TAGS = List.copyOf(TAG_TERMS.keySet());
+    public static final List<String> ALLERGENS = List.copyOf(ALLERGEN_TERMS.keySet());
+    private static final Terms TAG_FINDER = new Terms(TAG_TERMS);
+    private static final Terms ALLERGEN_FINDER = new Terms(ALLERGEN_TERMS);
+    // Sizes only count in the name: descriptions say things like "loved by young and old (petits et grands)"
+    private static final long NAME_ONLY_TAGS = TAG_FINDER.mask(List.of("small", "medium", "large"));
+    static final FacetIndex EMPTY = new FacetIndex(List.of());
+
+    private final List<Product> products;
+    private final BitSet all;
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> byTag = new HashMap<>();
+    private final Map<String, BitSet> byAllergen = new HashMap<>();
+
+    FacetIndex(List<Product> products) {
+        this.products = products;
+        this.all = new BitSet(products.size());
+        all.set(0, products.size());
+        TAGS.forEach(tag -> byTag.put(tag, new BitSet(products.size())));
+        ALLERGENS.forEach(allergen -> byAllergen.put(allergen, new BitSet(products.size())));
+
+        // Allergen statements and ingredient lists repeat across a catalog, so each text is matched once
+        Map<LocalizedText, Long> tagsIn = new HashMap<>();
+        Map<LocalizedText, Long> allergensIn = new HashMap<>();
+        for (int position = 0; position < products.size(); position++) {
+            Product product = products.get(position);
+            if (product.getCategory() != null) {
+                byCategory.computeIfAbsent(product.getCategory(), k -> new BitSet(products.size())).set(position);
+            }
+            long named = tagsIn.computeIfAbsent(product.getName(), TAG_FINDER::find);
+            long described = named | tagsIn.computeIfAbsent(product.getDescription(), TAG_FINDER::find)
+                | tagsIn.computeIfAbsent(product.getMainIngredients(), TAG_FINDER::find);
+            set(byTag, TAGS, (named & NAME_ONLY_TAGS) | (described & ~NAME_ONLY_TAGS), position);
+            long declared = allergensIn.computeIfAbsent(product.getAllergens(), ALLERGEN_FINDER::find)
+                | allergensIn.computeIfAbsent(product.getMainIngredients(), ALLERGEN_FINDER::find);
+            set(byAllergen, ALLERGENS, declared, position);
+        }
+    }
+
+    private static void set(Map<String, BitSet> sets, List<String> names, long mask, int position) {
+        for (int bit = 0; mask != 0; bit++, mask >>>= 1) {
+            if ((mask & 1) != 0) {
+                sets.get(names.get(bit)).set(position);
+            }
+        }
+    }
+
+    // Products in category ("all" for the whole catalog) that have at least one of tags (none: no
+    // restriction) and none of the allergens in allergenFree, in catalog order. Names must come from
+    // TAGS and ALLERGENS. Counts tell what each further filter would leave: per tag the products
+    // with that tag under the current allergen filters, per allergen the current matches that are
+    // also free of it.
+    public Result filter(String category, Collection<String> tags, Collection<String> allergenFree) {
+        BitSet inCategory = "all".equals(category) ? all : byCategory.get(category);
+        if (inCategory == null) {
+            inCategory = new BitSet();
+        }
+
+        BitSet safe = (BitSet) inCategory.clone();
+        for (String allergen : allergenFree) {
+            safe.andNot(lookup(byAllergen, allergen, "allergen"));
+        }
+
+        BitSet matching = safe;
+        if (!tags.isEmpty()) {
+            BitSet anyTag = new BitSet(products.size());
+            for (String tag : tags) {
+                anyTag.or(lookup(byTag, tag, "tag"));
+            }
+            matching = (BitSet) safe.clone();
+            matching.and(anyTag);
+        }
+
+        Map<String, Integer> tagCounts = new LinkedHashMap<>();
+        for (String tag : TAGS) {
+            tagCounts.put(tag, intersectionSize(safe, byTag.get(tag)));
+        }
+        Map<String, Integer> allergenFreeCounts = new LinkedHashMap<>();
+        for (String allergen : ALLERGENS) {
+            BitSet free = (BitSet) matching.clone();
+            free.andNot(byAllergen.get(allergen));
+            allergenFreeCounts.put(allergen, free.cardinality());
+        }
+
+        List<Product> result = new ArrayList<>(matching.cardinality());
+        for (int position = matching.nextSetBit(0); position >= 0; position = matching.nextSetBit(position + 1)) {
+            result.add(products.get(position));
+        }
+        return new Result(List.copyOf(result), tagCounts, allergenFreeCounts);
+    }
+
+    private static BitSet lookup(Map<String, BitSet> sets, String name, String kind) {
+        BitSet set = sets.get(name);
+        if (set == null) {
+            throw new IllegalArgumentException("Unknown " + kind + " filter: " + name);
+        }
+        return set;
+    }
+
+    private static int intersectionSize(BitSet a, BitSet b) {
+        BitSet both = (BitSet) a.clone();
+        both.and(b);
+        return both.cardinality();
+    }
+
+    // The terms of one family of facets (tags or allergens), looked up per word of a text rather
+    // than searched for: a word matches a term it equals, or that it starts with when the term is
+    // at least MIN_PREFIX letters. Chinese terms are searched for in the text. Facet i of the family
+    // is bit i of a mask.
+    private static final class Terms {
+        private static final int MIN_PREFIX = 4;
+
+        private final List<String> facets;
+        private final Map<String, Long> words = new HashMap<>();
+        private final Map<String, Long> prefixes = new HashMap<>();
+        private final Map<String, Long> han = new LinkedHashMap<>();
+        private int longestPrefix;
+
+        Terms(Map<String, List<String>> termsByFacet) {
+            this.facets = List.copyOf(termsByFacet.keySet());
+            for (Map.Entry<String, List<String>> facet : termsByFacet.entrySet()) {
+                long bit = mask(List.of(facet.getKey()));
+                for (String term : facet.getValue()) {
+                    if (Character.UnicodeScript.of(term.codePointAt(0)) == Character.UnicodeScript.HAN) {
+                        han.merge(term, bit, (a, b) -> a | b);
+                    } else if (term.length() >= MIN_PREFIX) {
+                        prefixes.merge(term, bit, (a, b) -> a | b);
+                        longestPrefix = Math.max(longestPrefix, term.length());
+                    } else {
+                        words.merge(term, bit, (a, b) -> a | b);
+                    }
+                }
+            }
+        }
+
+        long mask(List<String> names) {
+            long mask = 0;
+            for (String name : names) {
+                mask |= 1L << facets.indexOf(name);
+            }
+            return mask;
+        }
+
+        // The facets mentioned in any language of text
+        long find(LocalizedText text) {
+            long mask = 0;
+            for (String lang : LocalizedText.LANGUAGES) {
+                String value = text.getExact(lang);
+                if (value != null) {
+                    mask |= find(value.toLowerCase(Locale.ROOT));
+                }
+            }
+            return mask;
+        }
+
+        private long find(String lower) {
+            long mask = 0;
+            boolean wide = false;
+            int start = -1;
+            for (int i = 0; i <= lower.length(); i++) {
+                char c = i < lower.length() ? lower.charAt(i) : ' ';
+                wide |= c >= '\u2e80';
+                if (Character.isLetter(c)) {
+                    if (start < 0) {
+                        start = i;
+                    }
+                } else if (start >= 0) {
+                    mask |= findWord(lower, start, i);
+                    start = -1;
+                }
+            }
+            if (wide) {
+                for (Map.Entry<String, Long> term : han.entrySet()) {
+                    if (lower.contains(term.getKey())) {
+                        mask |= term.getValue();
+                    }
+                }
+            }
+            return mask;
+        }
+
+        private long findWord(String text, int start, int end) {
+            long mask = words.getOrDefault(text.substring(start, end), 0L);
+            for (int length = MIN_PREFIX; length <= Math.min(end - start, longestPrefix); length++) {
+                mask |= prefixes.getOrDefault(text.substring(start, start + length), 0L);
+            }
+            return mask;
+        }
+    }
+
+    public static final class Result {
+        private final List<Product> products;
+        private final Map<String, Integer> tagCounts;
+        private final Map<String, Integer> allergenFreeCounts;
+
+        private Result(List<Product> products, Map<String, Integer> tagCounts, Map<String, Integer> allergenFreeCounts) {
+            this.products = products;
+            this.tagCounts = tagCounts;
+            this.allergenFreeCounts = allergenFreeCounts;
+        }
+
+        public List<Product> getProducts() {
+            return products;
+        }
+
+        // tag -> matching products when that tag is (also) selected
+        public Map<String, Integer> getTagCounts() {
+            return tagCounts;
+        }
+
+        // allergen -> matching products that are also free of it
+        public Map<String, Integer> getAllergenFreeCounts() {
+            return allergenFreeCounts;
+        }
+    }
+}
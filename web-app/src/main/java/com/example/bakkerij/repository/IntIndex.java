@@ -0,0 +1,75 @@
+package com.example.bakkerij.repository;
+
+import java.util.Map;
+
+// Immutable int -> value lookup without boxing. Dense ids (the normal case for our catalog) use a
+// plain array indexed by id; sparse ids fall back to an open-addressing table with linear probing.
+final class IntIndex<T> {
+    private static final int MAX_DENSE_OVERHEAD = 4;
+
+    private final Object[] dense;
+    private final int[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final int size;
+
+    private IntIndex(Object[] dense, int[] keys, Object[] values, int size) {
+        this.dense = dense;
+        this.keys = keys;
+        this.values = values;
+        this.mask = keys == null ? 0 : keys.length - 1;
+        this.size = size;
+    }
+
+    static <T> IntIndex<T> of(Map<Integer, T> entries) {
+        int maxKey = -1;
+        boolean negative = false;
+        for (int key : entries.keySet()) {
+            maxKey = Math.max(maxKey, key);
+            negative |= key < 0;
+        }
+
+        if (!negative && maxKey < MAX_DENSE_OVERHEAD * entries.size() + 64) {
+            Object[] dense = new Object[maxKey + 1];
+            entries.forEach((key, value) -> dense[key] = value);
+            return new IntIndex<>(dense, null, null, entries.size());
+        }
+
+        int capacity = Integer.highestOneBit(Math.max(entries.size(), 1) * 2 - 1) << 1;
+        int[] keys = new int[capacity];
+        Object[] values = new Object[capacity];
+        for (Map.Entry<Integer, T> entry : entries.entrySet()) {
+            int slot = mix(entry.getKey()) & (capacity - 1);
+            while (values[slot] != null) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            keys[slot] = entry.getKey();
+            values[slot] = entry.getValue();
+        }
+        return new IntIndex<>(null, keys, values, entries.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int key) {
+        if (dense != null) {
+            return key >= 0 && key < dense.length ? (T) dense[key] : null;
+        }
+        int slot = mix(key) & mask;
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return (T) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,313 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.model.Order;
+import com.example.bakkerij.model.OrderItem;
+import com.example.bakkerij.model.Product;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32C;
+
+// Append-only binary log of placed orders, written through a memory-mapped file.
+//
+// Layout: an 8 byte header (magic, version) followed by records of
+//   [int payloadLength][int crc32c(payload)][payload]
+// where the payload is username, order number, date, total and (productId, quantity) per line.
+// The mapped region past the last record is all zeros, so a zero length marks the end of the log.
+//
+// Appends only copy into the mapping, which already survives a crash of the JVM. A background
+// thread forces the written range to disk every flush interval (group commit), so a power loss can
+// cost at most one interval of orders but checkout never waits for an fsync. On open the log is
+// scanned and a torn or corrupt tail is cut off before new records are appended.
+// Growing the file forces it to disk while holding the lock, so this uses a ReentrantLock rather
+// than a monitor: a virtual thread blocked on it does not pin its carrier thread.
+public class OrderJournal implements Closeable {
+    private static final int MAGIC = 0x424B4F4A; // "BKOJ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final long INITIAL_CAPACITY = 16L * 1024 * 1024;
+    private static final long MAX_CAPACITY = Integer.MAX_VALUE; // a single MappedByteBuffer
+
+    private final Path file;
+    private final FileChannel channel;
+    private final ScheduledExecutorService flusher;
+    private final ReentrantLock lock = new ReentrantLock();
+    private MappedByteBuffer buffer;
+    private int position;
+    private int forcedUpTo;
+    private boolean closed;
+
+    // Opens or creates the journal, then starts forcing appends to disk every flushInterval. The
+    // flusher is only scheduled once the journal is fully constructed.
+    public static OrderJournal open(Path file, Duration flushInterval) throws IOException {
+        return open(file, flushInterval, INITIAL_CAPACITY);
+    }
+
+    static OrderJournal open(Path file, Duration flushInterval, long initialCapacity) throws IOException {
+        OrderJournal journal = new OrderJournal(file, initialCapacity);
+        long intervalMillis = Math.max(1, flushInterval.toMillis());
+        journal.flusher.scheduleWithFixedDelay(journal::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        return journal;
+    }
+
+    private OrderJournal(Path file, long initialCapacity) throws IOException {
+        this.file = file;
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long capacity = Math.max(initialCapacity, channel.size());
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+
+        if (buffer.getInt(0) == 0) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            channel.close();
+            throw new IOException("Not an order journal (or unsupported version): " + file);
+        }
+        this.position = scanToEnd();
+        this.forcedUpTo = position;
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-journal-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void append(String username, Order order) {
+        byte[] payload = encode(username, order);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Order journal is closed: " + file);
+            }
+            int recordSize = RECORD_HEADER_SIZE + payload.length;
+            ensureCapacity(recordSize);
+            // Payload first, length last: a record only becomes visible to replay once complete
+            buffer.putInt(position + 4, (int) crc.getValue());
+            buffer.put(position + RECORD_HEADER_SIZE, payload);
+            buffer.putInt(position, payload.length);
+            position += recordSize;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Replays every complete record in append order. Lines whose product no longer exists in the
+    // catalog are dropped; an order without any remaining line is skipped.
+    public int replay(IntFunction<Optional<Product>> productLookup, BiConsumer<String, Order> consumer) {
+        int end;
+        ByteBuffer view;
+        lock.lock();
+        try {
+            end = position;
+            view = buffer.duplicate();
+        } finally {
+            lock.unlock();
+        }
+
+        int replayed = 0;
+        int skipped = 0;
+        int offset = HEADER_SIZE;
+        while (offset < end) {
+            int length = view.getInt(offset);
+            view.position(offset + RECORD_HEADER_SIZE);
+            ByteBuffer payload = view.slice();
+            payload.limit(length);
+            if (decodeInto(payload, productLookup, consumer)) {
+                replayed++;
+            } else {
+                skipped++;
+            }
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        if (skipped > 0) {
+            System.err.println("Skipped " + skipped + " journaled orders whose products are no longer in the catalog");
+        }
+        return replayed;
+    }
+
+    public void flush() {
+        int from;
+        int to;
+        MappedByteBuffer target;
+        lock.lock();
+        try {
+            from = forcedUpTo;
+            to = position;
+            target = buffer;
+        } finally {
+            lock.unlock();
+        }
+        if (to > from) {
+            target.force(from, to - from);
+            lock.lock();
+            try {
+                forcedUpTo = Math.max(forcedUpTo, to);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        flusher.shutdown();
+        flush();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            System.err.println("Failed to flush order journal: " + e.getMessage());
+        }
+    }
+
+    private void ensureCapacity(int recordSize) {
+        if ((long) position + recordSize + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            return;
+        }
+        long capacity = buffer.capacity();
+        while (capacity < (long) position + recordSize + RECORD_HEADER_SIZE) {
+            capacity *= 2;
+        }
+        capacity = Math.min(capacity, MAX_CAPACITY);
+        if (capacity < (long) position + recordSize + RECORD_HEADER_SIZE) {
+            throw new IllegalStateException("Order journal is full: " + file);
+        }
+        try {
+            // Whatever was written into the old mapping must reach disk before it is dropped
+            buffer.force();
+            forcedUpTo = position;
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to grow order journal " + file, e);
+        }
+    }
+
+    private int scanToEnd() {
+        int offset = HEADER_SIZE;
+        int capacity = buffer.capacity();
+        CRC32C crc = new CRC32C();
+        while (offset + RECORD_HEADER_SIZE <= capacity) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                return offset;
+            }
+            if (length < 0 || offset + RECORD_HEADER_SIZE + length > capacity) {
+                return truncateAt(offset);
+            }
+            crc.reset();
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(offset + RECORD_HEADER_SIZE).limit(offset + RECORD_HEADER_SIZE + length);
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                return truncateAt(offset);
+            }
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    private int truncateAt(int offset) {
+        System.err.println("Order journal " + file + " has a torn or corrupt record at offset " + offset + ", truncating");
+        // Zero the tail so leftovers of the torn record can never be read back as a later record
+        for (int i = offset; i < buffer.capacity(); i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+        return offset;
+    }
+
+    private static boolean decodeInto(ByteBuffer payload, IntFunction<Optional<Product>> productLookup,
+                                      BiConsumer<String, Order> consumer) {
+        String username = readString(payload);
+        long orderNumber = payload.getLong();
+        String date = readString(payload);
+        double total = payload.getDouble();
+        int lines = payload.getInt();
+        List<OrderItem> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            int productId = payload.getInt();
+            int quantity = payload.getInt();
+            productLookup.apply(productId).ifPresent(product -> items.add(new OrderItem(product, quantity)));
+        }
+        if (items.isEmpty()) {
+            return false;
+        }
+        consumer.accept(username, new Order(orderNumber, date, items, total));
+        return true;
+    }
+
+    private static byte[] encode(String username, Order order) {
+        byte[] user = username.getBytes(StandardCharsets.UTF_8);
+        byte[] date = order.getDate() == null ? new byte[0] : order.getDate().getBytes(StandardCharsets.UTF_8);
+        List<OrderItem> items = order.getItems();
+        ByteBuffer out = ByteBuffer.allocate(4 + user.length + 8 + 4 + date.length + 8 + 4 + items.size() * 8);
+        out.putInt(user.length).put(user);
+        out.putLong(order.getOrderNumber());
+        out.putInt(date.length).put(date);
+        out.putDouble(order.getTotal());
+        out.putInt(items.size());
+        for (OrderItem item : items) {
+            out.putInt(item.getProduct().getId());
+            out.putInt(item.getQuantity());
+        }
+        return out.array();
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
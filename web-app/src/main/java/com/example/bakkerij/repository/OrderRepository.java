@@ -1,29 +1,273 @@
 package com.example.bakkerij.repository;
 
+import com.example.bakkerij.model.LocalizedText;
+import com.example.bakkerij.model.Nutrition;
 import com.example.bakkerij.model.Order;
+import com.example.bakkerij.model.OrderItem;
+import com.example.bakkerij.model.Product;
+import com.example.bakkerij.util.Metrics;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
 
+// Order histories per user, kept in permanent SessionStores so that instances sharing a key-value
+// store see each other's orders. Every order is stored once under its own key, username/position with
+// position 0 the oldest, so adding one writes that order, its number and the user's order count and
+// never rewrites the rest of the history. Each line keeps the product's name, image and price at the
+// time of ordering, so histories read back do not depend on what the catalog holds now.
 public class OrderRepository {
-    private final Map<String, List<Order>> orderHistory = new HashMap<>();
+    public static final int DEFAULT_CACHED_ORDERS = 100_000;
 
+    private final SessionStore<Slot<Order>> orders; // username/position -> order
+    private final SessionStore<Slot<Integer>> positions; // username/order number -> position
+    private final SessionStore<OrderCount> counts; // username -> number of positions in use
+    private final OrderJournal journal;
+    private final Metrics metrics;
+
+    public OrderRepository() {
+        this(null);
+    }
+
+    // With a journal every added order is persisted; call replayJournal once the catalog is loaded
+    public OrderRepository(OrderJournal journal) {
+        this(journal, Metrics.disabled());
+    }
+
+    public OrderRepository(OrderJournal journal, Metrics metrics) {
+        this(SessionStoreProvider.inMemory(), journal, metrics);
+    }
+
+    public OrderRepository(SessionStoreProvider stores, OrderJournal journal, Metrics metrics) {
+        this(stores, journal, DEFAULT_CACHED_ORDERS, metrics);
+    }
+
+    // cachedOrders bounds the near cache of a shared store, the store itself keeps every order
+    public OrderRepository(SessionStoreProvider stores, OrderJournal journal, int cachedOrders, Metrics metrics) {
+        this.orders = stores.openPermanent("orders", ORDER_CODEC, cachedOrders, metrics);
+        this.positions = stores.openPermanent("order-numbers", POSITION_CODEC, cachedOrders, metrics);
+        this.counts = stores.openPermanent("order-counts", COUNT_CODEC, cachedOrders, metrics);
+        this.journal = journal;
+        this.metrics = metrics;
+    }
+
+    // Newest first; the returned list is immutable
     public List<Order> findByUsername(String username) {
-        return orderHistory.getOrDefault(username, new ArrayList<>());
+        return findPage(username, 0, Integer.MAX_VALUE);
+    }
+
+    public List<Order> findPage(String username, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        return newestFirst(username, countByUsername(username) - offset, limit);
+    }
+
+    // The limit orders placed before the one numbered beforeOrderNumber, newest first; empty when the
+    // user has no such order. Unlike an offset this does not shift when new orders come in.
+    public List<Order> findPageBefore(String username, long beforeOrderNumber, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        return positionOf(username, beforeOrderNumber)
+            .map(position -> newestFirst(username, position, limit))
+            .orElse(List.of());
+    }
+
+    public int countByUsername(String username) {
+        return counts.find(username).map(OrderCount::get).orElse(0);
+    }
+
+    public Optional<Order> findByOrderNumber(String username, long orderNumber) {
+        return positions.find(username + "/" + orderNumber)
+            .map(slot -> slot.value)
+            // A replaced history can leave numbers behind, pointing past its end or at another order
+            .filter(position -> position < countByUsername(username))
+            .flatMap(position -> orderAt(username, position))
+            .filter(order -> order.getOrderNumber() == orderNumber);
+    }
+
+    private Optional<Integer> positionOf(String username, long orderNumber) {
+        return positions.find(username + "/" + orderNumber)
+            .map(slot -> slot.value)
+            .filter(position -> position < countByUsername(username) && orderAt(username, position)
+                .filter(order -> order.getOrderNumber() == orderNumber)
+                .isPresent());
     }
 
     public void addOrder(String username, Order order) {
-        List<Order> orders = orderHistory.computeIfAbsent(username, k -> new ArrayList<>());
-        orders.add(0, order); // Add to beginning
+        long start = metrics.startTimer();
+        if (journal != null) {
+            journal.append(username, order);
+        }
+        int[] position = new int[1];
+        // A store shared between instances may apply the change more than once, the last one is stored
+        counts.update(username, OrderCount::new, count -> position[0] = count.reserve());
+        store(username, position[0], order);
+        metrics.recordRepository("orders.add", start);
     }
 
-    public void setOrderHistory(String username, List<Order> orders) {
-        orderHistory.put(username, orders);
+    // Orders are given newest first, the same order findByUsername returns them in
+    public void setOrderHistory(String username, List<Order> newestFirst) {
+        for (int i = 0; i < newestFirst.size(); i++) {
+            store(username, i, newestFirst.get(newestFirst.size() - 1 - i));
+        }
+        counts.update(username, OrderCount::new, count -> count.set(newestFirst.size()));
     }
 
     public boolean hasOrderHistory(String username) {
-        return orderHistory.containsKey(username);
+        return counts.find(username).isPresent();
+    }
+
+    // Orders already in the store are not added again, so instances restarting against a shared
+    // store that still has them do not duplicate their orders
+    public int replayJournal(IntFunction<Optional<Product>> productLookup) {
+        if (journal == null) {
+            return 0;
+        }
+        long start = metrics.startTimer();
+        List<String> usernames = new ArrayList<>();
+        List<Order> replayedOrders = new ArrayList<>();
+        int replayed = journal.replay(productLookup, (username, order) -> {
+            usernames.add(username);
+            replayedOrders.add(order);
+        });
+        for (int i = 0; i < replayedOrders.size(); i++) {
+            String username = usernames.get(i);
+            Order order = replayedOrders.get(i);
+            if (findByOrderNumber(username, order.getOrderNumber()).isEmpty()) {
+                int[] position = new int[1];
+                counts.update(username, OrderCount::new, count -> position[0] = count.reserve());
+                store(username, position[0], order);
+            }
+        }
+        metrics.recordRepository("orders.replay", start);
+        return replayed;
+    }
+
+    private void store(String username, int position, Order order) {
+        orders.update(username + "/" + position, Slot::new, slot -> slot.value = order);
+        positions.update(username + "/" + order.getOrderNumber(), Slot::new, slot -> slot.value = position);
+    }
+
+    private Optional<Order> orderAt(String username, int position) {
+        return orders.find(username + "/" + position).map(slot -> slot.value);
+    }
+
+    // limit orders going back from the one before position end; positions that were reserved by an
+    // order being added right now but not written yet are skipped
+    private List<Order> newestFirst(String username, int end, int limit) {
+        int from = (int) Math.max(0, (long) end - limit);
+        List<Order> page = new ArrayList<>(Math.max(0, end - from));
+        for (int position = end - 1; position >= from; position--) {
+            orderAt(username, position).ifPresent(page::add);
+        }
+        return List.copyOf(page);
+    }
+
+    // Per order its number, date, total and lines; per line the product id, name in every language,
+    // image, category, price and quantity
+    private static final ValueCodec<Slot<Order>> ORDER_CODEC = new ValueCodec<>() {
+        @Override
+        public void write(Slot<Order> slot, DataOutputStream out) throws IOException {
+            Order order = slot.value;
+            out.writeLong(order.getOrderNumber());
+            ValueCodec.writeNullable(out, order.getDate());
+            out.writeDouble(order.getTotal());
+            out.writeInt(order.getItems().size());
+            for (OrderItem item : order.getItems()) {
+                Product product = item.getProduct();
+                out.writeInt(product.getId());
+                for (String lang : LocalizedText.LANGUAGES) {
+                    ValueCodec.writeNullable(out, product.getName().getExact(lang));
+                }
+                ValueCodec.writeNullable(out, product.getImage());
+                ValueCodec.writeNullable(out, product.getCategory());
+                out.writeDouble(product.getPrice());
+                out.writeInt(item.getQuantity());
+            }
+        }
+
+        @Override
+        public Slot<Order> read(DataInputStream in) throws IOException {
+            long orderNumber = in.readLong();
+            String date = ValueCodec.readNullable(in);
+            double total = in.readDouble();
+            int lines = in.readInt();
+            List<OrderItem> items = new ArrayList<>(lines);
+            for (int line = 0; line < lines; line++) {
+                int productId = in.readInt();
+                String[] name = new String[LocalizedText.LANGUAGES.size()];
+                for (int i = 0; i < name.length; i++) {
+                    name[i] = ValueCodec.readNullable(in);
+                }
+                String image = ValueCodec.readNullable(in);
+                String category = ValueCodec.readNullable(in);
+                double price = in.readDouble();
+                Product product = new Product(productId, LocalizedText.of(name), LocalizedText.EMPTY, price, image,
+                    category, null, null, LocalizedText.EMPTY, LocalizedText.EMPTY, Nutrition.EMPTY,
+                    LocalizedText.EMPTY, LocalizedText.EMPTY);
+                items.add(new OrderItem(product, in.readInt()));
+            }
+            Slot<Order> slot = new Slot<>();
+            slot.value = new Order(orderNumber, date, items, total);
+            return slot;
+        }
+    };
+
+    private static final ValueCodec<Slot<Integer>> POSITION_CODEC = new ValueCodec<>() {
+        @Override
+        public void write(Slot<Integer> slot, DataOutputStream out) throws IOException {
+            out.writeInt(slot.value);
+        }
+
+        @Override
+        public Slot<Integer> read(DataInputStream in) throws IOException {
+            Slot<Integer> slot = new Slot<>();
+            slot.value = in.readInt();
+            return slot;
+        }
+    };
+
+    private static final ValueCodec<OrderCount> COUNT_CODEC = new ValueCodec<>() {
+        @Override
+        public void write(OrderCount count, DataOutputStream out) throws IOException {
+            out.writeInt(count.get());
+        }
+
+        @Override
+        public OrderCount read(DataInputStream in) throws IOException {
+            OrderCount count = new OrderCount();
+            count.set(in.readInt());
+            return count;
+        }
+    };
+
+    // Stored values are changed in place by the in-memory store; a slot lets update overwrite what a
+    // replaced, longer history left at a position. It is empty until the change that fills it has run.
+    private static final class Slot<T> {
+        private volatile T value;
+    }
+
+    private static final class OrderCount {
+        private final AtomicInteger count = new AtomicInteger();
+
+        // The position of a new order
+        int reserve() {
+            return count.getAndIncrement();
+        }
+
+        void set(int value) {
+            count.set(value);
+        }
+
+        int get() {
+            return count.get();
+        }
     }
 }
@@ -1,108 +1,198 @@
 package com.example.bakkerij.repository;
 
 import com.example.bakkerij.model.Product;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.bakkerij.model.ProductDetails;
+import com.example.bakkerij.util.Metrics;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class ProductRepository {
-    private final List<Product> products = new ArrayList<>();
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final Metrics metrics;
+    private final boolean deduplicate;
+    // Only loads take it, so a reload in the background never holds up a reader
+    private final ReentrantLock loading = new ReentrantLock();
+    private volatile Catalog catalog = Catalog.EMPTY;
 
-    public void loadProducts(String resourceName) {
+    public ProductRepository() {
+        this(Metrics.disabled());
+    }
+
+    public ProductRepository(Metrics metrics) {
+        this(metrics, true);
+    }
+
+    // deduplicate shares equal texts between products (see CatalogJson); off, each product keeps its own copies
+    public ProductRepository(Metrics metrics, boolean deduplicate) {
+        this.metrics = metrics;
+        this.deduplicate = deduplicate;
+    }
+
+    public boolean loadProducts(String resourceName) {
+        InputStream productsStream = getClass().getClassLoader().getResourceAsStream(resourceName);
+        if (productsStream == null) {
+            System.err.println("Failed to load " + resourceName + " - file not found");
+            return false;
+        }
+        return loadProducts(productsStream, resourceName);
+    }
+
+    public boolean loadProducts(Path file) {
+        InputStream productsStream;
         try {
-            InputStream productsStream = getClass().getClassLoader().getResourceAsStream(resourceName);
-            if (productsStream == null) {
-                System.err.println("Failed to load " + resourceName + " - file not found");
-                return;
-            }
-            
-            @SuppressWarnings("unchecked")
-            Map<String, Map<String, Object>> productData = mapper.readValue(productsStream, Map.class);
-            
-            for (Map.Entry<String, Map<String, Object>> entry : productData.entrySet()) {
-                Map<String, Object> data = entry.getValue();
-                Product product = new Product(
-                    ((Number) data.get("id")).intValue(),
-                    (String) data.get("nameNl"),
-                    (String) data.get("nameFr"),
-                    (String) data.get("nameEn"),
-                    (String) data.get("nameDe"),
-                    (String) data.get("nameEs"),
-                    (String) data.get("nameZh"),
-                    (String) data.get("descriptionNl"),
-                    (String) data.get("descriptionFr"),
-                    (String) data.get("descriptionEn"),
-                    (String) data.get("descriptionDe"),
-                    (String) data.get("descriptionEs"),
-                    (String) data.get("descriptionZh"),
-                    ((Number) data.get("price")).doubleValue(),
-                    (String) data.get("image"),
-                    (String) data.get("category")
-                );
-                products.add(product);
+            productsStream = Files.newInputStream(file);
+        } catch (IOException e) {
+            System.err.println("Failed to load products from " + file + ": " + e);
+            return false;
+        }
+        return loadProducts(productsStream, file.toString());
+    }
+
+    // Replaces the catalog with the one in the stream, which is closed afterwards. A catalog that
+    // does not parse or validate is reported and the current one stays in place. Readers keep
+    // using the current catalog until the new one, indexes and all, replaces it in one write.
+    public boolean loadProducts(InputStream productsStream, String source) {
+        long start = metrics.startTimer();
+        long startNanos = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        loading.lock();
+        try (productsStream) {
+            CatalogJson.Contents contents = CatalogJson.read(productsStream, deduplicate);
+            List<Product> products = contents.getProducts();
+            catalog = new Catalog(products, catalog.version + 1);
+
+            long allocated = allocatedBytes() - allocatedBefore;
+            System.out.println("Loaded " + products.size() + " products from " + source + " in "
+                + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + " ms"
+                + (allocatedBefore >= 0 ? ", " + allocated / 1024 + " KB allocated" : ""));
+            if (!contents.getUnknownFields().isEmpty()) {
+                System.err.println("Ignored unknown catalog fields in " + source + ": " + contents.getUnknownFields());
             }
-            System.out.println("Loaded " + products.size() + " products from " + resourceName);
+            return true;
         } catch (Exception e) {
-            System.err.println("Failed to load products: " + e.getMessage());
-            e.printStackTrace();
+            System.err.println("Failed to load products from " + source + ": " + e.getMessage());
+            return false;
+        } finally {
+            loading.unlock();
+            metrics.recordRepository("catalog.load", start);
+        }
+    }
+
+    // Bytes allocated by this thread so far, -1 where the JVM does not track it
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
         }
+        return -1;
+    }
+
+    // Bumped on every (re)load so anything derived from the catalog can tell when it is stale. It is
+    // part of the catalog it numbers, so it never runs ahead of or behind what readers get.
+    public long getCatalogVersion() {
+        return catalog.version;
     }
 
     public List<Product> findAll() {
-        return new ArrayList<>(products);
+        return catalog.products;
     }
 
     public Optional<Product> findById(int id) {
-        return products.stream()
-            .filter(p -> p.getId() == id)
-            .findFirst();
+        return Optional.ofNullable(catalog.byId.get(id));
     }
 
     public List<Product> findByCategory(String category) {
-        return products.stream()
-            .filter(p -> p.getCategory().equals(category))
-            .toList();
+        return catalog.byCategory.getOrDefault(category, List.of());
+    }
+
+    public FacetIndex.Result filter(String category, Collection<String> tags, Collection<String> allergenFree) {
+        return catalog.facets.filter(category, tags, allergenFree);
+    }
+
+    public SearchIndex.Result search(String query, String lang, int limit) {
+        return catalog.search.search(query, lang, limit);
+    }
+
+    public Optional<ProductDetails> findDetailsById(int id) {
+        DetailsSlot slot = catalog.detailsById.get(id);
+        return slot == null ? Optional.empty() : Optional.of(slot.get());
     }
 
     public String getProductDetailsJson(String productId) {
         try {
-            InputStream is = getClass().getClassLoader().getResourceAsStream("bread_details.json");
-            if (is == null) {
-                return null;
-            }
-            
-            String jsonContent = new String(is.readAllBytes());
-            return extractProductJson(jsonContent, productId);
-        } catch (Exception e) {
+            return findDetailsById(Integer.parseInt(productId))
+                .map(ProductDetails::getJsonString)
+                .orElse(null);
+        } catch (NumberFormatException e) {
             return null;
         }
     }
 
-    private String extractProductJson(String jsonContent, String productId) {
-        try {
-            String searchKey = "\"" + productId + "\":";
-            int startIndex = jsonContent.indexOf(searchKey);
-            if (startIndex == -1) return null;
-            
-            startIndex = jsonContent.indexOf("{", startIndex);
-            int braceCount = 1;
-            int endIndex = startIndex + 1;
-            
-            while (braceCount > 0 && endIndex < jsonContent.length()) {
-                char c = jsonContent.charAt(endIndex);
-                if (c == '{') braceCount++;
-                else if (c == '}') braceCount--;
-                endIndex++;
+    // Everything derived from one load, published through a single volatile write so readers
+    // never see the product list of one load with the indexes of another
+    private static final class Catalog {
+        static final Catalog EMPTY = new Catalog(List.of(), 0);
+
+        final long version;
+        final List<Product> products;
+        final IntIndex<Product> byId;
+        final Map<String, List<Product>> byCategory;
+        final IntIndex<DetailsSlot> detailsById;
+        final FacetIndex facets;
+        final SearchIndex search;
+
+        Catalog(List<Product> products, long version) {
+            this.version = version;
+            this.products = List.copyOf(products);
+
+            Map<Integer, Product> byId = new HashMap<>();
+            Map<String, List<Product>> byCategory = new HashMap<>();
+            Map<Integer, DetailsSlot> details = new HashMap<>();
+            for (Product product : products) {
+                byId.put(product.getId(), product);
+                details.put(product.getId(), new DetailsSlot(product));
+                if (product.getCategory() != null) {
+                    byCategory.computeIfAbsent(product.getCategory(), k -> new ArrayList<>()).add(product);
+                }
             }
-            
-            return jsonContent.substring(startIndex, endIndex);
-        } catch (Exception e) {
-            return null;
+            byCategory.replaceAll((category, list) -> List.copyOf(list));
+
+            this.byId = IntIndex.of(byId);
+            this.byCategory = Map.copyOf(byCategory);
+            this.detailsById = IntIndex.of(details);
+            this.facets = products.isEmpty() ? FacetIndex.EMPTY : new FacetIndex(this.products);
+            this.search = products.isEmpty() ? SearchIndex.EMPTY : new SearchIndex(this.products);
+        }
+    }
+
+    // The detail JSON of one product, written when it is first asked for: most products of a
+    // large catalog are never opened between two reloads. Racing threads write identical JSON.
+    private static final class DetailsSlot {
+        private final Product product;
+        private volatile ProductDetails details;
+
+        DetailsSlot(Product product) {
+            this.product = product;
+        }
+
+        ProductDetails get() {
+            ProductDetails current = details;
+            if (current == null) {
+                current = new ProductDetails(product.getId(), CatalogJson.writeDetails(product));
+                details = current;
+            }
+            return current;
         }
     }
 }
@@ -0,0 +1,231 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.store.KeyValueClient;
+import com.example.bakkerij.util.Metrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Session state kept in a KeyValueServer shared by all app instances, so a visitor keeps their cart
+// and login when the load balancer sends them to another node.
+// Each instance keeps a near cache of the values it has seen with their store version. Reads
+// revalidate it with a conditional GET, which transfers nothing when the value is unchanged; with a
+// maxStaleness above zero, recently validated values are used without asking the store at all.
+// Updates are optimistic: read the current version, apply the change to a private copy and write it
+// back with If-Match. When another node wrote in between, the write is rejected and the change is
+// applied again on top of the newer value, so concurrent cart updates never overwrite each other.
+final class RemoteSessionStore<V> implements SessionStore<V> {
+    // Generous: a writer that keeps losing must not starve while the winners back off less than it does
+    private static final int MAX_ATTEMPTS = 64;
+    private static final long BACKOFF_NANOS = 200_000;
+    private static final int MAX_BACKOFF_SHIFT = 4;
+    private static final double TRIM_TARGET = 0.9;
+
+    private final KeyValueClient client;
+    private final String keyPrefix;
+    private final ValueCodec<V> codec;
+    private final Duration idleTimeout;
+    private final long idleNanos;
+    private final int maxEntries;
+    private final long maxStalenessNanos;
+    private final Metrics metrics;
+    private final String getMetric;
+    private final String updateMetric;
+    private final Map<String, Cached<V>> nearCache = new ConcurrentHashMap<>();
+    private final ReentrantLock trimLock = new ReentrantLock();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    RemoteSessionStore(KeyValueClient client, String name, ValueCodec<V> codec, Duration idleTimeout, int maxEntries,
+                       Duration maxStaleness, Metrics metrics) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.client = client;
+        this.keyPrefix = name + "/";
+        this.codec = codec;
+        this.idleTimeout = idleTimeout;
+        // SessionStore.NEVER does not fit in nanoseconds
+        this.idleNanos = idleTimeout.compareTo(Duration.ofNanos(Long.MAX_VALUE)) < 0 ? idleTimeout.toNanos() : Long.MAX_VALUE;
+        this.maxEntries = maxEntries;
+        this.maxStalenessNanos = maxStaleness.toNanos();
+        this.metrics = metrics;
+        this.getMetric = name + ".get";
+        this.updateMetric = name + ".update";
+    }
+
+    @Override
+    public Optional<V> find(String key) {
+        Cached<V> cached = nearCache.get(key);
+        if (cached != null && System.nanoTime() - cached.validatedAt <= maxStalenessNanos) {
+            return Optional.of(cached.value);
+        }
+        Cached<V> current = fetch(key, cached);
+        return current == null ? Optional.empty() : Optional.of(current.value);
+    }
+
+    @Override
+    public V update(String key, Supplier<V> factory, Consumer<V> change) {
+        long start = metrics.startTimer();
+        try {
+            for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+                Cached<V> current = fetch(key, nearCache.get(key));
+                // Never change the cached instance, other requests may be reading it
+                V value = current == null ? factory.get() : decode(current.bytes);
+                change.accept(value);
+                byte[] bytes = encode(value);
+                long version = client.put(keyPrefix + key, bytes, current == null ? 0 : current.version, idleTimeout);
+                if (version > 0) {
+                    cache(key, new Cached<>(version, bytes, decode(bytes), System.nanoTime()));
+                    return value;
+                }
+                conflicts.increment();
+                // Back off a random bit so writers racing for the same cart stop colliding in lockstep
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(BACKOFF_NANOS << Math.min(attempt, MAX_BACKOFF_SHIFT)));
+            }
+            throw new IllegalStateException("Gave up updating " + keyPrefix + key + " after "
+                + MAX_ATTEMPTS + " conflicting writes");
+        } finally {
+            metrics.recordRepository(updateMetric, start);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        client.delete(keyPrefix + key);
+        nearCache.remove(key);
+    }
+
+    // Only the near cache: the store expires entries itself
+    @Override
+    public int evictExpired() {
+        long now = System.nanoTime();
+        int removed = 0;
+        for (Map.Entry<String, Cached<V>> e : nearCache.entrySet()) {
+            if (now - e.getValue().validatedAt > idleNanos && nearCache.remove(e.getKey(), e.getValue())) {
+                removed++;
+            }
+        }
+        evicted.add(removed);
+        return removed;
+    }
+
+    @Override
+    public int size() {
+        return nearCache.size();
+    }
+
+    @Override
+    public long getEvictedCount() {
+        return evicted.sum();
+    }
+
+    long getConflictCount() {
+        return conflicts.sum();
+    }
+
+    // Current value from the store, reusing the cached copy when its version is still current
+    private Cached<V> fetch(String key, Cached<V> cached) {
+        long start = metrics.startTimer();
+        try {
+            KeyValueClient.Versioned stored = client.get(keyPrefix + key, cached == null ? 0 : cached.version);
+            long now = System.nanoTime();
+            if (stored == null) {
+                nearCache.remove(key);
+                return null;
+            }
+            if (stored.getValue() == null) {
+                cached.validatedAt = now;
+                return cached;
+            }
+            Cached<V> fresh = new Cached<>(stored.getVersion(), stored.getValue(), decode(stored.getValue()), now);
+            cache(key, fresh);
+            return fresh;
+        } finally {
+            metrics.recordRepository(getMetric, start);
+        }
+    }
+
+    private void cache(String key, Cached<V> fresh) {
+        // Responses can arrive out of order, an older version must not replace a newer one
+        nearCache.merge(key, fresh, (old, candidate) -> candidate.version >= old.version ? candidate : old);
+        if (nearCache.size() > maxEntries) {
+            trim();
+        }
+    }
+
+    // Drops the least recently validated entries; they are simply fetched again when needed
+    private void trim() {
+        if (!trimLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = nearCache.size() - (int) (maxEntries * TRIM_TARGET);
+            if (excess <= 0) {
+                return;
+            }
+            long[] validated = nearCache.values().stream().mapToLong(cached -> cached.validatedAt).toArray();
+            Arrays.sort(validated);
+            long cutoff = validated[Math.min(excess, validated.length) - 1];
+            int removed = 0;
+            for (Map.Entry<String, Cached<V>> e : nearCache.entrySet()) {
+                if (removed >= excess) {
+                    break;
+                }
+                if (e.getValue().validatedAt <= cutoff && nearCache.remove(e.getKey(), e.getValue())) {
+                    removed++;
+                }
+            }
+            evicted.add(removed);
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    private byte[] encode(V value) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            codec.write(value, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private V decode(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return codec.read(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt value in session store", e);
+        }
+    }
+
+    private static final class Cached<V> {
+        private final long version;
+        private final byte[] bytes;
+        private final V value;
+        private volatile long validatedAt;
+
+        private Cached(long version, byte[] bytes, V value, long validatedAt) {
+            this.version = version;
+            this.bytes = bytes;
+            this.value = value;
+            this.validatedAt = validatedAt;
+        }
+    }
+}
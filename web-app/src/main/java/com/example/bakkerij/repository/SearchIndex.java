@@ -0,0 +1,332 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.model.LocalizedText;
+import com.example.bakkerij.model.Product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Typeahead search over product names and descriptions, with one index per language. Text is
+// folded to lower case without accents, so "Crème", "creme" and "CREME" are the same word, and
+// split into words. Chinese has no spaces between words, so it is indexed as single characters
+// and character pairs instead.
+//
+// Each language keeps its words in one sorted array. All words starting with what was typed so far
+// then form one contiguous range, found by binary search. Next to the words is an array per word
+// with the catalog positions of the products using it, flagged when the word is in the name.
+// Words that most products use ("brood") and one-letter prefixes are kept as bitsets instead, so
+// the broadest queries cost a few thousand word-wise ORs rather than setting a bit per product.
+public final class SearchIndex {
+    // Bounds the work for a pasted paragraph; typeahead queries are a word or two
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final int IN_NAME = 1;
+    // A term used by more than one in DENSE products is kept as a bitset, which is then no larger
+    // than its position array and is combined 64 products at a time
+    private static final int DENSE = 32;
+    private static final String[] FOLDED = foldTable();
+    static final SearchIndex EMPTY = new SearchIndex(List.of());
+
+    private final List<Product> products;
+    private final Map<String, LanguageIndex> byLanguage = new HashMap<>();
+
+    SearchIndex(List<Product> products) {
+        this.products = products;
+        for (String lang : LocalizedText.LANGUAGES) {
+            byLanguage.put(lang, new LanguageIndex(products, lang));
+        }
+    }
+
+    // Up to limit products that have every word of query, each as the start of a word, in their
+    // name or description. Products with all words in their name come first, both groups in catalog
+    // order. Unknown languages search the Dutch texts, as that is what they are shown.
+    public Result search(String query, String lang, int limit) {
+        LanguageIndex index = byLanguage.getOrDefault(lang, byLanguage.get("nl"));
+        List<String> terms = new ArrayList<>();
+        forEachTerm(query, true, term -> {
+            if (terms.size() < MAX_QUERY_TERMS && !terms.contains(term)) {
+                terms.add(term);
+            }
+        });
+        if (terms.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+
+        BitSet matching = null;
+        BitSet named = null;
+        for (String term : terms) {
+            BitSet termMatching = new BitSet(products.size());
+            BitSet termNamed = new BitSet(products.size());
+            index.collect(term, termMatching, termNamed);
+            if (matching == null) {
+                matching = termMatching;
+                named = termNamed;
+            } else {
+                matching.and(termMatching);
+                named.and(termNamed);
+            }
+            if (matching.isEmpty()) {
+                return new Result(List.of(), 0);
+            }
+        }
+
+        List<Product> found = new ArrayList<>(Math.min(limit, matching.cardinality()));
+        for (int position = named.nextSetBit(0); position >= 0 && found.size() < limit; position = named.nextSetBit(position + 1)) {
+            found.add(products.get(position));
+        }
+        matching.andNot(named);
+        int total = named.cardinality() + matching.cardinality();
+        for (int position = matching.nextSetBit(0); position >= 0 && found.size() < limit; position = matching.nextSetBit(position + 1)) {
+            found.add(products.get(position));
+        }
+        return new Result(List.copyOf(found), total);
+    }
+
+    // Splits folded text into the terms the index uses: words of letters and digits, and for Chinese
+    // every character and every pair of neighbouring characters. A query only needs the pairs (or the
+    // single character when that is all there is), since each pair also matches as a prefix.
+    static void forEachTerm(String text, boolean query, Consumer<String> sink) {
+        if (text == null) {
+            return;
+        }
+        String folded = fold(text);
+        int i = 0;
+        while (i < folded.length()) {
+            int codePoint = folded.codePointAt(i);
+            if (isHan(codePoint)) {
+                int end = i;
+                while (end < folded.length() && isHan(folded.codePointAt(end))) {
+                    end += Character.charCount(folded.codePointAt(end));
+                }
+                hanTerms(folded.substring(i, end), query, sink);
+                i = end;
+            } else if (Character.isLetterOrDigit(codePoint)) {
+                int end = i;
+                while (end < folded.length()) {
+                    int next = folded.codePointAt(end);
+                    if (!Character.isLetterOrDigit(next) || isHan(next)) {
+                        break;
+                    }
+                    end += Character.charCount(next);
+                }
+                sink.accept(folded.substring(i, end));
+                i = end;
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+    }
+
+    private static void hanTerms(String run, boolean query, Consumer<String> sink) {
+        int[] characters = run.codePoints().toArray();
+        if (characters.length == 1 || !query) {
+            for (int character : characters) {
+                sink.accept(Character.toString(character));
+            }
+        }
+        for (int i = 0; i + 1 < characters.length; i++) {
+            sink.accept(new String(characters, i, 2));
+        }
+    }
+
+    private static boolean isHan(int codePoint) {
+        return Character.UnicodeScript.of(codePoint) == Character.UnicodeScript.HAN;
+    }
+
+    // Lower case without accents: é -> e, ü -> u, ß -> ss, œ -> oe
+    static String fold(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        boolean ascii = true;
+        for (int i = 0; i < lower.length() && ascii; i++) {
+            ascii = lower.charAt(i) < 0x80;
+        }
+        if (ascii) {
+            return lower;
+        }
+        StringBuilder folded = new StringBuilder(lower.length());
+        for (int i = 0; i < lower.length(); i++) {
+            char c = lower.charAt(i);
+            if (c < FOLDED.length) {
+                folded.append(FOLDED[c]);
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                folded.append(c);
+            }
+        }
+        return folded.toString();
+    }
+
+    // Folded form of every Latin letter up to Latin Extended-B, worked out once with the Unicode
+    // decomposition rather than per text
+    private static String[] foldTable() {
+        String[] table = new String[0x250];
+        for (char c = 0; c < table.length; c++) {
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            StringBuilder folded = new StringBuilder();
+            for (int i = 0; i < decomposed.length(); i++) {
+                char part = decomposed.charAt(i);
+                switch (part) {
+                    case 'ß' -> folded.append("ss");
+                    case 'œ' -> folded.append("oe");
+                    case 'æ' -> folded.append("ae");
+                    case 'ø' -> folded.append('o');
+                    default -> {
+                        if (Character.getType(part) != Character.NON_SPACING_MARK) {
+                            folded.append(part);
+                        }
+                    }
+                }
+            }
+            table[c] = folded.toString();
+        }
+        return table;
+    }
+
+    private static final class LanguageIndex {
+        private final String[] terms;
+        // Per term the positions of the products using it, ascending, shifted left by one with
+        // IN_NAME in the low bit; null for a dense term
+        private final int[][] postings;
+        // Per dense term the products using it and those using it in their name
+        private final BitSet[][] dense;
+        // The same pair for every one-character prefix that covers many products
+        private final Map<String, BitSet[]> byFirstCharacter = new HashMap<>();
+
+        LanguageIndex(List<Product> products, String lang) {
+            Map<String, Postings> byTerm = new HashMap<>();
+            // Variants of a product share their description, so each distinct text is split only once
+            Map<String, Postings[]> termsOfText = new HashMap<>();
+            for (int position = 0; position < products.size(); position++) {
+                Product product = products.get(position);
+                int entry = position << 1;
+                for (Postings postings : termsOf(product.getName().get(lang), byTerm, termsOfText)) {
+                    postings.add(entry | IN_NAME);
+                }
+                for (Postings postings : termsOf(product.getDescription().get(lang), byTerm, termsOfText)) {
+                    postings.add(entry);
+                }
+            }
+
+            terms = byTerm.keySet().toArray(new String[0]);
+            Arrays.sort(terms);
+            postings = new int[terms.length][];
+            dense = new BitSet[terms.length][];
+            int denseSize = Math.max(products.size() / DENSE, 1);
+            for (int i = 0; i < terms.length; i++) {
+                int[] entries = byTerm.get(terms[i]).toArray();
+                if (entries.length > denseSize) {
+                    dense[i] = new BitSet[] {new BitSet(products.size()), new BitSet(products.size())};
+                    add(entries, dense[i][0], dense[i][1]);
+                } else {
+                    postings[i] = entries;
+                }
+            }
+
+            int from = 0;
+            while (from < terms.length) {
+                String first = terms[from].substring(0, Character.charCount(terms[from].codePointAt(0)));
+                BitSet[] union = {new BitSet(products.size()), new BitSet(products.size())};
+                int to = from;
+                for (; to < terms.length && terms[to].startsWith(first); to++) {
+                    add(to, union[0], union[1]);
+                }
+                if (union[0].cardinality() > denseSize && to - from > 1) {
+                    byFirstCharacter.put(first, union);
+                }
+                from = to;
+            }
+        }
+
+        private static Postings[] termsOf(String text, Map<String, Postings> byTerm, Map<String, Postings[]> termsOfText) {
+            if (text == null) {
+                return new Postings[0];
+            }
+            return termsOfText.computeIfAbsent(text, k -> {
+                List<Postings> terms = new ArrayList<>();
+                forEachTerm(text, false, term -> terms.add(byTerm.computeIfAbsent(term, t -> new Postings())));
+                return terms.toArray(new Postings[0]);
+            });
+        }
+
+        // Marks the products with a word starting with prefix, in named as well when it is in the name
+        void collect(String prefix, BitSet matching, BitSet named) {
+            BitSet[] union = byFirstCharacter.get(prefix);
+            if (union != null) {
+                matching.or(union[0]);
+                named.or(union[1]);
+                return;
+            }
+            int from = Arrays.binarySearch(terms, prefix);
+            if (from < 0) {
+                from = -from - 1;
+            }
+            for (int i = from; i < terms.length && terms[i].startsWith(prefix); i++) {
+                add(i, matching, named);
+            }
+        }
+
+        private void add(int term, BitSet matching, BitSet named) {
+            if (dense[term] != null) {
+                matching.or(dense[term][0]);
+                named.or(dense[term][1]);
+            } else {
+                add(postings[term], matching, named);
+            }
+        }
+
+        private static void add(int[] entries, BitSet matching, BitSet named) {
+            for (int entry : entries) {
+                matching.set(entry >>> 1);
+                if ((entry & IN_NAME) != 0) {
+                    named.set(entry >>> 1);
+                }
+            }
+        }
+    }
+
+    // Growable int array for one term while building; products are added in position order, so a
+    // repeated word only has to be merged with the last entry
+    private static final class Postings {
+        private int[] entries = new int[4];
+        private int size;
+
+        void add(int entry) {
+            if (size > 0 && entries[size - 1] >>> 1 == entry >>> 1) {
+                entries[size - 1] |= entry;
+                return;
+            }
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            entries[size++] = entry;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(entries, size);
+        }
+    }
+
+    public static final class Result {
+        private final List<Product> products;
+        private final int total;
+
+        private Result(List<Product> products, int total) {
+            this.products = products;
+            this.total = total;
+        }
+
+        public List<Product> getProducts() {
+            return products;
+        }
+
+        // All matching products, also those beyond the limit
+        public int getTotal() {
+            return total;
+        }
+    }
+}
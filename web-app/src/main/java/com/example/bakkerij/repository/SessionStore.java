@@ -0,0 +1,31 @@
+package com.example.bakkerij.repository;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+// Storage behind the per-session repositories (carts, logins) and the per-user data that has to follow
+// a visitor between instances as well (orders, addresses). Entries expire after a period of inactivity,
+// unless the store was opened permanent. Values returned by find are for reading only: changes must go
+// through update, which applies them atomically, so that stores shared by several app instances see every change.
+public interface SessionStore<V> {
+    // Idle timeout of permanent stores
+    Duration NEVER = Duration.ofMillis(Long.MAX_VALUE);
+
+    // Unknown or expired keys get Optional.empty() and nothing is created
+    Optional<V> find(String key);
+
+    // Applies change to the current value, or to a new one from factory, and stores the result
+    V update(String key, Supplier<V> factory, Consumer<V> change);
+
+    void remove(String key);
+
+    // Drops expired entries; safe to run while requests are being served
+    int evictExpired();
+
+    // Entries held by this instance
+    int size();
+
+    long getEvictedCount();
+}
@@ -0,0 +1,47 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.store.KeyValueClient;
+import com.example.bakkerij.util.Metrics;
+
+import java.time.Duration;
+
+// Chooses where per-session state lives: in this JVM, or in a key-value store shared by all instances
+public interface SessionStoreProvider {
+
+    // name separates the repositories within a shared store and prefixes their metrics
+    <V> SessionStore<V> open(String name, ValueCodec<V> codec, Duration idleTimeout, int maxEntries, Metrics metrics);
+
+    // Entries that never expire and are never dropped to stay under a cap, such as placed orders.
+    // cachedEntries only bounds the near cache of a shared store.
+    <V> SessionStore<V> openPermanent(String name, ValueCodec<V> codec, int cachedEntries, Metrics metrics);
+
+    static SessionStoreProvider inMemory() {
+        return new SessionStoreProvider() {
+            @Override
+            public <V> SessionStore<V> open(String name, ValueCodec<V> codec, Duration idleTimeout, int maxEntries, Metrics metrics) {
+                return new ExpiringMap<>(idleTimeout, maxEntries, System::currentTimeMillis, metrics, name);
+            }
+
+            @Override
+            public <V> SessionStore<V> openPermanent(String name, ValueCodec<V> codec, int cachedEntries, Metrics metrics) {
+                return new ExpiringMap<>(SessionStore.NEVER, Integer.MAX_VALUE, System::currentTimeMillis, metrics, name);
+            }
+        };
+    }
+
+    // Each instance keeps up to maxEntries recently used values as a near cache, revalidated against
+    // the store once they are older than maxStaleness (zero: on every read)
+    static SessionStoreProvider remote(KeyValueClient client, Duration maxStaleness) {
+        return new SessionStoreProvider() {
+            @Override
+            public <V> SessionStore<V> open(String name, ValueCodec<V> codec, Duration idleTimeout, int maxEntries, Metrics metrics) {
+                return new RemoteSessionStore<>(client, name, codec, idleTimeout, maxEntries, maxStaleness, metrics);
+            }
+
+            @Override
+            public <V> SessionStore<V> openPermanent(String name, ValueCodec<V> codec, int cachedEntries, Metrics metrics) {
+                return new RemoteSessionStore<>(client, name, codec, SessionStore.NEVER, cachedEntries, maxStaleness, metrics);
+            }
+        };
+    }
+}
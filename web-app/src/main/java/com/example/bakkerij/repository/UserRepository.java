@@ -1,56 +1,159 @@
 package com.example.bakkerij.repository;
 
 import com.example.bakkerij.model.Address;
+import com.example.bakkerij.model.PickupSlot;
+import com.example.bakkerij.util.Metrics;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.function.LongSupplier;
 
 public class UserRepository {
-    private final Map<String, String> sessions = new HashMap<>(); // sessionId -> username
-    private final Map<String, Address> addresses = new HashMap<>(); // username -> address
-    private final Map<String, Map<String, String>> pickupDetails = new HashMap<>(); // sessionId -> pickup info
-    private final Map<String, String> lastPaymentMethod = new HashMap<>(); // sessionId -> payment method
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofDays(30); // same as the sessionId cookie
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+
+    // Each field is a presence flag followed by the value
+    static final ValueCodec<Session> CODEC = new ValueCodec<>() {
+        @Override
+        public void write(Session session, DataOutputStream out) throws IOException {
+            PickupSlot slot = session.pickupSlot;
+            ValueCodec.writeNullable(out, session.username);
+            ValueCodec.writeNullable(out, slot == null ? null : slot.getDate());
+            ValueCodec.writeNullable(out, slot == null ? null : slot.getTime());
+            ValueCodec.writeNullable(out, session.lastPaymentMethod);
+        }
+
+        @Override
+        public Session read(DataInputStream in) throws IOException {
+            Session session = new Session();
+            session.username = ValueCodec.readNullable(in);
+            String date = ValueCodec.readNullable(in);
+            String time = ValueCodec.readNullable(in);
+            if (date != null || time != null) {
+                session.pickupSlot = new PickupSlot(date, time);
+            }
+            session.lastPaymentMethod = ValueCodec.readNullable(in);
+            return session;
+        }
+    };
+
+    static final ValueCodec<SavedAddress> ADDRESS_CODEC = new ValueCodec<>() {
+        @Override
+        public void write(SavedAddress saved, DataOutputStream out) throws IOException {
+            Address address = saved.address;
+            ValueCodec.writeNullable(out, address.getStreet());
+            ValueCodec.writeNullable(out, address.getPostal());
+            ValueCodec.writeNullable(out, address.getCity());
+            ValueCodec.writeNullable(out, address.getCountry());
+        }
+
+        @Override
+        public SavedAddress read(DataInputStream in) throws IOException {
+            SavedAddress saved = new SavedAddress();
+            saved.address = new Address(ValueCodec.readNullable(in), ValueCodec.readNullable(in),
+                ValueCodec.readNullable(in), ValueCodec.readNullable(in));
+            return saved;
+        }
+    };
+
+    // Everything known about one browser session, dropped together once the session is idle
+    private final SessionStore<Session> sessions; // sessionId -> session
+    // Belongs to the account rather than a session, so it never expires
+    private final SessionStore<SavedAddress> addresses; // username -> address
+
+    public UserRepository() {
+        this(DEFAULT_IDLE_TIMEOUT, DEFAULT_MAX_SESSIONS);
+    }
+
+    public UserRepository(Duration idleTimeout, int maxSessions) {
+        this(idleTimeout, maxSessions, Metrics.disabled());
+    }
+
+    public UserRepository(Duration idleTimeout, int maxSessions, Metrics metrics) {
+        this(SessionStoreProvider.inMemory(), idleTimeout, maxSessions, metrics);
+    }
+
+    public UserRepository(SessionStoreProvider stores, Duration idleTimeout, int maxSessions, Metrics metrics) {
+        this.sessions = stores.open("sessions", CODEC, idleTimeout, maxSessions, metrics);
+        this.addresses = stores.openPermanent("addresses", ADDRESS_CODEC, maxSessions, metrics);
+    }
+
+    UserRepository(Duration idleTimeout, int maxSessions, LongSupplier clock) {
+        this(idleTimeout, maxSessions, clock, Metrics.disabled());
+    }
+
+    UserRepository(Duration idleTimeout, int maxSessions, LongSupplier clock, Metrics metrics) {
+        this.sessions = new ExpiringMap<>(idleTimeout, maxSessions, clock, metrics, "sessions");
+        this.addresses = SessionStoreProvider.inMemory().openPermanent("addresses", ADDRESS_CODEC, maxSessions, metrics);
+    }
 
     public void login(String sessionId, String username) {
-        sessions.put(sessionId, username);
+        sessions.update(sessionId, Session::new, session -> session.username = username);
     }
 
     public void logout(String sessionId) {
-        sessions.remove(sessionId);
+        if (sessions.find(sessionId).isPresent()) {
+            sessions.update(sessionId, Session::new, session -> session.username = null);
+        }
     }
 
     public Optional<String> getUsername(String sessionId) {
-        return Optional.ofNullable(sessions.get(sessionId));
+        return sessions.find(sessionId).map(session -> session.username);
     }
 
     public boolean isLoggedIn(String sessionId) {
-        return sessions.containsKey(sessionId);
+        return getUsername(sessionId).isPresent();
     }
 
     public void saveAddress(String username, Address address) {
-        addresses.put(username, address);
+        addresses.update(username, SavedAddress::new, saved -> saved.address = address);
     }
 
     public Optional<Address> getAddress(String username) {
-        return Optional.ofNullable(addresses.get(username));
+        return addresses.find(username).map(saved -> saved.address);
     }
 
-    public void savePickupDetails(String sessionId, String date, String time) {
-        pickupDetails.computeIfAbsent(sessionId, k -> new HashMap<>());
-        pickupDetails.get(sessionId).put("date", date);
-        pickupDetails.get(sessionId).put("time", time);
+    public void savePickupSlot(String sessionId, PickupSlot pickupSlot) {
+        sessions.update(sessionId, Session::new, session -> session.pickupSlot = pickupSlot);
     }
 
-    public Map<String, String> getPickupDetails(String sessionId) {
-        return pickupDetails.get(sessionId);
+    public Optional<PickupSlot> getPickupSlot(String sessionId) {
+        return sessions.find(sessionId).map(session -> session.pickupSlot);
     }
 
     public void saveLastPaymentMethod(String sessionId, String method) {
-        lastPaymentMethod.put(sessionId, method);
+        sessions.update(sessionId, Session::new, session -> session.lastPaymentMethod = method);
     }
 
     public String getLastPaymentMethod(String sessionId) {
-        return lastPaymentMethod.getOrDefault(sessionId, "");
+        return sessions.find(sessionId).map(session -> session.lastPaymentMethod).orElse("");
+    }
+
+    // Sweeps idle sessions; safe to run while requests are being served
+    public int evictExpired() {
+        return sessions.evictExpired();
+    }
+
+    public int getLiveSessionCount() {
+        return sessions.size();
+    }
+
+    public long getEvictedSessionCount() {
+        return sessions.getEvictedCount();
+    }
+
+    // Fields are written by whichever request thread handles the session
+    static final class Session {
+        private volatile String username;
+        private volatile PickupSlot pickupSlot;
+        private volatile String lastPaymentMethod;
+    }
+
+    // Addresses are immutable, the stored value is changed in place; empty until the first save has run
+    static final class SavedAddress {
+        private volatile Address address;
     }
 }
@@ -0,0 +1,25 @@
+package com.example.bakkerij.repository;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+// Binary form of a stored value, for session stores that keep values outside the JVM
+public interface ValueCodec<V> {
+
+    void write(V value, DataOutputStream out) throws IOException;
+
+    V read(DataInputStream in) throws IOException;
+
+    // A presence flag followed by the value
+    static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -19,60 +19,68 @@ public class CartService {
     }
 
     public void addToCart(String sessionId, int productId, int quantity) {
-        Cart cart = cartRepository.getCart(sessionId);
-        cart.addItem(productId, quantity);
+        cartRepository.updateCart(sessionId, cart -> cart.addItem(productId, quantity));
     }
 
     public void updateCartItem(String sessionId, int productId, int quantity) {
-        Cart cart = cartRepository.getCart(sessionId);
-        cart.updateItem(productId, quantity);
+        cartRepository.updateCart(sessionId, cart -> cart.updateItem(productId, quantity));
     }
 
     public void removeFromCart(String sessionId, int productId) {
-        Cart cart = cartRepository.getCart(sessionId);
-        cart.removeItem(productId);
+        cartRepository.updateCart(sessionId, cart -> cart.removeItem(productId));
     }
 
     public int getCartCount(String sessionId) {
-        Cart cart = cartRepository.getCart(sessionId);
-        return cart.getTotalItems();
+        return cartRepository.findCart(sessionId)
+            .map(Cart::getTotalItems)
+            .orElse(0);
     }
 
     public List<Map<String, Object>> getCartItems(String sessionId) {
-        Cart cart = cartRepository.getCart(sessionId);
-        List<Map<String, Object>> cartItems = new ArrayList<>();
+        Cart cart = cartRepository.findCart(sessionId).orElse(null);
+        if (cart == null) {
+            return new ArrayList<>();
+        }
+        List<Map<String, Object>> cartItems = new ArrayList<>(cart.getLineCount());
         
-        for (Map.Entry<Integer, Integer> entry : cart.getItems().entrySet()) {
-            int productId = entry.getKey();
-            int quantity = entry.getValue();
-            
+        cart.forEachItem((productId, quantity) ->
             productService.getProductById(productId).ifPresent(product -> {
                 Map<String, Object> item = new HashMap<>();
                 item.put("product", product);
                 item.put("quantity", quantity);
                 item.put("subtotal", product.getPrice() * quantity);
                 cartItems.add(item);
-            });
-        }
+            })
+        );
         
         return cartItems;
     }
 
     public double getCartTotal(String sessionId) {
-        return getCartItems(sessionId).stream()
-            .mapToDouble(item -> (Double) item.get("subtotal"))
-            .sum();
+        Cart cart = cartRepository.findCart(sessionId).orElse(null);
+        if (cart == null) {
+            return 0.0;
+        }
+        // Priced against the current catalog on every call, so a price change is never stale in a cart
+        double[] total = new double[1];
+        cart.forEachItem((productId, quantity) ->
+            productService.getProductById(productId)
+                .ifPresent(product -> total[0] += product.getPrice() * quantity)
+        );
+        return total[0];
     }
 
     public List<OrderItem> getOrderItems(String sessionId) {
-        Cart cart = cartRepository.getCart(sessionId);
-        List<OrderItem> items = new ArrayList<>();
-        
-        for (Map.Entry<Integer, Integer> entry : cart.getItems().entrySet()) {
-            productService.getProductById(entry.getKey()).ifPresent(product -> {
-                items.add(new OrderItem(product, entry.getValue()));
-            });
+        Cart cart = cartRepository.findCart(sessionId).orElse(null);
+        if (cart == null) {
+            return new ArrayList<>();
         }
+        List<OrderItem> items = new ArrayList<>(cart.getLineCount());
+        
+        cart.forEachItem((productId, quantity) ->
+            productService.getProductById(productId)
+                .ifPresent(product -> items.add(new OrderItem(product, quantity)))
+        );
         
         return items;
     }
@@ -82,7 +90,8 @@ public class CartService {
     }
 
     public boolean isCartEmpty(String sessionId) {
-        Cart cart = cartRepository.getCart(sessionId);
-        return cart.isEmpty();
+        return cartRepository.findCart(sessionId)
+            .map(Cart::isEmpty)
+            .orElse(true);
     }
 }
@@ -0,0 +1,108 @@
+package com.example.bakkerij.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Unique, increasing order numbers without a shared Random or a lock on the hot path.
+// Each instance owns a node id (0..99) that becomes the last two digits of every number it hands
+// out, so instances behind a load balancer never collide. Sequence numbers are reserved in blocks
+// and the end of the current block is written to disk before any number from it is used; after a
+// restart numbering continues past the last reservation, at worst skipping the unused rest of a block.
+public class OrderNumberGenerator {
+    public static final int MAX_NODES = 100;
+    public static final long BLOCK_SIZE = 1_000;
+    private static final long FIRST_SEQUENCE = 1_000; // keeps real orders apart from the demo history
+
+    private final int nodeId;
+    private final Path reservationFile;
+    private final AtomicLong nextSequence;
+    // Not a monitor: reserving fsyncs while holding it, which would pin a virtual thread's carrier
+    private final ReentrantLock reserveLock = new ReentrantLock();
+    private volatile long reservedUntil;
+
+    public OrderNumberGenerator(int nodeId) {
+        this(nodeId, null);
+    }
+
+    public OrderNumberGenerator(int nodeId, Path reservationFile) {
+        if (nodeId < 0 || nodeId >= MAX_NODES) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + (MAX_NODES - 1));
+        }
+        this.nodeId = nodeId;
+        this.reservationFile = reservationFile;
+        long start = Math.max(FIRST_SEQUENCE, readReservation());
+        this.nextSequence = new AtomicLong(start);
+        this.reservedUntil = start;
+    }
+
+    public long next() {
+        long sequence = nextSequence.getAndIncrement();
+        if (sequence >= reservedUntil) {
+            reserveThrough(sequence);
+        }
+        return sequence * MAX_NODES + nodeId;
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    private void reserveThrough(long sequence) {
+        reserveLock.lock();
+        try {
+            long until = reservedUntil;
+            if (sequence < until) {
+                return; // another thread reserved the block while we waited
+            }
+            while (until <= sequence) {
+                until += BLOCK_SIZE;
+            }
+            writeReservation(until);
+            reservedUntil = until;
+        } finally {
+            reserveLock.unlock();
+        }
+    }
+
+    private long readReservation() {
+        if (reservationFile == null || !Files.exists(reservationFile)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(Files.readString(reservationFile, StandardCharsets.UTF_8).trim());
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("Unreadable order number reservation in " + reservationFile, e);
+        }
+    }
+
+    private void writeReservation(long until) {
+        if (reservationFile == null) {
+            return;
+        }
+        try {
+            Path parent = reservationFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmp = reservationFile.resolveSibling(reservationFile.getFileName() + ".tmp");
+            // fsync before the rename: a reservation that is lost in a crash could hand out numbers twice
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(Long.toString(until).getBytes(StandardCharsets.UTF_8)));
+                channel.force(true);
+            }
+            Files.move(tmp, reservationFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to reserve order numbers in " + reservationFile, e);
+        }
+    }
+}
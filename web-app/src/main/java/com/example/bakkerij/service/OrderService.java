@@ -11,15 +11,22 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class OrderService {
     private final OrderRepository orderRepository;
     private final ProductService productService;
-    private final Random random = new Random();
+    private final OrderNumberGenerator orderNumberGenerator;
 
     public OrderService(OrderRepository orderRepository, ProductService productService) {
+        this(orderRepository, productService, new OrderNumberGenerator(0));
+    }
+
+    public OrderService(OrderRepository orderRepository, ProductService productService,
+                        OrderNumberGenerator orderNumberGenerator) {
         this.orderRepository = orderRepository;
         this.productService = productService;
+        this.orderNumberGenerator = orderNumberGenerator;
     }
 
     public Order createOrder(String username, List<OrderItem> items) {
@@ -27,7 +34,7 @@ public class OrderService {
             .mapToDouble(OrderItem::getSubtotal)
             .sum();
         
-        int orderNumber = random.nextInt(90000) + 10000; // 5-digit order number
+        long orderNumber = orderNumberGenerator.next();
         String orderDate = LocalDateTime.now()
             .format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"));
         
@@ -41,10 +48,20 @@ public class OrderService {
         return orderRepository.findByUsername(username);
     }
 
-    public Optional<Order> findOrderByNumber(String username, int orderNumber) {
-        return orderRepository.findByUsername(username).stream()
-            .filter(o -> o.getOrderNumber() == orderNumber)
-            .findFirst();
+    public List<Order> getOrderHistoryPage(String username, int offset, int limit) {
+        return orderRepository.findPage(username, offset, limit);
+    }
+
+    public List<Order> getOrderHistoryPageBefore(String username, long beforeOrderNumber, int limit) {
+        return orderRepository.findPageBefore(username, beforeOrderNumber, limit);
+    }
+
+    public int getOrderCount(String username) {
+        return orderRepository.countByUsername(username);
+    }
+
+    public Optional<Order> findOrderByNumber(String username, long orderNumber) {
+        return orderRepository.findByOrderNumber(username, orderNumber);
     }
 
     public List<Order> generateOrderHistory(String username) {
@@ -53,6 +70,7 @@ public class OrderService {
         }
         
         List<Order> orders = new ArrayList<>();
+        Random random = ThreadLocalRandom.current();
         int orderCount = random.nextInt(7); // 0-6 orders
         
         List<Product> broodProducts = productService.getAllProducts().stream()
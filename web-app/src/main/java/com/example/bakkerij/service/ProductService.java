@@ -1,8 +1,12 @@
 package com.example.bakkerij.service;
 
 import com.example.bakkerij.model.Product;
+import com.example.bakkerij.model.ProductDetails;
+import com.example.bakkerij.repository.FacetIndex;
 import com.example.bakkerij.repository.ProductRepository;
+import com.example.bakkerij.repository.SearchIndex;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,7 +32,30 @@ public class ProductService {
         return productRepository.findByCategory(category);
     }
 
+    // "all" or a category some product in the catalog has
+    public boolean isKnownCategory(String category) {
+        return "all".equals(category) || !productRepository.findByCategory(category).isEmpty();
+    }
+
+    // Products in category with any of tags and none of the allergens in allergenFree, with facet counts
+    public FacetIndex.Result filterProducts(String category, Collection<String> tags, Collection<String> allergenFree) {
+        return productRepository.filter(category, tags, allergenFree);
+    }
+
+    // Products whose name or description has words starting with each word of query, best first
+    public SearchIndex.Result searchProducts(String query, String lang, int limit) {
+        return productRepository.search(query, lang, limit);
+    }
+
+    public long getCatalogVersion() {
+        return productRepository.getCatalogVersion();
+    }
+
     public String getProductDetailsJson(String productId) {
         return productRepository.getProductDetailsJson(productId);
     }
+
+    public Optional<ProductDetails> getProductDetails(int id) {
+        return productRepository.findDetailsById(id);
+    }
 }
@@ -1,9 +1,9 @@
 package com.example.bakkerij.service;
 
 import com.example.bakkerij.model.Address;
+import com.example.bakkerij.model.PickupSlot;
 import com.example.bakkerij.repository.UserRepository;
 
-import java.util.Map;
 import java.util.Optional;
 
 public class UserService {
@@ -43,11 +43,11 @@ public class UserService {
     }
 
     public void savePickupDetails(String sessionId, String date, String time) {
-        userRepository.savePickupDetails(sessionId, date, time);
+        userRepository.savePickupSlot(sessionId, new PickupSlot(date, time));
     }
 
-    public Map<String, String> getPickupDetails(String sessionId) {
-        return userRepository.getPickupDetails(sessionId);
+    public Optional<PickupSlot> getPickupSlot(String sessionId) {
+        return userRepository.getPickupSlot(sessionId);
     }
 
     public void saveLastPaymentMethod(String sessionId, String method) {
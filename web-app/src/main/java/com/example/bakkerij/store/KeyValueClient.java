@@ -0,0 +1,132 @@
+package com.example.bakkerij.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+// Client for KeyValueServer. Connections are kept alive and shared by all request threads.
+// A store that cannot be reached fails the request with an UncheckedIOException rather than
+// silently falling back to node-local state.
+public class KeyValueClient {
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(2);
+
+    private final HttpClient http;
+    private final String baseUri;
+    private final Duration timeout;
+    private final String authorization;
+
+    public KeyValueClient(URI baseUri) {
+        this(baseUri, "");
+    }
+
+    // token: the server's KV_STORE_TOKEN, empty when it has none
+    public KeyValueClient(URI baseUri, String token) {
+        this(baseUri, DEFAULT_TIMEOUT, token);
+    }
+
+    public KeyValueClient(URI baseUri, Duration timeout, String token) {
+        this.baseUri = baseUri.toString().replaceAll("/+$", "") + "/kv/";
+        this.timeout = timeout;
+        this.authorization = token.isBlank() ? null : "Bearer " + token;
+        this.http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(timeout)
+            .build();
+    }
+
+    // null when the key does not exist. When the stored version is still knownVersion the result
+    // has no value, so unchanged entries are not transferred again; pass 0 to always get the value.
+    public Versioned get(String key, long knownVersion) {
+        HttpRequest.Builder request = request(key).GET();
+        if (knownVersion > 0) {
+            request.header("If-None-Match", KeyValueServer.etag(knownVersion));
+        }
+        HttpResponse<byte[]> response = send(request.build());
+        return switch (response.statusCode()) {
+            case 200 -> new Versioned(version(response), response.body());
+            case 304 -> new Versioned(knownVersion, null);
+            case 404 -> null;
+            default -> throw unexpected(key, response);
+        };
+    }
+
+    // Writes only when the stored version is still expectedVersion (0: the key must not exist).
+    // Returns the new version, or -1 when another writer got there first.
+    public long put(String key, byte[] value, long expectedVersion, Duration idleTimeout) {
+        HttpRequest.Builder request = request(key)
+            .PUT(HttpRequest.BodyPublishers.ofByteArray(value))
+            .header(KeyValueServer.IDLE_TIMEOUT_HEADER, String.valueOf(idleTimeout.toMillis()));
+        if (expectedVersion > 0) {
+            request.header("If-Match", KeyValueServer.etag(expectedVersion));
+        } else {
+            request.header("If-None-Match", "*");
+        }
+        HttpResponse<byte[]> response = send(request.build());
+        return switch (response.statusCode()) {
+            case 204 -> version(response);
+            case 412 -> -1;
+            default -> throw unexpected(key, response);
+        };
+    }
+
+    public void delete(String key) {
+        HttpResponse<byte[]> response = send(request(key).DELETE().build());
+        if (response.statusCode() != 204) {
+            throw unexpected(key, response);
+        }
+    }
+
+    private HttpRequest.Builder request(String key) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUri + URLEncoder.encode(key, StandardCharsets.UTF_8)))
+            .timeout(timeout);
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        return request;
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) {
+        try {
+            return http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Key-value store unreachable: " + request.uri(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while calling the key-value store", e);
+        }
+    }
+
+    private static long version(HttpResponse<?> response) {
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        return Long.parseLong(etag.substring(1, etag.length() - 1));
+    }
+
+    private static IllegalStateException unexpected(String key, HttpResponse<byte[]> response) {
+        return new IllegalStateException("Key-value store answered " + response.statusCode() + " for " + key);
+    }
+
+    public static final class Versioned {
+        private final long version;
+        private final byte[] value;
+
+        Versioned(long version, byte[] value) {
+            this.version = version;
+            this.value = value;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        // null when unchanged since the version passed to get
+        public byte[] getValue() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.bakkerij.store;
+
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Minimal networked key-value store for sharing carts and sessions between app instances, and the
+// local stand-in the multi-node tests run against. Values are opaque bytes with a version; writes
+// are compare-and-set through HTTP conditional requests, so concurrent updates from different nodes
+// never overwrite each other:
+//   GET    /kv/{key}  200 with ETag "<version>", 304 when If-None-Match still matches, 404
+//   PUT    /kv/{key}  If-Match "<version>" or If-None-Match *; 204 with the new ETag, 412 on a conflict
+//   DELETE /kv/{key}  204
+// Every entry expires after the idle timeout its writer sent in X-Idle-Timeout-Ms; reads and writes
+// both count as activity.
+// Entries are held in memory only, so this is a stand-in for development, tests and small
+// deployments rather than a durable store. Without a token it only listens on localhost; with one
+// it listens on all interfaces and every request must send it as bearer token.
+//
+// Run standalone: KV_STORE_TOKEN=... java -cp bakkerij.jar com.example.bakkerij.store.KeyValueServer [port] [maxEntries]
+public class KeyValueServer {
+    static final String IDLE_TIMEOUT_HEADER = "X-Idle-Timeout-Ms";
+    private static final int DEFAULT_PORT = 7400;
+    private static final int DEFAULT_MAX_ENTRIES = 1_000_000;
+    private static final String LOCAL_HOST = "localhost";
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Versions are never reused, not even after a delete, so a stale If-Match can never match again
+    private final AtomicLong versions = new AtomicLong();
+    private final int maxEntries;
+    private final byte[] token;
+    private final ScheduledExecutorService sweeper;
+    private final Javalin app;
+
+    private KeyValueServer(int maxEntries, String token) {
+        this.maxEntries = maxEntries;
+        this.token = token.isBlank() ? null : ("Bearer " + token).getBytes(StandardCharsets.UTF_8);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "kv-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.app = Javalin.create(config -> config.showJavalinBanner = false);
+        app.get("/kv/{key}", this::get);
+        app.put("/kv/{key}", this::put);
+        app.delete("/kv/{key}", this::delete);
+    }
+
+    // Port 0 picks a free port, see port()
+    public static KeyValueServer start(int port, int maxEntries) {
+        return start(port, maxEntries, "");
+    }
+
+    // token empty: localhost only
+    public static KeyValueServer start(int port, int maxEntries, String token) {
+        KeyValueServer server = new KeyValueServer(maxEntries, token);
+        if (server.token == null) {
+            server.app.start(LOCAL_HOST, port);
+        } else {
+            server.app.start(port);
+        }
+        server.sweeper.scheduleAtFixedRate(server::evictExpired, 1, 1, TimeUnit.MINUTES);
+        return server;
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxEntries = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_ENTRIES;
+        String token = System.getenv().getOrDefault("KV_STORE_TOKEN", "");
+        start(port, maxEntries, token);
+        System.out.println("Key-value store listening on port " + port
+            + (token.isBlank() ? " for this machine only, set KV_STORE_TOKEN to accept other hosts" : ""));
+    }
+
+    public int port() {
+        return app.port();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void stop() {
+        sweeper.shutdownNow();
+        app.stop();
+    }
+
+    public int evictExpired() {
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().isExpired(now) && entries.remove(e.getKey(), e.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    private void get(Context ctx) {
+        if (!authorized(ctx)) {
+            return;
+        }
+        String key = ctx.pathParam("key");
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(key);
+        if (entry == null || entry.isExpired(now)) {
+            ctx.status(404);
+            return;
+        }
+        entry.touch(now);
+        String etag = etag(entry.version);
+        ctx.header("ETag", etag);
+        if (etag.equals(ctx.header("If-None-Match"))) {
+            ctx.status(304);
+            return;
+        }
+        ctx.contentType("application/octet-stream").result(entry.value);
+    }
+
+    private void put(Context ctx) {
+        if (!authorized(ctx)) {
+            return;
+        }
+        long idleTimeout = parseIdleTimeout(ctx.header(IDLE_TIMEOUT_HEADER));
+        if (idleTimeout <= 0) {
+            ctx.status(400).result("Missing or invalid " + IDLE_TIMEOUT_HEADER);
+            return;
+        }
+        String key = ctx.pathParam("key");
+        String ifMatch = ctx.header("If-Match");
+        boolean mustNotExist = "*".equals(ctx.header("If-None-Match"));
+        byte[] value = ctx.bodyAsBytes();
+        long now = System.currentTimeMillis();
+
+        if (mustNotExist && entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                ctx.status(507).result("Store is full");
+                return;
+            }
+        }
+
+        boolean[] conflict = new boolean[1];
+        Entry written = entries.compute(key, (k, current) -> {
+            if (current != null && current.isExpired(now)) {
+                current = null;
+            }
+            boolean matches = mustNotExist ? current == null
+                : ifMatch == null || (current != null && ifMatch.equals(etag(current.version)));
+            if (!matches) {
+                conflict[0] = true;
+                return current;
+            }
+            return new Entry(value, versions.incrementAndGet(), idleTimeout, now);
+        });
+        if (conflict[0]) {
+            ctx.status(412);
+            return;
+        }
+        ctx.header("ETag", etag(written.version));
+        ctx.status(204);
+    }
+
+    private void delete(Context ctx) {
+        if (!authorized(ctx)) {
+            return;
+        }
+        entries.remove(ctx.pathParam("key"));
+        ctx.status(204);
+    }
+
+    private boolean authorized(Context ctx) {
+        if (token == null) {
+            return true;
+        }
+        String authorization = ctx.header("Authorization");
+        if (authorization == null || !MessageDigest.isEqual(token, authorization.getBytes(StandardCharsets.UTF_8))) {
+            ctx.header("WWW-Authenticate", "Bearer").status(401);
+            return false;
+        }
+        return true;
+    }
+
+    // -1 when missing or not a number
+    private static long parseIdleTimeout(String idleTimeout) {
+        if (idleTimeout == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(idleTimeout.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    static String etag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    private static final class Entry {
+        private final byte[] value;
+        private final long version;
+        private final long idleTimeout;
+        private volatile long lastAccess;
+
+        private Entry(byte[] value, long version, long idleTimeout, long now) {
+            this.value = value;
+            this.version = version;
+            this.idleTimeout = idleTimeout;
+            this.lastAccess = now;
+        }
+
+        private boolean isExpired(long now) {
+            return now - lastAccess > idleTimeout;
+        }
+
+        private void touch(long now) {
+            lastAccess = now;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.bakkerij.util;
+
+import io.javalin.http.Context;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+// Conditional GET helpers: ETags from a content hash, If-None-Match handling and Accept-Encoding
+// negotiation. A strong ETag names exact bytes, so each content coding of a resource gets its own
+// (see encodedEtag); pages that Javalin may compress on the fly use a weak one instead.
+public final class HttpCaching {
+
+    private HttpCaching() {
+    }
+
+    // For responses that embed the session's cart badge, and where HTMX requests get a fragment of
+    // the same URL: browsers may keep a private copy but must revalidate it, which is then a 304
+    public static void revalidatePrivately(Context ctx) {
+        ctx.header("Cache-Control", "private, no-cache");
+        ctx.header("Vary", "HX-Request, Accept-Encoding");
+    }
+
+    // Sets the ETag and answers 304 when the client already has this version; the caller
+    // must then return without writing a body
+    public static boolean notModified(Context ctx, String etag) {
+        ctx.header("ETag", etag);
+        if (matches(ctx.header("If-None-Match"), etag)) {
+            ctx.status(304);
+            return true;
+        }
+        return false;
+    }
+
+    // If-None-Match uses weak comparison and may list several tags or be "*"
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        String opaque = withoutWeakPrefix(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            if (withoutWeakPrefix(candidate.trim()).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String withoutWeakPrefix(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    // "<hash>" -> "<hash>-gz" for gzip, "<hash>-br" for br, unchanged for identity (null)
+    public static String encodedEtag(String etag, String contentCoding) {
+        if (contentCoding == null) {
+            return etag;
+        }
+        String suffix = "gzip".equals(contentCoding) ? "gz" : contentCoding;
+        return etag.substring(0, etag.length() - 1) + "-" + suffix + "\"";
+    }
+
+    // Whether Accept-Encoding allows contentCoding, by name or through "*", with a q-value above 0.
+    // A named entry wins over "*", so "*, gzip;q=0" refuses gzip.
+    public static boolean acceptsEncoding(String acceptEncoding, String contentCoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double named = -1;
+        double wildcard = -1;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.length() > 2 && (parameter.startsWith("q=") || parameter.startsWith("Q="))) {
+                    quality = parseQuality(parameter.substring(2).trim());
+                }
+            }
+            if (coding.equals(contentCoding)) {
+                named = quality;
+            } else if (coding.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        return (named >= 0 ? named : wildcard) > 0;
+    }
+
+    // Malformed q-values count as 0, so a broken header never gets a coding the client can't read
+    private static double parseQuality(String value) {
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // First 128 bits of SHA-256, hex, without quotes
+    public static String contentHash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,476 @@
+package com.example.bakkerij.util;
+
+import io.javalin.http.Context;
+import org.eclipse.jetty.server.Response;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+// Resized JPEG variants of the product photos under /public/img, served from /images.
+// A variant is generated the first time it is requested, written to a disk cache and memory-mapped;
+// the cache is bounded by total size and drops the least recently served variants first. URLs carry
+// the hash of the source image (/images/thumb/<hash>/bread/Melkbrood groot g.png), so they are
+// cached by browsers as immutable, and a changed photo gets new URLs.
+// Templates use the "images" global: {{ images.src(product.image, 'medium') }} and
+// {{ images.srcset(product.image) }}.
+public class ImageVariants {
+    public static final String URL_PREFIX = "/images";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final String SOURCE_DIRECTORY = "public/img/";
+    private static final float JPEG_QUALITY = 0.82f;
+    // Photos with transparency are flattened onto the card background, JPEG has no alpha
+    private static final Color BACKGROUND = new Color(0xF5F1E8);
+    private static final String VARIANT_SUFFIX = ".jpg";
+    private static final Source MISSING = new Source(null, 0);
+
+    public enum Size {
+        THUMB(160),
+        MEDIUM(480),
+        FULL(1600);
+
+        private final int maxWidth;
+
+        Size(int maxWidth) {
+            this.maxWidth = maxWidth;
+        }
+
+        // Never upscales: small sources are only re-encoded
+        int widthFor(int sourceWidth) {
+            return Math.min(maxWidth, sourceWidth);
+        }
+
+        String urlName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final Path cacheDirectory;
+    private final long maxCacheBytes;
+    private final Metrics metrics;
+    private final Map<String, Source> sources = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Variant>> inFlight = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // File name to variant, in access order; guarded by lock
+    private final LinkedHashMap<String, Variant> cached = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+    private long evictions;
+
+    public ImageVariants(Path cacheDirectory, long maxCacheBytes) throws IOException {
+        this(cacheDirectory, maxCacheBytes, Metrics.disabled());
+    }
+
+    public ImageVariants(Path cacheDirectory, long maxCacheBytes, Metrics metrics) throws IOException {
+        this.cacheDirectory = cacheDirectory;
+        this.maxCacheBytes = maxCacheBytes;
+        this.metrics = metrics;
+        Files.createDirectories(cacheDirectory);
+        loadExisting();
+    }
+
+    // URL of one variant; unknown images get their plain /img URL
+    public String src(String image, String size) {
+        Source source = source(image);
+        if (source == MISSING) {
+            return "/img/" + image;
+        }
+        return url(image, source, Size.valueOf(size.toUpperCase(Locale.ROOT)));
+    }
+
+    // srcset value listing every distinct variant width, smallest first
+    public String srcset(String image) {
+        Source source = source(image);
+        if (source == MISSING) {
+            return "";
+        }
+        StringBuilder srcset = new StringBuilder();
+        int previousWidth = 0;
+        for (Size size : Size.values()) {
+            int width = size.widthFor(source.width);
+            if (width == previousWidth) {
+                continue;
+            }
+            if (srcset.length() > 0) {
+                srcset.append(", ");
+            }
+            srcset.append(url(image, source, size)).append(' ').append(width).append('w');
+            previousWidth = width;
+        }
+        return srcset.toString();
+    }
+
+    public long getCachedBytes() {
+        lock.lock();
+        try {
+            return cachedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getEvictionCount() {
+        lock.lock();
+        try {
+            return evictions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // GET /images/{size}/{hash}/<image>
+    public void serve(Context ctx) throws IOException {
+        String image = ctx.pathParam("image");
+        Size size = sizeOf(ctx.pathParam("size"));
+        Source source = source(image);
+        if (size == null || source == MISSING) {
+            ctx.status(404).result("Not found");
+            return;
+        }
+
+        // An outdated hash still gets the current photo, but must not be cached forever under that URL
+        boolean current = source.hash.equals(ctx.pathParam("hash"));
+        ctx.header("Cache-Control", current ? IMMUTABLE : "public, no-cache");
+        String etag = "\"" + source.hash + "-" + size.urlName() + "\"";
+        if (HttpCaching.notModified(ctx, etag)) {
+            return;
+        }
+
+        Variant variant = variant(image, source, size);
+        ctx.contentType("image/jpeg");
+        ctx.res().setContentLength(variant.content.remaining());
+        ((Response) ctx.res()).getHttpOutput().sendContent(variant.content.duplicate());
+    }
+
+    private Variant variant(String image, Source source, Size size) throws IOException {
+        String fileName = source.hash + "-" + size.urlName() + VARIANT_SUFFIX;
+        Variant variant = lookup(fileName);
+        if (variant != null) {
+            return variant;
+        }
+
+        // Concurrent requests for the same missing variant wait for a single resize
+        CompletableFuture<Variant> created = new CompletableFuture<>();
+        CompletableFuture<Variant> running = inFlight.putIfAbsent(fileName, created);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            variant = lookup(fileName);
+            if (variant == null) {
+                variant = generate(image, size, fileName);
+                store(fileName, variant);
+            }
+            created.complete(variant);
+            return variant;
+        } catch (IOException | RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(fileName);
+        }
+    }
+
+    private Variant lookup(String fileName) throws IOException {
+        Variant variant;
+        lock.lock();
+        try {
+            variant = cached.get(fileName);
+        } finally {
+            lock.unlock();
+        }
+        if (variant == null) {
+            return null;
+        }
+        try {
+            return variant.mapped(cacheDirectory.resolve(fileName));
+        } catch (NoSuchFileException e) {
+            return null; // evicted in the meantime
+        }
+    }
+
+    private void store(String fileName, Variant variant) {
+        List<String> evicted;
+        lock.lock();
+        try {
+            Variant previous = cached.put(fileName, variant);
+            if (previous != null) {
+                cachedBytes -= previous.length;
+            }
+            cachedBytes += variant.length;
+            evicted = trim(fileName);
+        } finally {
+            lock.unlock();
+        }
+        // Buffers that are still being sent keep their pages, deleting the file is safe
+        for (String name : evicted) {
+            try {
+                Files.deleteIfExists(cacheDirectory.resolve(name));
+            } catch (IOException e) {
+                System.err.println("Failed to delete cached image " + name + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // Drops least recently served variants until the cache fits, never the one just stored
+    private List<String> trim(String keep) {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Variant>> eldest = cached.entrySet().iterator();
+        while (cachedBytes > maxCacheBytes && eldest.hasNext()) {
+            Map.Entry<String, Variant> entry = eldest.next();
+            if (entry.getKey().equals(keep)) {
+                continue;
+            }
+            eldest.remove();
+            cachedBytes -= entry.getValue().length;
+            evictions++;
+            evicted.add(entry.getKey());
+        }
+        return evicted;
+    }
+
+    private Variant generate(String image, Size size, String fileName) throws IOException {
+        long start = metrics.startTimer();
+        BufferedImage original;
+        try (InputStream in = openSource(image)) {
+            original = in == null ? null : ImageIO.read(in);
+        }
+        if (original == null) {
+            throw new IOException("Cannot decode image " + image);
+        }
+        byte[] jpeg = encodeJpeg(resize(original, size.widthFor(original.getWidth())));
+
+        Path target = cacheDirectory.resolve(fileName);
+        Path temporary = cacheDirectory.resolve(fileName + ".tmp");
+        Files.write(temporary, jpeg);
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        metrics.recordRepository("images.resize", start);
+        return new Variant(jpeg.length).mapped(target);
+    }
+
+    // Halves the image with bilinear filtering until the last step, which keeps detail that a
+    // single large bilinear step would alias away, at a fraction of the cost of area averaging
+    private static BufferedImage resize(BufferedImage original, int targetWidth) {
+        int targetHeight = Math.max(1, (int) Math.round((double) original.getHeight() * targetWidth / original.getWidth()));
+        BufferedImage current = original;
+        int width = original.getWidth();
+        int height = original.getHeight();
+        do {
+            if (width / 2 >= targetWidth) {
+                width /= 2;
+                height = Math.max(height / 2, targetHeight);
+            } else {
+                width = targetWidth;
+                height = targetHeight;
+            }
+            BufferedImage step = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.setColor(BACKGROUND);
+                graphics.fillRect(0, 0, width, height);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth);
+        return current;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(32 * 1024);
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // Unknown names are not remembered, they come from URLs and would grow the map without bound
+    private Source source(String image) {
+        Source source = sources.computeIfAbsent(image, ImageVariants::readSource);
+        return source == null ? MISSING : source;
+    }
+
+    // Hash and width of a source photo, null when there is no such image; only the header is
+    // decoded for the width
+    private static Source readSource(String image) {
+        if (!isSafe(image)) {
+            return null;
+        }
+        byte[] content;
+        try (InputStream in = openSource(image)) {
+            if (in == null) {
+                return null;
+            }
+            content = in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read image " + image, e);
+        }
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input);
+                return new Source(HttpCaching.contentHash(content).substring(0, 12), reader.getWidth(0));
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static InputStream openSource(String image) {
+        return ImageVariants.class.getClassLoader().getResourceAsStream(SOURCE_DIRECTORY + image);
+    }
+
+    // Image names come from the URL, keep them inside /public/img
+    private static boolean isSafe(String image) {
+        if (image == null || image.isEmpty() || image.startsWith("/") || image.contains("\\")) {
+            return false;
+        }
+        for (String segment : image.split("/")) {
+            if (segment.isEmpty() || segment.equals(".") || segment.equals("..")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Size sizeOf(String name) {
+        for (Size size : Size.values()) {
+            if (size.urlName().equals(name)) {
+                return size;
+            }
+        }
+        return null;
+    }
+
+    // Sizes that come out the same width for this source share the smallest size's URL, so the
+    // browser downloads and the cache stores that image once
+    private static String url(String image, Source source, Size size) {
+        int width = size.widthFor(source.width);
+        for (Size smaller : Size.values()) {
+            if (smaller.widthFor(source.width) == width) {
+                size = smaller;
+                break;
+            }
+        }
+        return URL_PREFIX + "/" + size.urlName() + "/" + source.hash + StaticAssets.encodePath("/" + image);
+    }
+
+    // Variants left by a previous run, oldest first, so they are evicted before anything served now
+    private void loadExisting() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(cacheDirectory)) {
+            files = list.filter(Files::isRegularFile).toList();
+        }
+        List<Path> variants = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(VARIANT_SUFFIX)) {
+                variants.add(file);
+            } else {
+                Files.deleteIfExists(file); // interrupted writes
+            }
+        }
+        variants.sort(Comparator.comparing(ImageVariants::lastModified));
+        for (Path file : variants) {
+            store(file.getFileName().toString(), new Variant(Files.size(file)));
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for an image variant", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Failed to create image variant", e.getCause());
+        }
+    }
+
+    private static final class Source {
+        private final String hash;
+        private final int width;
+
+        private Source(String hash, int width) {
+            this.hash = hash;
+            this.width = width;
+        }
+    }
+
+    private static final class Variant {
+        private final long length;
+        // Mapped on first use; variants found on disk at startup are only mapped once served
+        private volatile ByteBuffer content;
+
+        private Variant(long length) {
+            this.length = length;
+        }
+
+        private Variant mapped(Path file) throws IOException {
+            if (content == null) {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.bakkerij.util;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free latency histogram with one bucket per power of two nanoseconds, like the top level of an
+// HDR histogram: recording is a leading-zero count and two striped LongAdder increments, so it
+// never blocks and barely contends. The bucket bounds double from ~1 µs up to ~34 s.
+public class LatencyHistogram {
+    static final int MIN_EXPONENT = 10; // 2^10 ns = 1.024 µs
+    static final int MAX_EXPONENT = 35; // 2^35 ns = 34.4 s
+    static final int BUCKETS = MAX_EXPONENT - MIN_EXPONENT + 2; // the last bucket is +Inf
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder sumNanos = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        // Smallest exponent e with nanos <= 2^e
+        int exponent = 64 - Long.numberOfLeadingZeros(Math.max(0, nanos - 1));
+        int index = Math.min(Math.max(exponent - MIN_EXPONENT, 0), BUCKETS - 1);
+        buckets[index].increment();
+        sumNanos.add(nanos);
+    }
+
+    // Upper bound of bucket i in seconds; the last bucket has none
+    static double upperBoundSeconds(int bucket) {
+        return (1L << (MIN_EXPONENT + bucket)) / 1e9;
+    }
+
+    // Per-bucket counts, not cumulative
+    long[] bucketCounts() {
+        long[] counts = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.bakkerij.util;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// In-process metrics registry, scraped in Prometheus text format on /metrics.
+// Recording never locks: series are created once through computeIfAbsent and then only updated
+// through LongAdders. A disabled registry ignores everything, and startTimer() does not even read
+// the clock, so instrumented code costs a branch when metrics are switched off.
+public class Metrics {
+    private static final String PREFIX = "bakkerij_";
+    private static final int MAX_STATUS = 600;
+    private static final Metrics DISABLED = new Metrics(false);
+
+    private final boolean enabled;
+    private final Map<String, Map<String, RouteStats>> routesByMethod = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> templates = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> repositoryOperations = new ConcurrentHashMap<>();
+    private final List<Sampled> sampled = new CopyOnWriteArrayList<>();
+
+    public Metrics() {
+        this(true);
+    }
+
+    private Metrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static Metrics disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Pass the result to one of the record methods; 0 when disabled
+    public long startTimer() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void recordTemplate(String template, long start) {
+        if (enabled) {
+            templates.computeIfAbsent(template, k -> new LatencyHistogram()).record(System.nanoTime() - start);
+        }
+    }
+
+    public void recordRepository(String operation, long start) {
+        if (enabled) {
+            repositoryOperations.computeIfAbsent(operation, k -> new LatencyHistogram()).record(System.nanoTime() - start);
+        }
+    }
+
+    // route is the route template (/product/details/{id}), never the raw path, to bound the number of series
+    public void recordRequest(String method, String route, int status, long nanos, long bytes) {
+        if (!enabled) {
+            return;
+        }
+        RouteStats stats = routesByMethod.computeIfAbsent(method, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(route, k -> new RouteStats());
+        stats.latency.record(nanos);
+        stats.bytes.add(bytes);
+        stats.countStatus(status);
+    }
+
+    public void registerGauge(String name, String help, LongSupplier value) {
+        sampled.add(new Sampled(PREFIX + name, help, "gauge", value));
+    }
+
+    public void registerCounter(String name, String help, LongSupplier value) {
+        sampled.add(new Sampled(PREFIX + name, help, "counter", value));
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(16 * 1024);
+
+        Map<String, RouteStats> routes = new TreeMap<>();
+        routesByMethod.forEach((method, byRoute) ->
+            byRoute.forEach((route, stats) -> routes.put(labels("method", method, "route", route), stats)));
+
+        header(out, PREFIX + "http_requests_total", "Completed HTTP requests by route template and status", "counter");
+        routes.forEach((labels, stats) -> {
+            for (int status = 0; status < MAX_STATUS; status++) {
+                LongAdder count = stats.statuses.get(status);
+                if (count != null) {
+                    sample(out, PREFIX + "http_requests_total",
+                        labels.substring(0, labels.length() - 1) + ",status=\"" + status + "\"}", count.sum());
+                }
+            }
+        });
+
+        header(out, PREFIX + "http_response_bytes_total", "Response bytes written, after compression", "counter");
+        routes.forEach((labels, stats) -> sample(out, PREFIX + "http_response_bytes_total", labels, stats.bytes.sum()));
+
+        header(out, PREFIX + "http_request_duration_seconds", "Time from the first handler until the response was written", "histogram");
+        routes.forEach((labels, stats) -> histogram(out, PREFIX + "http_request_duration_seconds", labels, stats.latency));
+
+        header(out, PREFIX + "template_render_duration_seconds", "Template rendering time, page cache hits excluded", "histogram");
+        new TreeMap<>(templates).forEach((template, histogram) ->
+            histogram(out, PREFIX + "template_render_duration_seconds", labels("template", template), histogram));
+
+        header(out, PREFIX + "repository_operation_duration_seconds", "Repository operation time", "histogram");
+        new TreeMap<>(repositoryOperations).forEach((operation, histogram) ->
+            histogram(out, PREFIX + "repository_operation_duration_seconds", labels("operation", operation), histogram));
+
+        for (Sampled metric : sampled) {
+            header(out, metric.name, metric.help, metric.type);
+            sample(out, metric.name, "", metric.value.getAsLong());
+        }
+        return out.toString();
+    }
+
+    private static void histogram(StringBuilder out, String name, String labels, LatencyHistogram histogram) {
+        long[] counts = histogram.bucketCounts();
+        String prefix = labels.isEmpty() ? "{" : labels.substring(0, labels.length() - 1) + ",";
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            String le = i == counts.length - 1 ? "+Inf" : Double.toString(LatencyHistogram.upperBoundSeconds(i));
+            sample(out, name + "_bucket", prefix + "le=\"" + le + "\"}", cumulative);
+        }
+        out.append(name).append("_sum").append(labels).append(' ').append(histogram.sumSeconds()).append('\n');
+        sample(out, name + "_count", labels, cumulative);
+    }
+
+    private static void header(StringBuilder out, String name, String help, String type) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private static String labels(String... namesAndValues) {
+        StringBuilder labels = new StringBuilder("{");
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            if (i > 0) {
+                labels.append(',');
+            }
+            labels.append(namesAndValues[i]).append("=\"").append(escape(namesAndValues[i + 1])).append('"');
+        }
+        return labels.append('}').toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static final class RouteStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder bytes = new LongAdder();
+        // Indexed by status code, so counting a status neither boxes nor hashes
+        private final AtomicReferenceArray<LongAdder> statuses = new AtomicReferenceArray<>(MAX_STATUS);
+
+        private void countStatus(int status) {
+            int index = status >= 0 && status < MAX_STATUS ? status : 0;
+            LongAdder count = statuses.get(index);
+            if (count == null) {
+                statuses.compareAndSet(index, null, new LongAdder());
+                count = statuses.get(index);
+            }
+            count.increment();
+        }
+    }
+
+    private static final class Sampled {
+        private final String name;
+        private final String help;
+        private final String type;
+        private final LongSupplier value;
+
+        private Sampled(String name, String help, String type, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.type = type;
+            this.value = value;
+        }
+    }
+}
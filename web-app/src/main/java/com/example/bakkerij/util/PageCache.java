@@ -0,0 +1,119 @@
+package com.example.bakkerij.util;
+
+import com.example.bakkerij.model.LocalizedText;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+// Pre-rendered HTML for pages that only depend on template, lang, category and the catalog.
+// The per-session cart badge is left empty at render time and spliced in on every hit.
+// Every page carries a hash of its badge-less HTML, so its ETag is known without rendering again.
+//
+// Each page remembers the catalog version it was rendered under and only serves that version. A
+// render that was still running while the catalog was reloaded is not kept, and if it slips in
+// anyway the version check turns it into a miss.
+public class PageCache {
+    private static final String CART_BADGE_MARKER = "id=\"cart-badge\"";
+
+    private final Map<String, Page> pages = new ConcurrentHashMap<>();
+    private final TemplateRenderer templateRenderer;
+    private final LongSupplier catalogVersion;
+    private final Predicate<String> knownCategory;
+    private final int maxEntries;
+    private volatile long cachedVersion;
+
+    public PageCache(TemplateRenderer templateRenderer, LongSupplier catalogVersion, Predicate<String> knownCategory,
+                     int maxEntries) {
+        this.templateRenderer = templateRenderer;
+        this.catalogVersion = catalogVersion;
+        this.knownCategory = knownCategory;
+        this.maxEntries = maxEntries;
+        this.cachedVersion = catalogVersion.getAsLong();
+    }
+
+    public byte[] render(String templatePath, String lang, String category, int cartCount,
+                         Supplier<Map<String, Object>> contextSupplier) {
+        return get(templatePath, lang, category, contextSupplier).withCartBadge(cartCount);
+    }
+
+    // category is null for pages without one. Pages for languages the shop does not offer or
+    // categories the catalog does not have are rendered but not kept: both come from the request.
+    public Page get(String templatePath, String lang, String category, Supplier<Map<String, Object>> contextSupplier) {
+        long version = catalogVersion.getAsLong();
+        if (version != cachedVersion) {
+            pages.clear();
+            cachedVersion = version;
+        }
+
+        String key = templatePath + '|' + lang + '|' + category;
+        Page page = pages.get(key);
+        if (page != null && page.version == version) {
+            return page;
+        }
+        Map<String, Object> context = contextSupplier.get();
+        context.put("cartCount", 0);
+        page = Page.of(templateRenderer.render(templatePath, context, lang), version);
+        boolean known = LocalizedText.LANGUAGES.contains(lang) && (category == null || knownCategory.test(category));
+        if (known && catalogVersion.getAsLong() == version && (pages.size() < maxEntries || pages.containsKey(key))) {
+            pages.put(key, page);
+        }
+        return page;
+    }
+
+    public void clear() {
+        pages.clear();
+    }
+
+    public int size() {
+        return pages.size();
+    }
+
+    public static final class Page {
+        private final byte[] html; // rendered with an empty cart badge, shared between requests
+        private final int badgeOffset; // -1 when the template has no cart badge
+        private final String hash;
+        private final long version; // of the catalog it was rendered from
+
+        private Page(byte[] html, int badgeOffset, long version) {
+            this.html = html;
+            this.badgeOffset = badgeOffset;
+            this.hash = HttpCaching.contentHash(html);
+            this.version = version;
+        }
+
+        static Page of(String rendered, long version) {
+            int marker = rendered.indexOf(CART_BADGE_MARKER);
+            int hole = marker < 0 ? -1 : rendered.indexOf('>', marker);
+            if (hole < 0) {
+                return new Page(rendered.getBytes(StandardCharsets.UTF_8), -1, version);
+            }
+            int offset = rendered.substring(0, hole + 1).getBytes(StandardCharsets.UTF_8).length;
+            return new Page(rendered.getBytes(StandardCharsets.UTF_8), offset, version);
+        }
+
+        // ETag of the bytes withCartBadge(cartCount) returns. Weak, because Javalin gzips large pages
+        // on the fly and a strong tag would then name two different representations.
+        public String getEtag(int cartCount) {
+            if (badgeOffset < 0 || cartCount <= 0) {
+                return "W/\"" + hash + "\"";
+            }
+            return "W/\"" + hash + "-" + cartCount + "\"";
+        }
+
+        public byte[] withCartBadge(int cartCount) {
+            if (badgeOffset < 0 || cartCount <= 0) {
+                return html;
+            }
+            byte[] badge = ("<span class=\"cart-count\">" + cartCount + "</span>").getBytes(StandardCharsets.UTF_8);
+            byte[] out = new byte[html.length + badge.length];
+            System.arraycopy(html, 0, out, 0, badgeOffset);
+            System.arraycopy(badge, 0, out, badgeOffset, badge.length);
+            System.arraycopy(html, badgeOffset, out, badgeOffset + badge.length, html.length - badgeOffset);
+            return out;
+        }
+    }
+}
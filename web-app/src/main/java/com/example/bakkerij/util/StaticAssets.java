@@ -0,0 +1,267 @@
+package com.example.bakkerij.util;
+
+import io.javalin.http.ContentType;
+import io.javalin.http.Context;
+import org.eclipse.jetty.server.Response;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Fingerprinted, precompressed copies of everything under /public, served from /assets.
+// At startup every file is copied out of the jar under a content-hashed name (styles.css becomes
+// styles.<hash>.css), text files also get a gzip variant, and all of them are memory-mapped. Because
+// a fingerprinted URL never changes content it is cached for a year as immutable. Responses hand the
+// mapped buffer straight to Jetty, so bodies are never copied onto the heap.
+// Templates look URLs up through the "assets" global: {{ assets['/styles.css'] }}.
+public class StaticAssets {
+    public static final String URL_PREFIX = "/assets";
+    private static final String IMMUTABLE = "public, max-age=31536000, immutable";
+    private static final Set<String> COMPRESSIBLE = Set.of("css", "js", "svg", "json", "html", "txt", "xml");
+    // There is no Brotli encoder in the JDK; a .br file shipped next to an asset is served as is
+    private static final String BROTLI_SUFFIX = ".br";
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private final Map<String, Asset> byUrl = new HashMap<>();
+    private final Map<String, String> urls = new HashMap<>();
+    private final Map<String, String> urlView = new AssetUrls(urls);
+
+    private StaticAssets() {
+    }
+
+    // Used in development: templates get the plain /public URLs, served by Javalin's static files
+    public static StaticAssets none() {
+        return new StaticAssets();
+    }
+
+    public static StaticAssets load(String resourceDirectory, Path outputDirectory) throws IOException {
+        URL root = StaticAssets.class.getClassLoader().getResource(resourceDirectory);
+        if (root == null) {
+            throw new IOException("Static asset directory not found on the classpath: " + resourceDirectory);
+        }
+        StaticAssets assets = new StaticAssets();
+        try {
+            URI uri = root.toURI();
+            FileSystem jar = "jar".equals(uri.getScheme()) ? openJar(uri) : null;
+            try {
+                assets.addAll(Path.of(uri), outputDirectory);
+            } finally {
+                if (jar != null) {
+                    jar.close();
+                }
+            }
+        } catch (URISyntaxException e) {
+            throw new IOException("Invalid static asset location " + root, e);
+        }
+        return assets;
+    }
+
+    // Original path (/img/logo.svg) to fingerprinted URL; unknown paths map to themselves
+    public Map<String, String> getUrls() {
+        return urlView;
+    }
+
+    public int size() {
+        return byUrl.size();
+    }
+
+    public void serve(Context ctx) throws IOException {
+        Asset asset = byUrl.get(URLDecoder.decode(ctx.path().replace("+", "%2B"), StandardCharsets.UTF_8));
+        if (asset == null) {
+            ctx.status(404).result("Not found");
+            return;
+        }
+
+        ctx.header("Cache-Control", IMMUTABLE);
+        ctx.header("Vary", "Accept-Encoding");
+        ByteBuffer body = asset.identity;
+        String contentCoding = null;
+        String acceptEncoding = ctx.header("Accept-Encoding");
+        if (asset.brotli != null && HttpCaching.acceptsEncoding(acceptEncoding, "br")) {
+            body = asset.brotli;
+            contentCoding = "br";
+        } else if (asset.gzip != null && HttpCaching.acceptsEncoding(acceptEncoding, "gzip")) {
+            body = asset.gzip;
+            contentCoding = "gzip";
+        }
+        if (HttpCaching.notModified(ctx, HttpCaching.encodedEtag(asset.etag, contentCoding))) {
+            return;
+        }
+
+        if (contentCoding != null) {
+            ctx.header("Content-Encoding", contentCoding);
+        }
+        ctx.contentType(asset.contentType);
+        ctx.res().setContentLength(body.remaining());
+        // Bypasses Javalin's result stream (and its compression): Jetty writes the mapped pages directly
+        ((Response) ctx.res()).getHttpOutput().sendContent(body.duplicate());
+    }
+
+    private void addAll(Path sourceRoot, Path outputDirectory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(sourceRoot)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            if (name.endsWith(BROTLI_SUFFIX) || name.endsWith(GZIP_SUFFIX)) {
+                continue; // precompressed variants are picked up together with their original
+            }
+            String relative = sourceRoot.relativize(file).toString().replace('\\', '/');
+            add("/" + relative, file, outputDirectory);
+        }
+    }
+
+    private void add(String originalPath, Path source, Path outputDirectory) throws IOException {
+        byte[] content = Files.readAllBytes(source);
+        String hash = HttpCaching.contentHash(content).substring(0, 12);
+        String fingerprinted = fingerprint(originalPath, hash);
+        String extension = extensionOf(originalPath);
+
+        Path target = outputDirectory.resolve(fingerprinted.substring(1));
+        Files.createDirectories(target.getParent());
+        Files.write(target, content);
+        ByteBuffer identity = map(target);
+
+        ByteBuffer gzip = null;
+        if (COMPRESSIBLE.contains(extension)) {
+            byte[] compressed = gzip(content);
+            if (compressed.length < content.length) {
+                Path gzipTarget = Path.of(target + GZIP_SUFFIX);
+                Files.write(gzipTarget, compressed);
+                gzip = map(gzipTarget);
+            }
+        }
+
+        ByteBuffer brotli = null;
+        Path brotliSource = source.resolveSibling(source.getFileName() + BROTLI_SUFFIX);
+        if (Files.exists(brotliSource)) {
+            Path brotliTarget = Path.of(target + BROTLI_SUFFIX);
+            Files.write(brotliTarget, Files.readAllBytes(brotliSource));
+            brotli = map(brotliTarget);
+        }
+
+        String mimeType = ContentType.getMimeTypeByExtension(extension);
+        if (mimeType == null) {
+            mimeType = "application/octet-stream";
+        } else if (COMPRESSIBLE.contains(extension)) {
+            mimeType += "; charset=utf-8";
+        }
+        byUrl.put(URL_PREFIX + fingerprinted,
+            new Asset(mimeType, "\"" + hash + "\"", identity, gzip, brotli));
+        urls.put(originalPath, URL_PREFIX + encodePath(fingerprinted));
+    }
+
+    // /img/bread/Melkbrood groot g.png -> /img/bread/Melkbrood groot g.<hash>.png
+    private static String fingerprint(String path, String hash) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash + 1) {
+            return path + "." + hash;
+        }
+        return path.substring(0, dot) + "." + hash + path.substring(dot);
+    }
+
+    private static String extensionOf(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot < 0 ? "" : path.substring(dot + 1).toLowerCase();
+    }
+
+    static String encodePath(String path) {
+        StringBuilder encoded = new StringBuilder();
+        for (String segment : path.substring(1).split("/")) {
+            encoded.append('/').append(URLEncoder.encode(segment, StandardCharsets.UTF_8).replace("+", "%20"));
+        }
+        return encoded.toString();
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 3);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {{ def.setLevel(Deflater.BEST_COMPRESSION); }}) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    // null when the jar file system is already open elsewhere; that one is used and left open
+    private static FileSystem openJar(URI uri) throws IOException {
+        try {
+            return FileSystems.newFileSystem(uri, Map.of());
+        } catch (FileSystemAlreadyExistsException e) {
+            return null;
+        }
+    }
+
+    // Read-only view of the URL map for templates
+    private static final class AssetUrls extends AbstractMap<String, String> {
+        private final Map<String, String> urls;
+
+        private AssetUrls(Map<String, String> urls) {
+            this.urls = urls;
+        }
+
+        @Override
+        public String get(Object key) {
+            String url = urls.get(key);
+            return url != null ? url : (String) key;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return urls.containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return Collections.unmodifiableMap(urls).entrySet();
+        }
+    }
+
+    private static final class Asset {
+        private final String contentType;
+        private final String etag;
+        private final ByteBuffer identity;
+        private final ByteBuffer gzip;
+        private final ByteBuffer brotli;
+
+        private Asset(String contentType, String etag, ByteBuffer identity, ByteBuffer gzip, ByteBuffer brotli) {
+            this.contentType = contentType;
+            this.etag = etag;
+            this.identity = identity;
+            this.gzip = gzip;
+            this.brotli = brotli;
+        }
+    }
+}
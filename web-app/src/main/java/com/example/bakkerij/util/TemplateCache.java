@@ -0,0 +1,125 @@
+package com.example.bakkerij.util;
+
+import com.hubspot.jinjava.tree.Node;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class TemplateCache {
+    private static final String TEMPLATE_DIR = "templates/";
+
+    private final Map<String, CachedTemplate> byPath = new ConcurrentHashMap<>();
+    private final Map<String, CachedTemplate> bySource = new ConcurrentHashMap<>();
+    private final ClassLoader classLoader = getClass().getClassLoader();
+    private final int maxEntries;
+    private final boolean devMode;
+
+    public TemplateCache(int maxEntries, boolean devMode) {
+        this.maxEntries = maxEntries;
+        this.devMode = devMode;
+    }
+
+    public static String normalizePath(String path) {
+        return path.startsWith(TEMPLATE_DIR) ? path : TEMPLATE_DIR + path;
+    }
+
+    public String getSource(String templatePath) throws IOException {
+        String path = normalizePath(templatePath);
+        CachedTemplate cached = byPath.get(path);
+        if (cached != null && !(devMode && isStale(cached))) {
+            cached.lastAccess = System.nanoTime();
+            return cached.source;
+        }
+        return load(path).source;
+    }
+
+    // Parsed trees are only kept for sources loaded through getSource; inline snippets and
+    // nested interpretation strings are never cached.
+    public Node getParsed(String source) {
+        CachedTemplate cached = bySource.get(source);
+        return cached != null ? cached.root : null;
+    }
+
+    public void putParsed(String source, Node root) {
+        CachedTemplate cached = bySource.get(source);
+        if (cached != null) {
+            cached.root = root;
+        }
+    }
+
+    public int size() {
+        return byPath.size();
+    }
+
+    private CachedTemplate load(String path) throws IOException {
+        URL url = classLoader.getResource(path);
+        if (url == null) {
+            throw new IOException("Template not found: " + path);
+        }
+        String source;
+        try (InputStream is = url.openStream()) {
+            source = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        CachedTemplate loaded = new CachedTemplate(path, source, lastModified(url));
+        CachedTemplate previous = byPath.put(path, loaded);
+        if (previous != null) {
+            bySource.remove(previous.source, previous);
+        }
+        bySource.put(source, loaded);
+        evictIfFull();
+        return loaded;
+    }
+
+    private boolean isStale(CachedTemplate cached) {
+        URL url = classLoader.getResource(cached.path);
+        return url != null && lastModified(url) != cached.lastModified;
+    }
+
+    private void evictIfFull() {
+        while (byPath.size() > maxEntries) {
+            CachedTemplate eldest = null;
+            for (CachedTemplate candidate : byPath.values()) {
+                if (eldest == null || candidate.lastAccess < eldest.lastAccess) {
+                    eldest = candidate;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            byPath.remove(eldest.path, eldest);
+            bySource.remove(eldest.source, eldest);
+        }
+    }
+
+    private static long lastModified(URL url) {
+        // Only exploded resources (IDE, mvn exec:java) can change while running; jar entries never do
+        if (!"file".equals(url.getProtocol())) {
+            return 0L;
+        }
+        try {
+            return new File(url.toURI()).lastModified();
+        } catch (Exception e) {
+            return 0L;
+        }
+    }
+
+    private static final class CachedTemplate {
+        private final String path;
+        private final String source;
+        private final long lastModified;
+        private volatile Node root;
+        private volatile long lastAccess = System.nanoTime();
+
+        private CachedTemplate(String path, String source, long lastModified) {
+            this.path = path;
+            this.source = source;
+            this.lastModified = lastModified;
+        }
+    }
+}
@@ -2,55 +2,119 @@ package com.example.bakkerij.util;
 
 import com.hubspot.jinjava.Jinjava;
 import com.hubspot.jinjava.JinjavaConfig;
+import com.hubspot.jinjava.interpret.Context;
+import com.hubspot.jinjava.interpret.InterpreterFactory;
 import com.hubspot.jinjava.interpret.JinjavaInterpreter;
 import com.hubspot.jinjava.loader.ResourceLocator;
+import com.hubspot.jinjava.tree.Node;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.Map;
 
 public class TemplateRenderer {
+    private static final int DEFAULT_MAX_TEMPLATES = 64;
+
     private final Jinjava jinjava;
+    private final TemplateCache templateCache;
     private final TranslationService translationService;
     private final String appVersion;
+    private final Metrics metrics;
 
     public TemplateRenderer(TranslationService translationService, String appVersion) {
+        this(translationService, appVersion, false);
+    }
+
+    public TemplateRenderer(TranslationService translationService, String appVersion, boolean devMode) {
+        this(translationService, appVersion, devMode, Metrics.disabled());
+    }
+
+    public TemplateRenderer(TranslationService translationService, String appVersion, boolean devMode, Metrics metrics) {
         this.translationService = translationService;
         this.appVersion = appVersion;
-        
-        JinjavaConfig config = JinjavaConfig.newBuilder().build();
+        this.metrics = metrics;
+        this.templateCache = new TemplateCache(DEFAULT_MAX_TEMPLATES, devMode);
+
+        JinjavaConfig config = JinjavaConfig.newBuilder()
+            .withInterperterFactory(new CachingInterpreterFactory(templateCache))
+            .build();
         this.jinjava = new Jinjava(config);
         this.jinjava.setResourceLocator(new ResourceLocator() {
             @Override
             public String getString(String fullName, Charset encoding, JinjavaInterpreter interpreter) throws IOException {
-                String path = fullName;
-                if (!path.startsWith("templates/")) {
-                    path = "templates/" + path;
-                }
-                InputStream is = getClass().getClassLoader().getResourceAsStream(path);
-                if (is == null) {
-                    throw new IOException("Template not found: " + path);
-                }
-                return new String(is.readAllBytes(), encoding);
+                return templateCache.getSource(fullName);
             }
         });
     }
 
+    // Visible to every template, e.g. the fingerprinted asset URLs
+    public void addGlobal(String name, Object value) {
+        jinjava.getGlobalContext().put(name, value);
+    }
+
     public String render(String templatePath, Map<String, Object> context, String lang) {
         context.put("lang", lang);
         context.put("t", translationService.getTranslations(lang));
         context.put("version", appVersion);
-        
+
+        long start = metrics.startTimer();
         try {
-            InputStream is = getClass().getClassLoader().getResourceAsStream(templatePath);
-            if (is == null) {
-                throw new RuntimeException("Template not found: " + templatePath);
-            }
-            String template = new String(is.readAllBytes());
-            return jinjava.render(template, context);
+            return jinjava.render(templateCache.getSource(templatePath), context);
+        } catch (IOException e) {
+            throw new RuntimeException("Template not found: " + templatePath, e);
         } catch (Exception e) {
             throw new RuntimeException("Failed to render template: " + templatePath, e);
+        } finally {
+            metrics.recordTemplate(templatePath, start);
+        }
+    }
+
+    private static class CachingInterpreterFactory implements InterpreterFactory {
+        private final TemplateCache templateCache;
+
+        CachingInterpreterFactory(TemplateCache templateCache) {
+            this.templateCache = templateCache;
+        }
+
+        @Override
+        public JinjavaInterpreter newInstance(JinjavaInterpreter orig) {
+            return new CachingInterpreter(orig, templateCache);
+        }
+
+        @Override
+        public JinjavaInterpreter newInstance(Jinjava application, Context context, JinjavaConfig renderConfig) {
+            return new CachingInterpreter(application, context, renderConfig, templateCache);
+        }
+    }
+
+    // Reuses the parsed node tree of templates, includes and extended layouts across requests.
+    // Nodes are not mutated while rendering, so a single tree can be shared between threads.
+    private static class CachingInterpreter extends JinjavaInterpreter {
+        private final TemplateCache templateCache;
+
+        CachingInterpreter(JinjavaInterpreter orig, TemplateCache templateCache) {
+            super(orig);
+            this.templateCache = templateCache;
+        }
+
+        CachingInterpreter(Jinjava application, Context context, JinjavaConfig renderConfig, TemplateCache templateCache) {
+            super(application, context, renderConfig);
+            this.templateCache = templateCache;
+        }
+
+        @Override
+        public Node parse(String template) {
+            Node cached = templateCache.getParsed(template);
+            if (cached != null) {
+                return cached;
+            }
+            int errorsBefore = getErrors().size();
+            Node root = super.parse(template);
+            // Don't cache a partial tree, later renders would silently lose the syntax errors
+            if (getErrors().size() == errorsBefore) {
+                templateCache.putParsed(template, root);
+            }
+            return root;
         }
     }
 }
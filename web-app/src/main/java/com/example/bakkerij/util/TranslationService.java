@@ -3,12 +3,22 @@ package com.example.bakkerij.util;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class TranslationService {
-    private final Map<String, Map<String, String>> translations = new HashMap<>();
+    private static final String FALLBACK_LANGUAGE = "nl";
+
     private final ObjectMapper mapper = new ObjectMapper();
+    // Replaced as a whole when translations are loaded, never modified
+    private volatile Map<String, TranslationTable> tables = Map.of();
+    private volatile Map<String, List<String>> missingKeys = Map.of();
 
     public void loadTranslations(String resourceName) {
         try {
@@ -17,11 +27,13 @@ public class TranslationService {
                 System.err.println("Failed to load " + resourceName + " - file not found");
                 return;
             }
-            
+
             @SuppressWarnings("unchecked")
-            Map<String, Map<String, String>> loadedTranslations = mapper.readValue(translationsStream, Map.class);
-            translations.putAll(loadedTranslations);
-            System.out.println("Loaded translations for languages: " + translations.keySet());
+            Map<String, Map<String, String>> loadedTranslations = mapper.readValue(translationsStream, LinkedHashMap.class);
+            compile(loadedTranslations);
+            System.out.println("Loaded translations for languages: " + tables.keySet());
+            missingKeys.forEach((language, keys) -> System.err.println("Translations for " + language + " are missing "
+                + keys.size() + " keys" + (language.equals(FALLBACK_LANGUAGE) ? "" : ", using " + FALLBACK_LANGUAGE) + ": " + keys));
         } catch (Exception e) {
             System.err.println("Failed to load translations: " + e.getMessage());
             e.printStackTrace();
@@ -29,6 +41,52 @@ public class TranslationService {
     }
 
     public Map<String, String> getTranslations(String lang) {
-        return translations.getOrDefault(lang, translations.get("nl"));
+        TranslationTable table = tables.get(lang);
+        return table != null ? table : tables.get(FALLBACK_LANGUAGE);
+    }
+
+    // Language -> keys that some other language defines but this one does not
+    public Map<String, List<String>> getMissingKeys() {
+        return missingKeys;
+    }
+
+    // Every language gets a value for every key any language defines: its own, else the fallback
+    // language's, else null. Keys and texts are interned, the tables share one key index.
+    private void compile(Map<String, Map<String, String>> translations) {
+        Set<String> allKeys = new LinkedHashSet<>();
+        Map<String, String> fallback = translations.getOrDefault(FALLBACK_LANGUAGE, Map.of());
+        allKeys.addAll(fallback.keySet());
+        translations.values().forEach(texts -> allKeys.addAll(texts.keySet()));
+
+        String[] keys = new String[allKeys.size()];
+        Map<String, Integer> ids = new HashMap<>();
+        int nextId = 0;
+        for (String key : allKeys) {
+            keys[nextId] = key.intern();
+            ids.put(keys[nextId], nextId);
+            nextId++;
+        }
+        Map<String, Integer> keyIds = Map.copyOf(ids);
+
+        Map<String, TranslationTable> compiled = new LinkedHashMap<>();
+        Map<String, List<String>> missing = new LinkedHashMap<>();
+        translations.forEach((language, texts) -> {
+            String[] values = new String[keys.length];
+            List<String> missingInLanguage = new ArrayList<>();
+            for (int id = 0; id < keys.length; id++) {
+                String text = texts.get(keys[id]);
+                if (text == null) {
+                    missingInLanguage.add(keys[id]);
+                    text = fallback.get(keys[id]);
+                }
+                values[id] = text == null ? null : text.intern();
+            }
+            compiled.put(language, new TranslationTable(language, keyIds, keys, values));
+            if (!missingInLanguage.isEmpty()) {
+                missing.put(language, List.copyOf(missingInLanguage));
+            }
+        });
+        tables = Collections.unmodifiableMap(compiled);
+        missingKeys = Collections.unmodifiableMap(missing);
     }
 }
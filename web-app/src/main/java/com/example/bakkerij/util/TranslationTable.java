@@ -0,0 +1,86 @@
+package com.example.bakkerij.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The translations of one language as an immutable, array-backed map, which is what templates see as
+// "t". All languages share one key -> id index, so t.some_key is a single lookup in an immutable map
+// plus an array read. Keys the language lacks already hold the fallback text, nothing is merged per
+// request. A key that no language defines is reported once and renders as empty, like before.
+public final class TranslationTable extends AbstractMap<String, String> {
+    private static final Set<String> reportedUnknownKeys = ConcurrentHashMap.newKeySet();
+
+    private final String language;
+    private final Map<String, Integer> keyIds;
+    private final String[] keys;
+    private final String[] values;
+
+    TranslationTable(String language, Map<String, Integer> keyIds, String[] keys, String[] values) {
+        this.language = language;
+        this.keyIds = keyIds;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public String getLanguage() {
+        return language;
+    }
+
+    @Override
+    public String get(Object key) {
+        Integer id = keyIds.get(key);
+        if (id == null) {
+            if (key instanceof String name && reportedUnknownKeys.add(name)) {
+                System.err.println("Unknown translation key '" + name + "' (language " + language + ")");
+            }
+            return null;
+        }
+        return values[id];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return keyIds.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (next >= keys.length) {
+                            throw new NoSuchElementException();
+                        }
+                        int id = next++;
+                        return new SimpleImmutableEntry<>(keys[id], values[id]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bakkerij;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import io.github.cdimascio.dotenv.DotenvEntry;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Configuration for Application.start from a map instead of a .env file
+final class MapDotenv implements Dotenv {
+    private final Map<String, String> values;
+
+    MapDotenv(Map<String, String> values) {
+        this.values = values;
+    }
+
+    @Override
+    public Set<DotenvEntry> entries() {
+        return values.entrySet().stream()
+            .map(e -> new DotenvEntry(e.getKey(), e.getValue()))
+            .collect(Collectors.toSet());
+    }
+
+    @Override
+    public Set<DotenvEntry> entries(Filter filter) {
+        return entries();
+    }
+
+    @Override
+    public String get(String key) {
+        return values.get(key);
+    }
+
+    @Override
+    public String get(String key, String defaultValue) {
+        return values.getOrDefault(key, defaultValue);
+    }
+}
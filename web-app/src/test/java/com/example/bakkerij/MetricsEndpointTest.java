@@ -0,0 +1,97 @@
+package com.example.bakkerij;
+
+import io.javalin.Javalin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+// /metrics as configured through METRICS_ENABLED and METRICS_TOKEN
+class MetricsEndpointTest {
+
+    @TempDir
+    static Path dataDirectory;
+
+    private static Javalin open;
+    private static Javalin withToken;
+    private static Javalin disabled;
+    private static final HttpClient http = HttpClient.newHttpClient();
+
+    @BeforeAll
+    static void startNodes() {
+        System.setProperty("java.awt.headless", "true");
+        open = start("open", Map.of());
+        withToken = start("token", Map.of("METRICS_TOKEN", "s3cret"));
+        disabled = start("disabled", Map.of("METRICS_ENABLED", "false"));
+    }
+
+    private static Javalin start(String name, Map<String, String> settings) {
+        Map<String, String> env = new HashMap<>(settings);
+        env.put("PORT", "0");
+        env.put("ORDER_JOURNAL_FILE", "");
+        env.put("ORDER_SEQUENCE_FILE", dataDirectory.resolve("order-sequence-" + name).toString());
+        env.put("IMAGE_CACHE_DIR", dataDirectory.resolve("image-cache-" + name).toString());
+        env.put("TEMPLATE_DEV_MODE", "true");
+        return Application.start(new MapDotenv(env));
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        open.stop();
+        withToken.stop();
+        disabled.stop();
+    }
+
+    private static HttpResponse<String> send(Javalin app, String method, String path, String authorization) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + path))
+            .method(method, HttpRequest.BodyPublishers.noBody());
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    void shouldServeMetricsToThisMachineWithoutAToken() throws Exception {
+        HttpResponse<String> response = send(open, "GET", "/metrics", null);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).contains("bakkerij_http_requests_total");
+    }
+
+    @Test
+    void shouldAskForTheTokenWhenOneIsSet() throws Exception {
+        assertThat(send(withToken, "GET", "/metrics", null).statusCode()).isEqualTo(401);
+        assertThat(send(withToken, "GET", "/metrics", "Bearer guess").statusCode()).isEqualTo(401);
+        assertThat(send(withToken, "GET", "/metrics", "Bearer s3cret").statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void shouldNotServeMetricsWhenSwitchedOff() throws Exception {
+        assertThat(send(disabled, "GET", "/metrics", null).statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void shouldGroupUnknownMethodsUnderOther() throws Exception {
+        send(open, "BREW", "/", null);
+        send(open, "GET", "/", null);
+
+        // Requests are recorded once their response is written, just after the client has it
+        String scraped = "";
+        for (int attempt = 0; attempt < 50 && !scraped.contains("method=\"other\""); attempt++) {
+            Thread.sleep(20);
+            scraped = send(open, "GET", "/metrics", null).body();
+        }
+        assertThat(scraped).contains("method=\"other\"").contains("method=\"GET\"").doesNotContain("BREW");
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.bakkerij;
+
+import com.example.bakkerij.store.KeyValueServer;
+import io.javalin.Javalin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.*;
+
+// Several app instances in one JVM sharing carts, sessions, orders and addresses through one
+// KeyValueServer, as they would behind a load balancer without sticky sessions
+class MultiNodeTest {
+
+    private static final int NODES = 3;
+    // Newest order first
+    private static final Pattern REPEAT_BUTTON = Pattern.compile("hx-post=\"/order/repeat/(\\d+)");
+
+    @TempDir
+    static Path dataDirectory;
+
+    private static KeyValueServer store;
+    private static final List<Javalin> nodes = new ArrayList<>();
+    private static final HttpClient http = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .followRedirects(HttpClient.Redirect.NEVER)
+        .build();
+
+    @BeforeAll
+    static void startNodes() {
+        System.setProperty("java.awt.headless", "true");
+        store = KeyValueServer.start(0, 10_000);
+        for (int i = 0; i < NODES; i++) {
+            Map<String, String> env = new HashMap<>();
+            env.put("PORT", "0");
+            env.put("NODE_ID", String.valueOf(i));
+            env.put("ORDER_JOURNAL_FILE", "");
+            env.put("ORDER_SEQUENCE_FILE", dataDirectory.resolve("order-sequence-" + i).toString());
+            env.put("IMAGE_CACHE_DIR", dataDirectory.resolve("image-cache-" + i).toString());
+            env.put("TEMPLATE_DEV_MODE", "true");
+            env.put("SESSION_STORE_URL", "http://localhost:" + store.port());
+            nodes.add(Application.start(new MapDotenv(env)));
+        }
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodes.forEach(Javalin::stop);
+        store.stop();
+    }
+
+    @Test
+    void shouldShowCartAddedOnOneNodeOnAllOthers() throws Exception {
+        String sessionId = UUID.randomUUID().toString();
+
+        post(0, sessionId, "/cart/add/1", "quantity=2");
+        post(1, sessionId, "/cart/add/2", "quantity=1");
+
+        for (int node = 0; node < NODES; node++) {
+            assertThat(get(node, sessionId, "/cart/count").body()).contains(">3<");
+        }
+    }
+
+    @Test
+    void shouldKeepLoginWhenRoutedToAnotherNode() throws Exception {
+        String sessionId = UUID.randomUUID().toString();
+
+        HttpResponse<String> login = post(0, sessionId, "/login", "firstname=Anna&password=secret&lang=nl");
+        assertThat(login.statusCode()).isEqualTo(302);
+
+        assertThat(get(2, sessionId, "/account?lang=nl").body()).contains("Anna");
+
+        post(1, sessionId, "/logout", "lang=nl");
+        assertThat(get(0, sessionId, "/account?lang=nl").body()).doesNotContain("Anna");
+    }
+
+    @Test
+    void shouldRepeatAnOrderPlacedOnAnotherNode() throws Exception {
+        String sessionId = UUID.randomUUID().toString();
+        post(0, sessionId, "/login", "firstname=Bram&password=secret&lang=nl");
+        post(0, sessionId, "/cart/add/1", "quantity=2");
+        get(0, sessionId, "/payment/success?method=cash&lang=nl");
+
+        Matcher newest = REPEAT_BUTTON.matcher(get(1, sessionId, "/account?lang=nl").body());
+        assertThat(newest.find()).isTrue();
+        assertThat(get(2, sessionId, "/account?lang=nl").body()).contains(newest.group());
+
+        post(1, sessionId, "/order/repeat/" + newest.group(1), "");
+        assertThat(get(2, sessionId, "/cart/count").body()).contains(">2<");
+    }
+
+    @Test
+    void shouldShowAddressSavedOnAnotherNode() throws Exception {
+        String sessionId = UUID.randomUUID().toString();
+        post(0, sessionId, "/login", "firstname=Carla&password=secret&lang=nl");
+
+        post(1, sessionId, "/account/address?lang=nl", "street=Bakkerstraat+1&postal=1234AB&city=Gent&country=Belgi%C3%AB&lang=nl");
+
+        String account = get(2, sessionId, "/account?lang=nl").body();
+        assertThat(account).contains("value=\"Bakkerstraat 1\"", "value=\"1234AB\"", "value=\"Gent\"");
+    }
+
+    @Test
+    void shouldNotLoseConcurrentAddsSpreadOverNodes() throws Exception {
+        String sessionId = UUID.randomUUID().toString();
+        int addsPerNode = 20;
+
+        ExecutorService executor = Executors.newFixedThreadPool(NODES * 2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int worker = 0; worker < NODES * 2; worker++) {
+                int node = worker % NODES;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < addsPerNode / 2; i++) {
+                        post(node, sessionId, "/cart/add/" + (1 + i % 3), "quantity=1");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(get(1, sessionId, "/cart/count").body()).contains(">" + (NODES * addsPerNode) + "<");
+    }
+
+    private static HttpResponse<String> get(int node, String sessionId, String path) throws Exception {
+        return send(HttpRequest.newBuilder(uri(node, path)).GET(), sessionId);
+    }
+
+    private static HttpResponse<String> post(int node, String sessionId, String path, String form) throws Exception {
+        return send(HttpRequest.newBuilder(uri(node, path))
+            .header("Content-Type", "application/x-www-form-urlencoded")
+            .POST(HttpRequest.BodyPublishers.ofString(form)), sessionId);
+    }
+
+    private static HttpResponse<String> send(HttpRequest.Builder request, String sessionId) throws Exception {
+        request.header("Cookie", "sessionId=" + URLEncoder.encode(sessionId, StandardCharsets.UTF_8));
+        HttpResponse<String> response = http.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(response.statusCode()).isLessThan(400);
+        return response;
+    }
+
+    private static URI uri(int node, String path) {
+        return URI.create("http://localhost:" + nodes.get(node).port() + path);
+    }
+}
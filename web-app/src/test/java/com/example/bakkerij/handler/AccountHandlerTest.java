@@ -0,0 +1,148 @@
+package com.example.bakkerij.handler;
+
+import com.example.bakkerij.model.Order;
+import com.example.bakkerij.model.OrderItem;
+import com.example.bakkerij.model.Product;
+import com.example.bakkerij.service.CartService;
+import com.example.bakkerij.service.OrderService;
+import com.example.bakkerij.service.UserService;
+import com.example.bakkerij.util.SessionManager;
+import com.example.bakkerij.util.TemplateRenderer;
+import io.javalin.http.Context;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountHandlerTest {
+    private static final String SESSION = "session-1";
+    private static final String USER = "jan";
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private CartService cartService;
+
+    @Mock
+    private TemplateRenderer templateRenderer;
+
+    @Mock
+    private SessionManager sessionManager;
+
+    @Mock(answer = Answers.RETURNS_SELF)
+    private Context ctx;
+
+    @Captor
+    private ArgumentCaptor<Map<String, Object>> context;
+
+    private AccountHandler accountHandler;
+
+    @BeforeEach
+    void setUp() {
+        accountHandler = new AccountHandler(userService, orderService, cartService, templateRenderer, sessionManager);
+        when(sessionManager.getOrCreateSessionId(ctx)).thenReturn(SESSION);
+        when(ctx.queryParam("lang")).thenReturn("nl");
+    }
+
+    // Newest first, as the order history is shown: first, first - 1, ...
+    private static List<Order> orders(long first, int count) {
+        Product product = new Product(1, "Brood", "Brood", "Brood", "Brood", "Brood", "Brood",
+                "Desc", "Desc", "Desc", "Desc", "Desc", "Desc",
+                2.50, "image.jpg", "brood");
+        return LongStream.range(0, count)
+            .mapToObj(i -> new Order(first - i, "30/11/2025", List.of(new OrderItem(product, 2)), 5.00))
+            .toList();
+    }
+
+    private Map<String, Object> render(String before) {
+        when(ctx.queryParam("before")).thenReturn(before);
+        when(userService.getUsername(SESSION)).thenReturn(Optional.of(USER));
+
+        accountHandler.getOrderPage(ctx);
+
+        verify(templateRenderer).render(eq("templates/account-orders.jinja"), context.capture(), eq("nl"));
+        return context.getValue();
+    }
+
+    @Test
+    void shouldStartAtTheNewestOrderAndPointBeforeTheLastOneShown() {
+        when(orderService.getOrderHistoryPage(USER, 0, AccountHandler.ORDERS_PER_PAGE + 1)).thenReturn(orders(7, 4));
+
+        Map<String, Object> page = render(null);
+
+        assertThat(page.get("orders")).isEqualTo(orders(7, 3));
+        assertThat(page).containsEntry("nextBefore", 5L);
+    }
+
+    @Test
+    void shouldContinueBeforeTheGivenOrderNumber() {
+        when(orderService.getOrderHistoryPageBefore(USER, 5, AccountHandler.ORDERS_PER_PAGE + 1)).thenReturn(orders(4, 4));
+
+        Map<String, Object> page = render("5");
+
+        assertThat(page.get("orders")).isEqualTo(orders(4, 3));
+        assertThat(page).containsEntry("nextBefore", 2L);
+    }
+
+    @Test
+    void shouldNotPointPastAFullLastPage() {
+        when(orderService.getOrderHistoryPageBefore(USER, 4, AccountHandler.ORDERS_PER_PAGE + 1)).thenReturn(orders(3, 3));
+
+        Map<String, Object> page = render("4");
+
+        assertThat(page.get("orders")).isEqualTo(orders(3, 3));
+        assertThat(page).doesNotContainKey("nextBefore");
+    }
+
+    @Test
+    void shouldNotPointPastAPartialLastPage() {
+        when(orderService.getOrderHistoryPageBefore(USER, 2, AccountHandler.ORDERS_PER_PAGE + 1)).thenReturn(orders(1, 1));
+
+        Map<String, Object> page = render("2");
+
+        assertThat(page.get("orders")).isEqualTo(orders(1, 1));
+        assertThat(page).doesNotContainKey("nextBefore");
+    }
+
+    @Test
+    void shouldRenderAnEmptyPageForAnUnknownOrderNumber() {
+        when(orderService.getOrderHistoryPageBefore(USER, 99, AccountHandler.ORDERS_PER_PAGE + 1)).thenReturn(List.of());
+
+        Map<String, Object> page = render("99");
+
+        assertThat(page.get("orders")).isEqualTo(List.of());
+        assertThat(page).doesNotContainKey("nextBefore");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"-3", "0", "abc", "", "99999999999999999999"})
+    void shouldRejectAnInvalidOrderNumber(String before) {
+        when(ctx.queryParam("before")).thenReturn(before);
+
+        accountHandler.getOrderPage(ctx);
+
+        verify(ctx).status(400);
+        verify(ctx).result("Invalid order number");
+        verifyNoInteractions(orderService, templateRenderer);
+    }
+}
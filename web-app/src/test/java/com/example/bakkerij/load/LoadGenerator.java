@@ -0,0 +1,310 @@
+package com.example.bakkerij.load;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Closed-loop HTTP/1.1 load generator: every connection is kept alive and sends its next request
+// as soon as the previous response is complete. All connections are multiplexed over a few
+// selector threads, so the client can hold thousands of connections on a laptop.
+//
+// Not a unit test; run it against a started server, see `make loadtest`:
+//   mvn -q exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.example.bakkerij.load.LoadGenerator \
+//       -Dexec.args="http://localhost:7070/payment/success 5000 30 5"
+// Arguments: url, connections, duration in seconds, warm-up in seconds (not measured).
+public class LoadGenerator {
+    private static final byte[] HEADER_END = {'\r', '\n', '\r', '\n'};
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:7070/");
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        int durationSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int warmupSeconds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), connections));
+
+        InetSocketAddress address = new InetSocketAddress(uri.getHost(), uri.getPort() < 0 ? 80 : uri.getPort());
+        String path = uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        if (uri.getRawQuery() != null) {
+            path += "?" + uri.getRawQuery();
+        }
+        byte[] request = ("GET " + path + " HTTP/1.1\r\nHost: " + uri.getHost() + "\r\n"
+            + "Cookie: sessionId=loadtest\r\nConnection: keep-alive\r\n\r\n").getBytes(StandardCharsets.US_ASCII);
+
+        long now = System.nanoTime();
+        long measureFrom = now + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            int share = connections / threads + (i < connections % threads ? 1 : 0);
+            workers.add(new Worker(address, request, share, measureFrom, measureUntil));
+        }
+        List<Thread> running = new ArrayList<>();
+        for (Worker worker : workers) {
+            Thread thread = new Thread(worker, "load-" + running.size());
+            thread.start();
+            running.add(thread);
+        }
+        for (Thread thread : running) {
+            thread.join();
+        }
+
+        long completed = 0;
+        long errors = 0;
+        long reconnects = 0;
+        LatencyRecorder all = new LatencyRecorder();
+        for (Worker worker : workers) {
+            completed += worker.latencies.size();
+            errors += worker.errors;
+            reconnects += worker.reconnects;
+            all.addAll(worker.latencies);
+        }
+        long[] sorted = all.sorted();
+
+        System.out.printf("%s  connections=%d  duration=%ds%n", uri, connections, durationSeconds);
+        System.out.printf("  requests=%d  throughput=%.0f req/s  errors=%d  reconnects=%d%n",
+            completed, completed / (double) durationSeconds, errors, reconnects);
+        System.out.printf("  latency p50=%.2f ms  p90=%.2f ms  p99=%.2f ms  p99.9=%.2f ms  max=%.2f ms%n",
+            millis(percentile(sorted, 50)), millis(percentile(sorted, 90)), millis(percentile(sorted, 99)),
+            millis(percentile(sorted, 99.9)), millis(sorted.length == 0 ? 0 : sorted[sorted.length - 1]));
+    }
+
+    private static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class Worker implements Runnable {
+        private final InetSocketAddress address;
+        private final byte[] request;
+        private final int connections;
+        private final long measureFrom;
+        private final long measureUntil;
+        private final LatencyRecorder latencies = new LatencyRecorder();
+        private long errors;
+        private long reconnects;
+
+        private Worker(InetSocketAddress address, byte[] request, int connections, long measureFrom, long measureUntil) {
+            this.address = address;
+            this.request = request;
+            this.connections = connections;
+            this.measureFrom = measureFrom;
+            this.measureUntil = measureUntil;
+        }
+
+        @Override
+        public void run() {
+            try (Selector selector = Selector.open()) {
+                for (int i = 0; i < connections; i++) {
+                    connect(selector);
+                }
+                while (System.nanoTime() < measureUntil) {
+                    selector.select(100);
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handle(selector, key);
+                    }
+                }
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Load worker failed", e);
+            }
+        }
+
+        private void connect(Selector selector) throws IOException {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.connect(address);
+            channel.register(selector, SelectionKey.OP_CONNECT, new Connection(request));
+        }
+
+        private void handle(Selector selector, SelectionKey key) throws IOException {
+            SocketChannel channel = (SocketChannel) key.channel();
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isConnectable()) {
+                    channel.finishConnect();
+                    connection.startRequest();
+                    key.interestOps(SelectionKey.OP_WRITE);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    channel.write(connection.out);
+                    if (!connection.out.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                }
+                if (key.isValid() && key.isReadable()) {
+                    if (channel.read(connection.in) < 0) {
+                        throw new IOException("Connection closed by server");
+                    }
+                    int status = connection.completeResponse();
+                    if (status > 0) {
+                        long end = System.nanoTime();
+                        if (connection.startedAt >= measureFrom && end <= measureUntil) {
+                            latencies.add(end - connection.startedAt);
+                            if (status >= 400) {
+                                errors++;
+                            }
+                        }
+                        connection.startRequest();
+                        key.interestOps(SelectionKey.OP_WRITE);
+                    }
+                }
+            } catch (IOException e) {
+                key.cancel();
+                channel.close();
+                errors++;
+                reconnects++;
+                connect(selector);
+            }
+        }
+    }
+
+    private static final class Connection {
+        private final byte[] request;
+        private final ByteBuffer out;
+        private ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        private long startedAt;
+
+        private Connection(byte[] request) {
+            this.request = request;
+            this.out = ByteBuffer.wrap(request);
+        }
+
+        private void startRequest() {
+            out.clear();
+            in.clear();
+            startedAt = System.nanoTime();
+        }
+
+        // Returns the status code once the whole response has arrived, 0 while it is incomplete
+        private int completeResponse() throws IOException {
+            byte[] data = in.array();
+            int length = in.position();
+            int headerEnd = indexOf(data, length, HEADER_END, 0);
+            if (headerEnd < 0) {
+                growIfFull();
+                return 0;
+            }
+            String headers = new String(data, 0, headerEnd, StandardCharsets.ISO_8859_1);
+            int bodyStart = headerEnd + HEADER_END.length;
+            int status = Integer.parseInt(headers.substring(9, 12));
+
+            int contentLength = contentLength(headers);
+            boolean complete;
+            if (contentLength >= 0) {
+                complete = length >= bodyStart + contentLength;
+            } else if (headers.toLowerCase().contains("transfer-encoding: chunked")) {
+                complete = chunkedBodyComplete(data, bodyStart, length);
+            } else {
+                throw new IOException("Response without length, cannot keep the connection alive");
+            }
+            if (!complete) {
+                growIfFull();
+                return 0;
+            }
+            return status;
+        }
+
+        private void growIfFull() {
+            if (!in.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(in.capacity() * 2);
+                in.flip();
+                larger.put(in);
+                in = larger;
+            }
+        }
+
+        private static int contentLength(String headers) {
+            for (String line : headers.split("\r\n")) {
+                int colon = line.indexOf(':');
+                if (colon > 0 && line.substring(0, colon).equalsIgnoreCase("Content-Length")) {
+                    return Integer.parseInt(line.substring(colon + 1).trim());
+                }
+            }
+            return -1;
+        }
+
+        private static boolean chunkedBodyComplete(byte[] data, int offset, int length) {
+            while (true) {
+                int lineEnd = indexOf(data, length, new byte[]{'\r', '\n'}, offset);
+                if (lineEnd < 0) {
+                    return false;
+                }
+                String sizeLine = new String(data, offset, lineEnd - offset, StandardCharsets.ISO_8859_1);
+                int semicolon = sizeLine.indexOf(';');
+                int size = Integer.parseInt((semicolon < 0 ? sizeLine : sizeLine.substring(0, semicolon)).trim(), 16);
+                offset = lineEnd + 2;
+                if (size == 0) {
+                    return indexOf(data, length, new byte[]{'\r', '\n'}, offset) >= 0;
+                }
+                offset += size + 2;
+                if (offset > length) {
+                    return false;
+                }
+            }
+        }
+
+        private static int indexOf(byte[] data, int length, byte[] pattern, int from) {
+            outer:
+            for (int i = from; i <= length - pattern.length; i++) {
+                for (int j = 0; j < pattern.length; j++) {
+                    if (data[i + j] != pattern[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+    }
+
+    private static final class LatencyRecorder {
+        private long[] values = new long[1 << 16];
+        private int size;
+
+        private void add(long nanos) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = nanos;
+        }
+
+        private void addAll(LatencyRecorder other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -103,4 +103,49 @@ class CartTest {
 
         assertThat(cart.getQuantity(2)).isZero(); // Original cart unchanged
     }
+
+    @Test
+    void shouldKeepTotalItemsInSyncAcrossOperations() {
+        cart.addItem(1, 2);
+        cart.addItem(2, 3);
+        cart.updateItem(1, 7);
+        cart.removeItem(2);
+        cart.addItem(3, 4);
+
+        assertThat(cart.getTotalItems()).isEqualTo(11);
+        assertThat(cart.getLineCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldGrowBeyondInitialCapacity() {
+        for (int productId = 1; productId <= 50; productId++) {
+            cart.addItem(productId, 1);
+        }
+
+        assertThat(cart.getLineCount()).isEqualTo(50);
+        assertThat(cart.getTotalItems()).isEqualTo(50);
+        assertThat(cart.getQuantity(50)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldVisitItemsInInsertionOrder() {
+        cart.addItem(3, 1);
+        cart.addItem(1, 2);
+        cart.addItem(2, 3);
+        cart.removeItem(1);
+
+        StringBuilder visited = new StringBuilder();
+        cart.forEachItem((productId, quantity) -> visited.append(productId).append('x').append(quantity).append(' '));
+
+        assertThat(visited.toString()).isEqualTo("3x1 2x3 ");
+    }
+
+    @Test
+    void shouldDropLineWhenAddingNegativeQuantityBelowZero() {
+        cart.addItem(1, 2);
+        cart.addItem(1, -2);
+
+        assertThat(cart.isEmpty()).isTrue();
+        assertThat(cart.getTotalItems()).isZero();
+    }
 }
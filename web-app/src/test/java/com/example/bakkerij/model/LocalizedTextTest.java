@@ -0,0 +1,47 @@
+package com.example.bakkerij.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LocalizedTextTest {
+
+    @Test
+    void shouldReturnTextPerLanguage() {
+        LocalizedText text = new LocalizedText("Brood", "Pain", "Bread", "Brot", "Pan", "面包");
+
+        assertThat(text.get("nl")).isEqualTo("Brood");
+        assertThat(text.get("fr")).isEqualTo("Pain");
+        assertThat(text.get("zh")).isEqualTo("面包");
+    }
+
+    @Test
+    void shouldFallBackToDutch() {
+        LocalizedText text = new LocalizedText("Brood", null, "Bread", null, null, null);
+
+        assertThat(text.get("fr")).isEqualTo("Brood");
+        assertThat(text.get("unknown")).isEqualTo("Brood");
+        assertThat(text.getExact("fr")).isNull();
+        assertThat(text.getExact("en")).isEqualTo("Bread");
+    }
+
+    @Test
+    void shouldCopyValuesInLanguageOrder() {
+        String[] values = {"Brood", "Pain", "Bread", "Brot", "Pan", "面包"};
+
+        LocalizedText text = LocalizedText.of(values);
+        values[0] = "Changed";
+
+        assertThat(text).isEqualTo(new LocalizedText("Brood", "Pain", "Bread", "Brot", "Pan", "面包"));
+        assertThat(LocalizedText.LANGUAGES).hasSize(6);
+        assertThatThrownBy(() -> LocalizedText.of(new String[2]))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldKnowWhenEmpty() {
+        assertThat(LocalizedText.EMPTY.isEmpty()).isTrue();
+        assertThat(LocalizedText.EMPTY.get("nl")).isNull();
+        assertThat(new LocalizedText(null, null, null, null, null, "面包").isEmpty()).isFalse();
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bakkerij.model;
+
+import org.junit.jupiter.api.Test;
+import static org.assertj.core.api.Assertions.*;
+
+class PickupSlotTest {
+
+    @Test
+    void shouldCreatePickupSlot() {
+        PickupSlot slot = new PickupSlot("01/12/2025", "10:00");
+
+        assertThat(slot.getDate()).isEqualTo("01/12/2025");
+        assertThat(slot.getTime()).isEqualTo("10:00");
+    }
+
+    @Test
+    void shouldBeEqualWhenAllFieldsMatch() {
+        PickupSlot slot1 = new PickupSlot("01/12/2025", "10:00");
+        PickupSlot slot2 = new PickupSlot("01/12/2025", "10:00");
+
+        assertThat(slot1).isEqualTo(slot2);
+        assertThat(slot1.hashCode()).isEqualTo(slot2.hashCode());
+    }
+
+    @Test
+    void shouldNotBeEqualWhenFieldsDiffer() {
+        PickupSlot slot1 = new PickupSlot("01/12/2025", "10:00");
+        PickupSlot slot2 = new PickupSlot("01/12/2025", "14:00");
+
+        assertThat(slot1).isNotEqualTo(slot2);
+    }
+
+    @Test
+    void shouldHaveValidToString() {
+        PickupSlot slot = new PickupSlot("01/12/2025", "10:00");
+
+        assertThat(slot.toString()).contains("date='01/12/2025'").contains("time='10:00'");
+    }
+}
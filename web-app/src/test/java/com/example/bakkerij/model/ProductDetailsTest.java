@@ -0,0 +1,45 @@
+package com.example.bakkerij.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class ProductDetailsTest {
+
+    @Test
+    void shouldKeepJsonAndGzippedVariant() throws Exception {
+        byte[] json = "{\"id\":1,\"nameNl\":\"Brood\"}".getBytes(StandardCharsets.UTF_8);
+
+        ProductDetails details = new ProductDetails(1, json);
+
+        assertThat(details.getProductId()).isEqualTo(1);
+        assertThat(details.getJsonString()).isEqualTo("{\"id\":1,\"nameNl\":\"Brood\"}");
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(details.getGzippedJson()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(json);
+        }
+    }
+
+    @Test
+    void shouldDeriveStrongEtagFromContent() {
+        byte[] json = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+
+        ProductDetails first = new ProductDetails(1, json);
+        ProductDetails same = new ProductDetails(1, json.clone());
+        ProductDetails other = new ProductDetails(1, "{\"id\":2}".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(first.getEtag()).startsWith("\"").endsWith("\"");
+        assertThat(first.getEtag()).isEqualTo(same.getEtag());
+        assertThat(first.getEtag()).isNotEqualTo(other.getEtag());
+    }
+
+    @Test
+    void shouldRejectEmptyJson() {
+        assertThatThrownBy(() -> new ProductDetails(1, new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("empty");
+    }
+}
@@ -4,6 +4,9 @@ import com.example.bakkerij.model.Cart;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
 import static org.assertj.core.api.Assertions.*;
 
 class CartRepositoryTest {
@@ -19,7 +22,7 @@ class CartRepositoryTest {
     void shouldCreateNewCartForNewSession() {
         String sessionId = "session123";
 
-        Cart cart = cartRepository.getCart(sessionId);
+        Cart cart = cartRepository.updateCart(sessionId, created -> { });
 
         assertThat(cart).isNotNull();
         assertThat(cart.getItems()).isEmpty();
@@ -29,10 +32,9 @@ class CartRepositoryTest {
     void shouldReturnSameCartForSameSession() {
         String sessionId = "session123";
 
-        Cart cart1 = cartRepository.getCart(sessionId);
-        cart1.addItem(1, 2);
+        Cart cart1 = cartRepository.updateCart(sessionId, cart -> cart.addItem(1, 2));
 
-        Cart cart2 = cartRepository.getCart(sessionId);
+        Cart cart2 = cartRepository.findCart(sessionId).orElseThrow();
 
         assertThat(cart2).isSameAs(cart1);
         assertThat(cart2.getQuantity(1)).isEqualTo(2);
@@ -43,10 +45,9 @@ class CartRepositoryTest {
         String session1 = "session123";
         String session2 = "session456";
 
-        Cart cart1 = cartRepository.getCart(session1);
-        cart1.addItem(1, 2);
+        Cart cart1 = cartRepository.updateCart(session1, cart -> cart.addItem(1, 2));
 
-        Cart cart2 = cartRepository.getCart(session2);
+        Cart cart2 = cartRepository.updateCart(session2, cart -> { });
 
         assertThat(cart2).isNotSameAs(cart1);
         assertThat(cart2.getQuantity(1)).isZero();
@@ -55,13 +56,14 @@ class CartRepositoryTest {
     @Test
     void shouldClearCart() {
         String sessionId = "session123";
-        Cart cart = cartRepository.getCart(sessionId);
-        cart.addItem(1, 2);
-        cart.addItem(2, 3);
+        cartRepository.updateCart(sessionId, cart -> {
+            cart.addItem(1, 2);
+            cart.addItem(2, 3);
+        });
 
         cartRepository.clearCart(sessionId);
 
-        Cart clearedCart = cartRepository.getCart(sessionId);
+        Cart clearedCart = cartRepository.findCart(sessionId).orElseThrow();
         assertThat(clearedCart.getItems()).isEmpty();
     }
 
@@ -71,4 +73,87 @@ class CartRepositoryTest {
         assertThatCode(() -> cartRepository.clearCart("nonexistent"))
                 .doesNotThrowAnyException();
     }
+
+    @Test
+    void shouldNotCreateCartOnReadOnlyLookup() {
+        assertThat(cartRepository.findCart("unknown")).isEmpty();
+        assertThat(cartRepository.getLiveCartCount()).isZero();
+    }
+
+    @Test
+    void shouldFindExistingCart() {
+        Cart cart = cartRepository.updateCart("session123", created -> { });
+
+        assertThat(cartRepository.findCart("session123")).containsSame(cart);
+    }
+
+    @Test
+    void shouldExpireIdleCarts() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        CartRepository repository = new CartRepository(Duration.ofHours(1), 100, now::get);
+        repository.updateCart("idle", cart -> cart.addItem(1, 1));
+        repository.updateCart("active", cart -> cart.addItem(2, 1));
+
+        now.addAndGet(Duration.ofMinutes(50).toMillis());
+        repository.findCart("active");
+        now.addAndGet(Duration.ofMinutes(20).toMillis());
+
+        assertThat(repository.findCart("idle")).isEmpty();
+        assertThat(repository.findCart("active")).isPresent();
+        assertThat(repository.getEvictedCartCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSweepExpiredCarts() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        CartRepository repository = new CartRepository(Duration.ofHours(1), 100, now::get);
+        repository.updateCart("a", cart -> { });
+        repository.updateCart("b", cart -> { });
+
+        now.addAndGet(Duration.ofHours(2).toMillis());
+
+        assertThat(repository.evictExpired()).isEqualTo(2);
+        assertThat(repository.getLiveCartCount()).isZero();
+        assertThat(repository.getEvictedCartCount()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedCartsWhenFull() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        CartRepository repository = new CartRepository(Duration.ofDays(30), 10, now::get);
+        for (int i = 0; i < 10; i++) {
+            repository.updateCart("session" + i, cart -> { });
+            now.addAndGet(5_000);
+        }
+        repository.findCart("session0"); // recently used again
+
+        repository.updateCart("newcomer", cart -> { });
+
+        assertThat(repository.getLiveCartCount()).isLessThanOrEqualTo(10);
+        assertThat(repository.findCart("session0")).isPresent();
+        assertThat(repository.findCart("newcomer")).isPresent();
+        assertThat(repository.findCart("session1")).isEmpty();
+        assertThat(repository.getEvictedCartCount()).isPositive();
+    }
+
+    @Test
+    void shouldKeepAChangeToACartThatIsTrimmedMeanwhile() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        CartRepository repository = new CartRepository(Duration.ofDays(30), 10, now::get);
+        repository.updateCart("busy", cart -> { });
+        for (int i = 0; i < 9; i++) {
+            now.addAndGet(100);
+            repository.updateCart("session" + i, cart -> { });
+        }
+
+        // Within a second of its last touch, so the busy cart still looks the least recently used
+        Cart busy = repository.updateCart("busy", cart -> {
+            cart.addItem(1, 2);
+            repository.updateCart("newcomer", created -> { });
+        });
+
+        assertThat(repository.findCart("busy")).containsSame(busy);
+        assertThat(busy.getQuantity(1)).isEqualTo(2);
+        assertThat(repository.findCart("newcomer")).isPresent();
+    }
 }
@@ -0,0 +1,138 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.model.LocalizedText;
+import com.example.bakkerij.model.Nutrition;
+import com.example.bakkerij.model.Product;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class CatalogJsonTest {
+
+    private static CatalogJson.Contents read(String json) throws IOException {
+        return CatalogJson.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static InputStream catalogFile() {
+        return CatalogJsonTest.class.getClassLoader().getResourceAsStream("bread_details.json");
+    }
+
+    @Test
+    void shouldReadEveryFieldOfTheCatalog() throws IOException {
+        List<Product> products = CatalogJson.read(catalogFile()).getProducts();
+
+        Product first = products.get(0);
+        assertThat(first.getId()).isEqualTo(1);
+        assertThat(first.getNameNl()).isEqualTo("Bruin Blok Groot");
+        assertThat(first.getPrice()).isEqualTo(3.50);
+        assertThat(first.getWeight()).isEqualTo("800g");
+        assertThat(first.getCalories()).isEqualTo("240 kcal per 100g");
+        assertThat(first.getAllergens().get("en")).isEqualTo("Gluten (wheat)");
+        assertThat(first.getMainIngredients().get("fr")).startsWith("Farine de blé");
+        assertThat(first.getNutrition().getProtein()).isEqualTo("8.5g");
+        assertThat(first.getHealthInfo().isEmpty()).isFalse();
+        assertThat(first.getStorage().isEmpty()).isFalse();
+    }
+
+    @Test
+    void shouldWriteDetailsIdenticalToTheCatalogEntries() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode original;
+        try (InputStream in = catalogFile()) {
+            original = mapper.readTree(in);
+        }
+        List<Product> products = CatalogJson.read(catalogFile()).getProducts();
+
+        Iterator<JsonNode> entries = original.elements();
+        for (Product product : products) {
+            assertThat(mapper.readTree(CatalogJson.writeDetails(product))).isEqualTo(entries.next());
+        }
+        assertThat(entries.hasNext()).isFalse();
+    }
+
+    @Test
+    void shouldAcceptAnArrayOfProducts() throws IOException {
+        List<Product> products = read("[{\"id\": 7, \"nameNl\": \"Brood\", \"price\": 2}]").getProducts();
+
+        assertThat(products).extracting(Product::getId).containsExactly(7);
+        assertThat(products.get(0).getNutrition()).isEqualTo(Nutrition.EMPTY);
+        assertThat(products.get(0).getNameForLanguage("fr")).isEqualTo("Brood");
+    }
+
+    @Test
+    void shouldShareEqualTextsBetweenProducts() throws IOException {
+        String json = "[{\"id\": 1, \"nameNl\": \"Wit Groot\", \"descriptionNl\": \"Luchtig wit brood\", \"price\": 3, "
+            + "\"category\": \"brood\", \"nutritionPer100g\": {\"fat\": \"1g\"}}, "
+            + "{\"id\": 2, \"nameNl\": \"Wit Klein\", \"descriptionNl\": \"Luchtig wit brood\", \"price\": 2, "
+            + "\"category\": \"brood\", \"nutritionPer100g\": {\"fat\": \"1g\"}}]";
+
+        List<Product> shared = read(json).getProducts();
+        assertThat(shared.get(1).getDescription()).isSameAs(shared.get(0).getDescription());
+        assertThat(shared.get(1).getCategory()).isSameAs(shared.get(0).getCategory());
+        assertThat(shared.get(1).getNutrition()).isSameAs(shared.get(0).getNutrition());
+        assertThat(shared.get(0).getStorage()).isSameAs(LocalizedText.EMPTY);
+
+        List<Product> copied = CatalogJson.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), false)
+            .getProducts();
+        assertThat(copied.get(1).getDescription()).isEqualTo(copied.get(0).getDescription())
+            .isNotSameAs(copied.get(0).getDescription());
+        assertThat(copied.get(1).getNutrition()).isNotSameAs(copied.get(0).getNutrition());
+    }
+
+    @Test
+    void shouldReportUnknownFields() throws IOException {
+        CatalogJson.Contents contents = read("{\"1\": {\"id\": 1, \"nameNl\": \"Brood\", \"price\": 2, "
+            + "\"colour\": [\"brown\"], \"nameIt\": \"Pane\", \"nutritionPer100g\": {\"iron\": \"1mg\"}}}");
+
+        assertThat(contents.getProducts()).hasSize(1);
+        assertThat(contents.getUnknownFields()).containsExactly("colour", "nameIt", "nutritionPer100g.iron");
+    }
+
+    @Test
+    void shouldRejectDuplicateIds() {
+        assertThatThrownBy(() -> read("[{\"id\": 1, \"nameNl\": \"A\", \"price\": 1}, {\"id\": 1, \"nameNl\": \"B\", \"price\": 1}]"))
+            .isInstanceOf(JsonParseException.class)
+            .hasMessageContaining("Duplicate product id 1");
+    }
+
+    @Test
+    void shouldRejectProductsListedUnderAnotherId() {
+        assertThatThrownBy(() -> read("{\"2\": {\"id\": 1, \"nameNl\": \"A\", \"price\": 1}}"))
+            .isInstanceOf(JsonParseException.class)
+            .hasMessageContaining("listed under key '2'");
+    }
+
+    @Test
+    void shouldRejectIncompleteProducts() {
+        assertThatThrownBy(() -> read("[{\"nameNl\": \"A\", \"price\": 1}]"))
+            .hasMessageContaining("positive id");
+        assertThatThrownBy(() -> read("[{\"id\": 1, \"price\": 1}]"))
+            .hasMessageContaining("no nameNl");
+        assertThatThrownBy(() -> read("[{\"id\": 1, \"nameNl\": \"A\"}]"))
+            .hasMessageContaining("no valid price");
+        assertThatThrownBy(() -> read("[{\"id\": 1, \"nameNl\": \"A\", \"price\": -1}]"))
+            .hasMessageContaining("no valid price");
+    }
+
+    @Test
+    void shouldRejectWrongTypesWithTheirPosition() {
+        assertThatThrownBy(() -> read("[{\"id\": 1,\n \"nameNl\": \"A\",\n \"price\": \"2.50\"}]"))
+            .isInstanceOf(JsonParseException.class)
+            .hasMessageContaining("Expected a number for price")
+            .hasMessageContaining("line: 3");
+        assertThatThrownBy(() -> read("[{\"id\": 1, \"nameNl\": [\"A\"], \"price\": 1}]"))
+            .hasMessageContaining("Expected text for nameNl");
+        assertThatThrownBy(() -> read("\"products\""))
+            .hasMessageContaining("object or array");
+    }
+}
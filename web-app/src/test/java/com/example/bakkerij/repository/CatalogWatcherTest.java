@@ -0,0 +1,103 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.*;
+
+// The watchers only need to run for the duration of each try block
+@SuppressWarnings("try")
+class CatalogWatcherTest {
+
+    private static final Duration QUIET_PERIOD = Duration.ofMillis(50);
+
+    @TempDir
+    Path tempDir;
+
+    private static String catalog(double price) {
+        return "[{\"id\": 1, \"nameNl\": \"Brood\", \"price\": " + price + "}]";
+    }
+
+    // Watch events arrive asynchronously (and polled on some platforms), so wait for the outcome
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("waiting for the catalog to reload").isLessThan(deadline);
+            Thread.sleep(20);
+        }
+    }
+
+    private static double price(ProductRepository productRepository) {
+        return productRepository.findById(1).map(Product::getPrice).orElse(0.0);
+    }
+
+    @Test
+    void shouldReloadWhenTheFileIsRewritten() throws IOException, InterruptedException {
+        Path file = tempDir.resolve("catalog.json");
+        Files.writeString(file, catalog(2.50));
+        ProductRepository productRepository = new ProductRepository();
+        productRepository.loadProducts(file);
+
+        try (CatalogWatcher ignored = new CatalogWatcher(productRepository, file, QUIET_PERIOD)) {
+            Files.writeString(file, catalog(2.75));
+
+            waitFor(() -> price(productRepository) == 2.75);
+        }
+        assertThat(productRepository.getCatalogVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldReloadWhenANewFileIsMovedInPlace() throws IOException, InterruptedException {
+        Path file = tempDir.resolve("catalog.json");
+        Files.writeString(file, catalog(2.50));
+        ProductRepository productRepository = new ProductRepository();
+        productRepository.loadProducts(file);
+
+        try (CatalogWatcher ignored = new CatalogWatcher(productRepository, file, QUIET_PERIOD)) {
+            Path next = Files.writeString(tempDir.resolve("catalog.json.tmp"), catalog(3.10) + "\n");
+            Files.move(next, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            waitFor(() -> price(productRepository) == 3.10);
+        }
+    }
+
+    @Test
+    void shouldKeepTheCatalogUntilABrokenFileIsFixed() throws IOException, InterruptedException {
+        Path file = tempDir.resolve("catalog.json");
+        Files.writeString(file, catalog(2.50));
+        ProductRepository productRepository = new ProductRepository();
+        productRepository.loadProducts(file);
+
+        try (CatalogWatcher ignored = new CatalogWatcher(productRepository, file, QUIET_PERIOD)) {
+            Files.writeString(file, "[{\"id\": 1, \"nameNl\": \"Brood\", \"price\": ");
+            Thread.sleep(QUIET_PERIOD.toMillis() * 6);
+            assertThat(price(productRepository)).isEqualTo(2.50);
+
+            Files.writeString(file, catalog(2.95));
+            waitFor(() -> price(productRepository) == 2.95);
+        }
+        assertThat(productRepository.getCatalogVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldIgnoreOtherFilesInTheDirectory() throws IOException, InterruptedException {
+        Path file = tempDir.resolve("catalog.json");
+        Files.writeString(file, catalog(2.50));
+        ProductRepository productRepository = new ProductRepository();
+        productRepository.loadProducts(file);
+
+        try (CatalogWatcher ignored = new CatalogWatcher(productRepository, file, QUIET_PERIOD)) {
+            Files.writeString(tempDir.resolve("notes.txt"), "new rye bread next week");
+            Thread.sleep(QUIET_PERIOD.toMillis() * 6);
+        }
+        assertThat(productRepository.getCatalogVersion()).isEqualTo(1);
+    }
+}
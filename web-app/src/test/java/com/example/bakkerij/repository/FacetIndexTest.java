@@ -0,0 +1,134 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.model.LocalizedText;
+import com.example.bakkerij.model.Nutrition;
+import com.example.bakkerij.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FacetIndexTest {
+
+    private static Product product(int id, String category, String name, String ingredients, String allergens) {
+        return new Product(id, dutch(name), LocalizedText.EMPTY, 2.50, null, category, null, null,
+            dutch(ingredients), dutch(allergens), Nutrition.EMPTY, LocalizedText.EMPTY, LocalizedText.EMPTY);
+    }
+
+    private static LocalizedText dutch(String text) {
+        return new LocalizedText(text, null, null, null, null, null);
+    }
+
+    private static final FacetIndex INDEX = new FacetIndex(List.of(
+        product(1, "brood", "Wit Brood Groot", "Tarwebloem, water, gist", "Gluten (tarwe)"),
+        product(2, "brood", "Bruin Brood Klein", "Volkoren tarwemeel, water", "Gluten (tarwe)"),
+        product(3, "koek", "Chocoladekoek", "Tarwebloem, boter, chocolade, eieren", "Gluten, melk, ei"),
+        product(4, "koek", "Hazelnootkoek", "Rijstmeel, hazelnoot, suiker", "Noten")));
+
+    @Test
+    void shouldExcludeProductsContainingAnAllergen() {
+        FacetIndex.Result result = INDEX.filter("all", List.of(), List.of("lactose"));
+
+        assertThat(result.getProducts()).extracting(Product::getId).containsExactly(1, 2, 4);
+    }
+
+    @Test
+    void shouldCombineAllergensWithAnd() {
+        FacetIndex.Result result = INDEX.filter("all", List.of(), List.of("gluten", "nuts"));
+
+        assertThat(result.getProducts()).isEmpty();
+        assertThat(INDEX.filter("koek", List.of(), List.of("gluten")).getProducts())
+            .extracting(Product::getId).containsExactly(4);
+    }
+
+    @Test
+    void shouldCombineTagsWithOr() {
+        FacetIndex.Result result = INDEX.filter("all", List.of("white", "chocolate"), List.of());
+
+        assertThat(result.getProducts()).extracting(Product::getId).containsExactly(1, 3);
+    }
+
+    @Test
+    void shouldMatchTagsOnWordsAndWordPrefixes() {
+        assertThat(INDEX.filter("all", List.of("whole-grain"), List.of()).getProducts())
+            .extracting(Product::getId).containsExactly(2);
+        assertThat(INDEX.filter("all", List.of("nut"), List.of()).getProducts())
+            .extracting(Product::getId).containsExactly(4);
+        // "ei" is a whole word only, not the start of "eieren" or "ein"
+        assertThat(INDEX.filter("all", List.of(), List.of("eggs")).getProducts())
+            .extracting(Product::getId).containsExactly(1, 2, 4);
+    }
+
+    @Test
+    void shouldCountWhatEachFurtherFilterWouldLeave() {
+        FacetIndex.Result result = INDEX.filter("all", List.of("dark"), List.of("lactose"));
+
+        assertThat(result.getProducts()).extracting(Product::getId).containsExactly(2);
+        assertThat(result.getTagCounts()).containsEntry("white", 1).containsEntry("dark", 1)
+            .containsEntry("chocolate", 0).containsEntry("nut", 1);
+        assertThat(result.getTagCounts()).containsOnlyKeys(FacetIndex.TAGS);
+        assertThat(result.getAllergenFreeCounts()).containsEntry("gluten", 0).containsEntry("nuts", 1);
+        assertThat(result.getAllergenFreeCounts()).containsOnlyKeys(FacetIndex.ALLERGENS);
+    }
+
+    @Test
+    void shouldRestrictToCategory() {
+        assertThat(INDEX.filter("brood", List.of(), List.of()).getProducts())
+            .extracting(Product::getId).containsExactly(1, 2);
+        assertThat(INDEX.filter("taart", List.of(), List.of()).getProducts()).isEmpty();
+        assertThat(INDEX.filter("taart", List.of(), List.of()).getTagCounts()).containsEntry("white", 0);
+    }
+
+    @Test
+    void shouldRejectUnknownFilters() {
+        assertThatThrownBy(() -> INDEX.filter("all", List.of("purple"), List.of()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("purple");
+        assertThatThrownBy(() -> INDEX.filter("all", List.of(), List.of("gravel")))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldMatchChineseTermsInsideText() {
+        Product product = new Product(5, new LocalizedText("Brood", null, null, null, null, "全麦面包"),
+            LocalizedText.EMPTY, 2.50, null, "brood", null, null, LocalizedText.EMPTY,
+            new LocalizedText(null, null, null, null, null, "含麸质和牛奶"), Nutrition.EMPTY,
+            LocalizedText.EMPTY, LocalizedText.EMPTY);
+        FacetIndex index = new FacetIndex(List.of(product));
+
+        assertThat(index.filter("all", List.of("whole-grain"), List.of()).getProducts()).hasSize(1);
+        assertThat(index.filter("all", List.of(), List.of("lactose")).getProducts()).isEmpty();
+        assertThat(index.filter("all", List.of(), List.of("nuts")).getProducts()).hasSize(1);
+    }
+
+    @Test
+    void shouldNotMistakeWheatProteinForEggs() {
+        Product withProtein = new Product(6, dutch("Brood"), LocalizedText.EMPTY, 2.50, null, "brood", null, null,
+            new LocalizedText(null, null, null, null, null, "小麦粉、水、小麦蛋白、酵母"), LocalizedText.EMPTY,
+            Nutrition.EMPTY, LocalizedText.EMPTY, LocalizedText.EMPTY);
+        Product withYolk = new Product(7, dutch("Koek"), LocalizedText.EMPTY, 2.50, null, "koek", null, null,
+            new LocalizedText(null, null, null, null, null, "小麦粉、糖、蛋黄"), LocalizedText.EMPTY,
+            Nutrition.EMPTY, LocalizedText.EMPTY, LocalizedText.EMPTY);
+        FacetIndex index = new FacetIndex(List.of(withProtein, withYolk));
+
+        assertThat(index.filter("all", List.of(), List.of("eggs")).getProducts())
+            .extracting(Product::getId).containsExactly(6);
+    }
+
+    @Test
+    void shouldIndexTheShopCatalog() throws IOException {
+        List<Product> products = CatalogJson.read(getClass().getClassLoader().getResourceAsStream("bread_details.json"))
+            .getProducts();
+        FacetIndex index = new FacetIndex(products);
+
+        // The milk bread is the only product with milk; every bread contains wheat
+        assertThat(index.filter("brood", List.of(), List.of("lactose")).getProducts())
+            .extracting(Product::getId).doesNotContain(9).hasSize(products.size() - 1);
+        assertThat(index.filter("all", List.of(), List.of("gluten")).getProducts()).isEmpty();
+        // Sizes come from the name only, not from "des petits et des grands" in a description
+        assertThat(index.filter("all", List.of("small"), List.of()).getProducts())
+            .allMatch(product -> product.getNameNl().contains("Klein"));
+    }
+}
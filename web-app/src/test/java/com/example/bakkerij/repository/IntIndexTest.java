@@ -0,0 +1,46 @@
+package com.example.bakkerij.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+
+class IntIndexTest {
+
+    @Test
+    void shouldLookUpDenseIds() {
+        IntIndex<String> index = IntIndex.of(Map.of(1, "one", 2, "two", 9, "nine"));
+
+        assertThat(index.get(1)).isEqualTo("one");
+        assertThat(index.get(9)).isEqualTo("nine");
+        assertThat(index.get(3)).isNull();
+        assertThat(index.get(-1)).isNull();
+        assertThat(index.get(1000)).isNull();
+        assertThat(index.size()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldLookUpSparseIds() {
+        Map<Integer, String> entries = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            entries.put(i * 100_003, "p" + i);
+        }
+        entries.put(-42, "negative");
+
+        IntIndex<String> index = IntIndex.of(entries);
+
+        entries.forEach((key, value) -> assertThat(index.get(key)).isEqualTo(value));
+        assertThat(index.get(7)).isNull();
+        assertThat(index.size()).isEqualTo(1001);
+    }
+
+    @Test
+    void shouldHandleEmptyIndex() {
+        IntIndex<String> index = IntIndex.of(Map.of());
+
+        assertThat(index.get(0)).isNull();
+        assertThat(index.size()).isZero();
+    }
+}
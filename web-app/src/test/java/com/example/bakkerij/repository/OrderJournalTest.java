@@ -0,0 +1,163 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.model.Order;
+import com.example.bakkerij.model.OrderItem;
+import com.example.bakkerij.model.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderJournalTest {
+
+    private static final Product BROOD = createTestProduct(1, 2.50);
+    private static final Product KOEK = createTestProduct(2, 1.25);
+    private static final Map<Integer, Product> CATALOG = Map.of(1, BROOD, 2, KOEK);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldReplayOrdersAfterReopen() throws IOException {
+        Path file = tempDir.resolve("orders.journal");
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            journal.append("john", createOrder(1001, BROOD, 2));
+            journal.append("jane", createOrder(1002, KOEK, 5));
+        }
+
+        List<String> replayed = new ArrayList<>();
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            int count = journal.replay(this::lookup, (username, order) ->
+                    replayed.add(username + ":" + order.getOrderNumber() + ":" + order.getItems().get(0).getQuantity()));
+
+            assertThat(count).isEqualTo(2);
+        }
+        assertThat(replayed).containsExactly("john:1001:2", "jane:1002:5");
+    }
+
+    @Test
+    void shouldKeepAppendingAfterReopen() throws IOException {
+        Path file = tempDir.resolve("orders.journal");
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            journal.append("john", createOrder(1, BROOD, 1));
+        }
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            journal.append("john", createOrder(2, BROOD, 1));
+        }
+
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            List<Long> numbers = new ArrayList<>();
+            journal.replay(this::lookup, (username, order) -> numbers.add(order.getOrderNumber()));
+            assertThat(numbers).containsExactly(1L, 2L);
+        }
+    }
+
+    @Test
+    void shouldCutOffTornRecordAtTheEnd() throws IOException {
+        Path file = tempDir.resolve("orders.journal");
+        int endOfFirst;
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            journal.append("john", createOrder(1, BROOD, 1));
+            endOfFirst = journal.size();
+            journal.append("john", createOrder(2, BROOD, 1));
+        }
+        // Simulate a crash halfway through the second record: payload bytes damaged
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(endOfFirst + 12);
+            raf.writeInt(0xDEADBEEF);
+        }
+
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            assertThat(journal.size()).isEqualTo(endOfFirst);
+            journal.append("john", createOrder(3, KOEK, 1));
+
+            List<Long> numbers = new ArrayList<>();
+            journal.replay(this::lookup, (username, order) -> numbers.add(order.getOrderNumber()));
+            assertThat(numbers).containsExactly(1L, 3L);
+        }
+    }
+
+    @Test
+    void shouldGrowBeyondInitialMapping() throws IOException {
+        Path file = tempDir.resolve("orders.journal");
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10), 4096)) {
+            for (int i = 0; i < 2_000; i++) {
+                journal.append("user" + (i % 10), createOrder(i, BROOD, 1 + i % 3));
+            }
+        }
+
+        assertThat(Files.size(file)).isGreaterThan(4096);
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            assertThat(journal.replay(this::lookup, (username, order) -> { })).isEqualTo(2_000);
+        }
+    }
+
+    @Test
+    void shouldSkipLinesForProductsNoLongerInCatalog() throws IOException {
+        Path file = tempDir.resolve("orders.journal");
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            journal.append("john", new Order(1, "01/01/2026 10:00",
+                    List.of(new OrderItem(BROOD, 1), new OrderItem(createTestProduct(99, 1.0), 1)), 3.50));
+            journal.append("john", createOrder(2, createTestProduct(98, 1.0), 1));
+
+            List<Order> orders = new ArrayList<>();
+            int count = journal.replay(this::lookup, (username, order) -> orders.add(order));
+
+            assertThat(count).isEqualTo(1);
+            assertThat(orders.get(0).getItems()).hasSize(1);
+            assertThat(orders.get(0).getTotal()).isEqualTo(3.50);
+        }
+    }
+
+    @Test
+    void shouldRejectForeignFile() throws IOException {
+        Path file = tempDir.resolve("not-a-journal");
+        Files.writeString(file, "hello world");
+
+        assertThatThrownBy(() -> OrderJournal.open(file, Duration.ofMillis(10)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not an order journal");
+    }
+
+    @Test
+    void shouldRestoreRepositoryFromJournal() throws IOException {
+        Path file = tempDir.resolve("orders.journal");
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            OrderRepository repository = new OrderRepository(journal);
+            repository.addOrder("john", createOrder(1, BROOD, 1));
+            repository.addOrder("john", createOrder(2, KOEK, 3));
+        }
+
+        try (OrderJournal journal = OrderJournal.open(file, Duration.ofMillis(10))) {
+            OrderRepository restored = new OrderRepository(journal);
+            assertThat(restored.replayJournal(this::lookup)).isEqualTo(2);
+            assertThat(restored.findByUsername("john")).extracting(Order::getOrderNumber).containsExactly(2L, 1L);
+            assertThat(restored.findByOrderNumber("john", 2)).isPresent();
+        }
+    }
+
+    private Optional<Product> lookup(int id) {
+        return Optional.ofNullable(CATALOG.get(id));
+    }
+
+    private static Order createOrder(long orderNumber, Product product, int quantity) {
+        return new Order(orderNumber, "30/11/2025 12:00", List.of(new OrderItem(product, quantity)),
+                product.getPrice() * quantity);
+    }
+
+    private static Product createTestProduct(int id, double price) {
+        return new Product(id, "Brood", "Pain", "Bread", "Brot", "Pan", "面包",
+                "Desc", "Desc", "Desc", "Desc", "Desc", "Desc",
+                price, "image.jpg", "brood");
+    }
+}
@@ -6,6 +6,7 @@ import com.example.bakkerij.model.Product;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.*;
@@ -102,6 +103,123 @@ class OrderRepositoryTest {
         assertThat(orderRepository.hasOrderHistory(username)).isTrue();
     }
 
+    @Test
+    void shouldFindOrderByNumberForOwnerOnly() {
+        Order order = createTestOrder(12345);
+        orderRepository.addOrder("john", order);
+
+        assertThat(orderRepository.findByOrderNumber("john", 12345)).contains(order);
+        assertThat(orderRepository.findByOrderNumber("jane", 12345)).isEmpty();
+        assertThat(orderRepository.findByOrderNumber("john", 99999)).isEmpty();
+    }
+
+    @Test
+    void shouldKeepSameOrderNumberApartForDifferentUsers() {
+        Order johns = createTestOrder(1);
+        Order janes = createTestOrder(1);
+        orderRepository.setOrderHistory("john", List.of(johns));
+        orderRepository.setOrderHistory("jane", List.of(janes));
+
+        assertThat(orderRepository.findByOrderNumber("john", 1)).containsSame(johns);
+        assertThat(orderRepository.findByOrderNumber("jane", 1)).containsSame(janes);
+    }
+
+    @Test
+    void shouldReindexWhenHistoryIsReplaced() {
+        orderRepository.addOrder("john", createTestOrder(11111));
+
+        orderRepository.setOrderHistory("john", List.of(createTestOrder(22222)));
+
+        assertThat(orderRepository.findByOrderNumber("john", 11111)).isEmpty();
+        assertThat(orderRepository.findByOrderNumber("john", 22222)).isPresent();
+    }
+
+    @Test
+    void shouldForgetOrdersBeyondTheEndOfAReplacedHistory() {
+        orderRepository.setOrderHistory("john", List.of(createTestOrder(3), createTestOrder(2), createTestOrder(1)));
+
+        orderRepository.setOrderHistory("john", List.of(createTestOrder(22222)));
+
+        assertThat(orderRepository.findByOrderNumber("john", 3)).isEmpty();
+        assertThat(orderRepository.findByUsername("john")).extracting(Order::getOrderNumber).containsExactly(22222L);
+    }
+
+    @Test
+    void shouldReadPagesNewestFirst() {
+        for (int i = 1; i <= 250; i++) {
+            orderRepository.addOrder("wholesale", createTestOrder(i));
+        }
+
+        List<Order> firstPage = orderRepository.findPage("wholesale", 0, 20);
+        List<Order> lastPage = orderRepository.findPage("wholesale", 240, 20);
+
+        assertThat(orderRepository.countByUsername("wholesale")).isEqualTo(250);
+        assertThat(firstPage).hasSize(20);
+        assertThat(firstPage.get(0).getOrderNumber()).isEqualTo(250);
+        assertThat(lastPage).hasSize(10);
+        assertThat(lastPage.get(9).getOrderNumber()).isEqualTo(1);
+        assertThat(orderRepository.findPage("wholesale", 300, 20)).isEmpty();
+    }
+
+    @Test
+    void shouldPageBeforeAnOrderNumberWhileOrdersAreAdded() {
+        for (int i = 1; i <= 7; i++) {
+            orderRepository.addOrder("john", createTestOrder(i));
+        }
+        List<Order> firstPage = orderRepository.findPage("john", 0, 3);
+
+        orderRepository.addOrder("john", createTestOrder(8));
+        List<Order> secondPage = orderRepository.findPageBefore("john", firstPage.get(2).getOrderNumber(), 3);
+
+        assertThat(firstPage).extracting(Order::getOrderNumber).containsExactly(7L, 6L, 5L);
+        assertThat(secondPage).extracting(Order::getOrderNumber).containsExactly(4L, 3L, 2L);
+        assertThat(orderRepository.findPageBefore("john", 2, 3)).extracting(Order::getOrderNumber).containsExactly(1L);
+        assertThat(orderRepository.findPageBefore("john", 1, 3)).isEmpty();
+        assertThat(orderRepository.findPageBefore("john", 99, 3)).isEmpty();
+        assertThat(orderRepository.findPageBefore("jane", 5, 3)).isEmpty();
+    }
+
+    @Test
+    void shouldNotPageBeforeANumberLeftBehindByAReplacedHistory() {
+        orderRepository.setOrderHistory("john", List.of(createTestOrder(3), createTestOrder(2), createTestOrder(1)));
+
+        orderRepository.setOrderHistory("john", List.of(createTestOrder(22222)));
+
+        assertThat(orderRepository.findPageBefore("john", 3, 3)).isEmpty();
+    }
+
+    @Test
+    void shouldNotChangePreviouslyReturnedHistory() {
+        orderRepository.addOrder("john", createTestOrder(1));
+        List<Order> before = orderRepository.findByUsername("john");
+
+        orderRepository.addOrder("john", createTestOrder(2));
+
+        assertThat(before).extracting(Order::getOrderNumber).containsExactly(1L);
+        assertThatThrownBy(() -> before.add(createTestOrder(3)))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void shouldKeepAllConcurrentlyAddedOrders() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int base = t * 1_000;
+            threads.add(new Thread(() -> {
+                for (int i = 1; i <= 1_000; i++) {
+                    orderRepository.addOrder("john", createTestOrder(base + i));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(orderRepository.countByUsername("john")).isEqualTo(8_000);
+        assertThat(orderRepository.findByOrderNumber("john", 7_500)).isPresent();
+    }
+
     private Order createTestOrder(int orderNumber) {
         Product product = new Product(1, "Brood", "Brood", "Brood", "Brood", "Brood", "Brood",
                 "Desc", "Desc", "Desc", "Desc", "Desc", "Desc",
@@ -1,11 +1,21 @@
 package com.example.bakkerij.repository;
 
 import com.example.bakkerij.model.Product;
+import com.example.bakkerij.model.ProductDetails;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -78,6 +88,23 @@ class ProductRepositoryTest {
         assertThat(json).contains("\"price\"");
     }
 
+    @Test
+    void shouldFindPreparedProductDetailsById() {
+        int firstProductId = productRepository.findAll().get(0).getId();
+
+        Optional<ProductDetails> details = productRepository.findDetailsById(firstProductId);
+
+        assertThat(details).isPresent();
+        assertThat(details.get().getJsonString()).contains("\"allergensNl\"");
+        assertThat(details.get().getEtag()).isNotBlank();
+        assertThat(productRepository.findDetailsById(999999)).isEmpty();
+    }
+
+    @Test
+    void shouldReturnNullForNonNumericDetailsId() {
+        assertThat(productRepository.getProductDetailsJson("abc")).isNull();
+    }
+
     @Test
     void shouldReturnNullForInvalidId() {
         String json = productRepository.getProductDetailsJson("999999");
@@ -103,4 +130,103 @@ class ProductRepositoryTest {
 
         assertThat(products).allMatch(p -> p.getPrice() >= 0);
     }
+
+    @Test
+    void shouldReplaceCatalogOnReload() {
+        int count = productRepository.findAll().size();
+
+        productRepository.loadProducts("bread_details.json");
+
+        assertThat(productRepository.findAll()).hasSize(count);
+    }
+
+    @Test
+    void shouldReturnImmutableProductLists() {
+        List<Product> products = productRepository.findAll();
+
+        assertThatThrownBy(() -> products.add(products.get(0)))
+                .isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    void shouldBumpCatalogVersionOnReload() {
+        long version = productRepository.getCatalogVersion();
+
+        productRepository.loadProducts("bread_details.json");
+
+        assertThat(productRepository.getCatalogVersion()).isGreaterThan(version);
+    }
+
+    @Test
+    void shouldKeepCurrentCatalogWhenReloadFails() {
+        List<Product> products = productRepository.findAll();
+        long version = productRepository.getCatalogVersion();
+        byte[] broken = "{\"1\": {\"id\": 1, \"price\": 2}}".getBytes(StandardCharsets.UTF_8);
+
+        productRepository.loadProducts(new ByteArrayInputStream(broken), "broken.json");
+
+        assertThat(productRepository.findAll()).isSameAs(products);
+        assertThat(productRepository.getCatalogVersion()).isEqualTo(version);
+    }
+
+    @Test
+    void shouldKeepFullProductDetails() {
+        Product product = productRepository.findById(1).orElseThrow();
+
+        assertThat(product.getWeight()).isNotBlank();
+        assertThat(product.getAllergens().get("de")).isNotBlank();
+        assertThat(product.getNutrition().getEnergy()).contains("kcal");
+    }
+
+    @Test
+    void shouldLoadCatalogFromFile(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("catalog.json");
+        Files.writeString(file, "[{\"id\": 42, \"nameNl\": \"Spelt\", \"price\": 4.10}]");
+
+        assertThat(productRepository.loadProducts(file)).isTrue();
+
+        assertThat(productRepository.findAll()).extracting(Product::getId).containsExactly(42);
+        assertThat(productRepository.loadProducts(tempDir.resolve("missing.json"))).isFalse();
+        assertThat(productRepository.findAll()).extracting(Product::getId).containsExactly(42);
+    }
+
+    @Test
+    void shouldServeWholeCatalogsWhileReloading() throws InterruptedException {
+        byte[] small = "[{\"id\": 1, \"nameNl\": \"A\", \"price\": 1}]".getBytes(StandardCharsets.UTF_8);
+        byte[] large = ("[{\"id\": 1, \"nameNl\": \"A\", \"price\": 2}, "
+            + "{\"id\": 2, \"nameNl\": \"B\", \"price\": 2}]").getBytes(StandardCharsets.UTF_8);
+        productRepository.loadProducts(new ByteArrayInputStream(small), "catalog");
+        AtomicBoolean loading = new AtomicBoolean(true);
+        List<String> problems = new CopyOnWriteArrayList<>();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            readers.add(new Thread(() -> {
+                long lastVersion = 0;
+                while (loading.get()) {
+                    long version = productRepository.getCatalogVersion();
+                    List<Product> products = productRepository.findAll();
+                    // Every product of a list comes from the same load: the small catalog prices at 1, the large at 2
+                    double price = products.get(0).getPrice();
+                    if (products.size() != (int) price || products.stream().anyMatch(p -> p.getPrice() != price)) {
+                        problems.add("mixed catalog " + products);
+                    }
+                    if (version < lastVersion) {
+                        problems.add("version went back from " + lastVersion + " to " + version);
+                    }
+                    lastVersion = version;
+                }
+            }));
+        }
+        readers.forEach(Thread::start);
+        for (int i = 0; i < 200; i++) {
+            productRepository.loadProducts(new ByteArrayInputStream(i % 2 == 0 ? small : large), "catalog " + i);
+        }
+        loading.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertThat(problems).isEmpty();
+    }
 }
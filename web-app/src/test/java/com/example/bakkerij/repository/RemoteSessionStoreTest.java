@@ -0,0 +1,233 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.model.Address;
+import com.example.bakkerij.model.Cart;
+import com.example.bakkerij.model.Order;
+import com.example.bakkerij.model.OrderItem;
+import com.example.bakkerij.model.PickupSlot;
+import com.example.bakkerij.model.Product;
+import com.example.bakkerij.store.KeyValueClient;
+import com.example.bakkerij.store.KeyValueServer;
+import com.example.bakkerij.util.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RemoteSessionStoreTest {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofHours(1);
+
+    private KeyValueServer server;
+    private KeyValueClient client;
+
+    @BeforeEach
+    void setUp() {
+        server = KeyValueServer.start(0, 10_000);
+        client = new KeyValueClient(URI.create("http://localhost:" + server.port()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    // One provider per simulated node, so each has its own near cache
+    private SessionStoreProvider node() {
+        return SessionStoreProvider.remote(client, Duration.ZERO);
+    }
+
+    @Test
+    void shouldSeeCartChangesMadeOnAnotherNode() {
+        CartRepository first = new CartRepository(node(), IDLE_TIMEOUT, 100, Metrics.disabled());
+        CartRepository second = new CartRepository(node(), IDLE_TIMEOUT, 100, Metrics.disabled());
+
+        first.updateCart("session123", cart -> cart.addItem(1, 2));
+        second.updateCart("session123", cart -> cart.addItem(2, 1));
+
+        Cart cart = first.findCart("session123").orElseThrow();
+        assertThat(cart.getQuantity(1)).isEqualTo(2);
+        assertThat(cart.getQuantity(2)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCreateCartsOnLookup() {
+        CartRepository repository = new CartRepository(node(), IDLE_TIMEOUT, 100, Metrics.disabled());
+
+        assertThat(repository.findCart("unknown")).isEmpty();
+        repository.clearCart("unknown");
+
+        assertThat(server.size()).isZero();
+    }
+
+    @Test
+    void shouldClearAndRemoveCartsForAllNodes() {
+        CartRepository first = new CartRepository(node(), IDLE_TIMEOUT, 100, Metrics.disabled());
+        CartRepository second = new CartRepository(node(), IDLE_TIMEOUT, 100, Metrics.disabled());
+        first.updateCart("a", cart -> cart.addItem(1, 1));
+        first.updateCart("b", cart -> cart.addItem(1, 1));
+        second.findCart("a");
+        second.findCart("b");
+
+        first.clearCart("a");
+        first.removeCart("b");
+
+        assertThat(second.findCart("a")).hasValueSatisfying(cart -> assertThat(cart.isEmpty()).isTrue());
+        assertThat(second.findCart("b")).isEmpty();
+    }
+
+    @Test
+    void shouldShareSessionStateBetweenNodes() {
+        UserRepository first = new UserRepository(node(), IDLE_TIMEOUT, 100, Metrics.disabled());
+        UserRepository second = new UserRepository(node(), IDLE_TIMEOUT, 100, Metrics.disabled());
+
+        first.login("session123", "john");
+        second.savePickupSlot("session123", new PickupSlot("2024-01-15", "10:00"));
+        first.saveLastPaymentMethod("session123", "ideal");
+
+        assertThat(second.getUsername("session123")).isEqualTo(Optional.of("john"));
+        assertThat(first.getPickupSlot("session123")).hasValue(new PickupSlot("2024-01-15", "10:00"));
+        assertThat(second.getLastPaymentMethod("session123")).isEqualTo("ideal");
+
+        second.logout("session123");
+
+        assertThat(first.isLoggedIn("session123")).isFalse();
+        assertThat(first.getPickupSlot("session123")).hasValue(new PickupSlot("2024-01-15", "10:00"));
+    }
+
+    @Test
+    void shouldShareAddressesBetweenNodes() {
+        UserRepository first = new UserRepository(node(), IDLE_TIMEOUT, 100, Metrics.disabled());
+        UserRepository second = new UserRepository(node(), IDLE_TIMEOUT, 100, Metrics.disabled());
+
+        first.saveAddress("john", new Address("Bakkerstraat 1", "1234AB", "Gent", null));
+        assertThat(second.getAddress("john")).hasValue(new Address("Bakkerstraat 1", "1234AB", "Gent", null));
+
+        second.saveAddress("john", new Address("Molenweg 2", "5678CD", "Brugge", "België"));
+        assertThat(first.getAddress("john")).hasValue(new Address("Molenweg 2", "5678CD", "Brugge", "België"));
+        assertThat(first.getAddress("jane")).isEmpty();
+    }
+
+    @Test
+    void shouldShareOrderHistoriesBetweenNodes() {
+        Product bread = new Product(1, "Brood", "Pain", "Bread", "Brot", "Pan", "面包",
+                "Desc", "Desc", "Desc", "Desc", "Desc", "Desc", 2.50, "image.jpg", "brood");
+        OrderRepository first = new OrderRepository(node(), null, Metrics.disabled());
+        OrderRepository second = new OrderRepository(node(), null, Metrics.disabled());
+
+        first.setOrderHistory("john", List.of(new Order(2, "2024-01-02", List.of(new OrderItem(bread, 3)), 7.50)));
+        second.addOrder("john", new Order(10_003, "2024-01-03", List.of(new OrderItem(bread, 1)), 2.50));
+
+        assertThat(first.findByUsername("john")).extracting(Order::getOrderNumber).containsExactly(10_003L, 2L);
+        assertThat(second.findByOrderNumber("john", 2)).hasValueSatisfying(order -> {
+            assertThat(order.getItems()).containsExactly(new OrderItem(bread, 3));
+            assertThat(order.getTotal()).isEqualTo(7.50);
+        });
+        assertThat(second.hasOrderHistory("jane")).isFalse();
+    }
+
+    @Test
+    void shouldKeepOrderLinesAsTheyWereOrdered() {
+        Product bread = new Product(1, "Brood", null, "Bread", null, null, "面包",
+                "Desc", "Desc", "Desc", "Desc", "Desc", "Desc", 2.50, "image.jpg", "brood");
+        new OrderRepository(node(), null, Metrics.disabled())
+            .addOrder("john", new Order(10_003, "2024-01-03", List.of(new OrderItem(bread, 4)), 10.00));
+
+        Product stored = new OrderRepository(node(), null, Metrics.disabled())
+            .findByOrderNumber("john", 10_003).orElseThrow().getItems().get(0).getProduct();
+
+        assertThat(stored.getId()).isEqualTo(1);
+        assertThat(stored.getNameEn()).isEqualTo("Bread");
+        assertThat(stored.getNameFr()).isNull();
+        assertThat(stored.getNameZh()).isEqualTo("面包");
+        assertThat(stored.getPrice()).isEqualTo(2.50);
+        assertThat(stored.getImage()).isEqualTo("image.jpg");
+    }
+
+    @Test
+    void shouldStoreEachOrderUnderItsOwnKey() {
+        OrderRepository repository = new OrderRepository(node(), null, Metrics.disabled());
+        Product bread = new Product(1, "Brood", "Brood", "Brood", "Brood", "Brood", "Brood",
+                "Desc", "Desc", "Desc", "Desc", "Desc", "Desc", 2.50, "image.jpg", "brood");
+        repository.addOrder("john", new Order(10_001, "2024-01-01", List.of(new OrderItem(bread, 1)), 2.50));
+        KeyValueClient.Versioned oldest = client.get("orders/john/0", 0);
+
+        repository.addOrder("john", new Order(10_002, "2024-01-02", List.of(new OrderItem(bread, 1)), 2.50));
+
+        assertThat(client.get("orders/john/0", oldest.getVersion()).getValue()).isNull(); // not modified
+        assertThat(client.get("orders/john/1", 0)).isNotNull();
+        assertThat(repository.findPage("john", 0, 1)).extracting(Order::getOrderNumber).containsExactly(10_002L);
+    }
+
+    @Test
+    void shouldNotLoseConcurrentUpdatesFromDifferentNodes() throws Exception {
+        int nodes = 4;
+        int addsPerNode = 50;
+        List<RemoteSessionStore<Cart>> stores = new ArrayList<>();
+        for (int i = 0; i < nodes; i++) {
+            stores.add(new RemoteSessionStore<>(client, "carts", CartRepository.CODEC, IDLE_TIMEOUT, 100,
+                Duration.ZERO, Metrics.disabled()));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(nodes);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (RemoteSessionStore<Cart> store : stores) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < addsPerNode; i++) {
+                        store.update("shared", Cart::new, cart -> cart.addItem(1, 1));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(stores.get(0).find("shared")).hasValueSatisfying(
+            cart -> assertThat(cart.getQuantity(1)).isEqualTo(nodes * addsPerNode));
+    }
+
+    @Test
+    void shouldServeRecentlyValidatedValuesFromTheNearCache() {
+        RemoteSessionStore<Cart> writer = new RemoteSessionStore<>(client, "carts", CartRepository.CODEC,
+            IDLE_TIMEOUT, 100, Duration.ZERO, Metrics.disabled());
+        RemoteSessionStore<Cart> reader = new RemoteSessionStore<>(client, "carts", CartRepository.CODEC,
+            IDLE_TIMEOUT, 100, Duration.ofHours(1), Metrics.disabled());
+        writer.update("session123", Cart::new, cart -> cart.addItem(1, 1));
+        assertThat(reader.find("session123")).hasValueSatisfying(cart -> assertThat(cart.getQuantity(1)).isEqualTo(1));
+
+        writer.update("session123", Cart::new, cart -> cart.addItem(1, 1));
+
+        // Within maxStaleness the reader does not ask the store, and never sees a half-applied change
+        assertThat(reader.find("session123")).hasValueSatisfying(cart -> assertThat(cart.getQuantity(1)).isEqualTo(1));
+        assertThat(writer.find("session123")).hasValueSatisfying(cart -> assertThat(cart.getQuantity(1)).isEqualTo(2));
+    }
+
+    @Test
+    void shouldCapTheNearCache() {
+        RemoteSessionStore<Cart> store = new RemoteSessionStore<>(client, "carts", CartRepository.CODEC,
+            IDLE_TIMEOUT, 10, Duration.ZERO, Metrics.disabled());
+
+        for (int i = 0; i < 25; i++) {
+            store.update("session" + i, Cart::new, cart -> cart.addItem(1, 1));
+        }
+
+        assertThat(store.size()).isLessThanOrEqualTo(10);
+        assertThat(store.getEvictedCount()).isPositive();
+        assertThat(server.size()).isEqualTo(25);
+        assertThat(store.find("session0")).isPresent();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.bakkerij.repository;
+
+import com.example.bakkerij.model.LocalizedText;
+import com.example.bakkerij.model.Nutrition;
+import com.example.bakkerij.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SearchIndexTest {
+
+    private static Product product(int id, LocalizedText name, LocalizedText description) {
+        return new Product(id, name, description, 2.50, null, "brood", null, null,
+            LocalizedText.EMPTY, LocalizedText.EMPTY, Nutrition.EMPTY, LocalizedText.EMPTY, LocalizedText.EMPTY);
+    }
+
+    private static final SearchIndex INDEX = new SearchIndex(List.of(
+        product(1, new LocalizedText("Volkoren Brood", "Pain complet", "Wholemeal bread", "Vollkornbrot", "Pan integral", "全麦面包"),
+            new LocalizedText("Steviger dan witbrood", "Pain de blé", "Hearty wheat bread", "Kräftiges Weizenbrot", "Pan de trigo", "小麦面包")),
+        product(2, new LocalizedText("Crème Pâtissière", "Crème pâtissière", "Custard cream", "Süße Creme", "Crema pastelera", "奶油"),
+            new LocalizedText("Zoete room voor volkoren taartjes", null, "Sweet cream", "Für Straßenfeste", "Crema dulce", "甜奶油")),
+        product(3, new LocalizedText("Witbrood", null, "White bread", null, null, null), LocalizedText.EMPTY)));
+
+    private static List<Integer> ids(SearchIndex.Result result) {
+        return result.getProducts().stream().map(Product::getId).toList();
+    }
+
+    @Test
+    void shouldMatchWordPrefixes() {
+        assertThat(ids(INDEX.search("volk", "nl", 10))).containsExactly(1, 2);
+        assertThat(ids(INDEX.search("brood", "nl", 10))).containsExactly(1);
+        assertThat(ids(INDEX.search("witb", "nl", 10))).containsExactly(3, 1);
+        assertThat(ids(INDEX.search("rood", "nl", 10))).isEmpty();
+    }
+
+    @Test
+    void shouldRequireEveryWord() {
+        assertThat(ids(INDEX.search("volkoren taart", "nl", 10))).containsExactly(2);
+        assertThat(ids(INDEX.search("volkoren witbrood", "nl", 10))).containsExactly(1);
+        assertThat(ids(INDEX.search("taart witbrood", "nl", 10))).isEmpty();
+    }
+
+    @Test
+    void shouldRankNameMatchesFirst() {
+        assertThat(ids(INDEX.search("volkoren", "nl", 10))).containsExactly(1, 2);
+        assertThat(ids(INDEX.search("witbrood", "nl", 10))).containsExactly(3, 1);
+    }
+
+    @Test
+    void shouldIgnoreCaseAndAccents() {
+        assertThat(ids(INDEX.search("CREME PATIS", "fr", 10))).containsExactly(2);
+        assertThat(ids(INDEX.search("suss", "de", 10))).containsExactly(2);
+        assertThat(ids(INDEX.search("strasse", "de", 10))).containsExactly(2);
+        assertThat(ids(INDEX.search("Crème", "es", 10))).isEmpty();
+        assertThat(ids(INDEX.search("crema", "es", 10))).containsExactly(2);
+    }
+
+    @Test
+    void shouldSearchTheRequestedLanguage() {
+        assertThat(ids(INDEX.search("pain", "fr", 10))).containsExactly(1);
+        assertThat(ids(INDEX.search("pain", "nl", 10))).isEmpty();
+        // Missing translations are shown, and found, in Dutch
+        assertThat(ids(INDEX.search("witbrood", "fr", 10))).containsExactly(3);
+        assertThat(ids(INDEX.search("witbrood", "xx", 10))).containsExactly(3, 1);
+    }
+
+    @Test
+    void shouldMatchChineseWithoutSpaces() {
+        assertThat(ids(INDEX.search("面包", "zh", 10))).containsExactly(1);
+        assertThat(ids(INDEX.search("奶", "zh", 10))).containsExactly(2);
+        assertThat(ids(INDEX.search("麦面", "zh", 10))).containsExactly(1);
+        assertThat(ids(INDEX.search("甜奶油", "zh", 10))).containsExactly(2);
+        assertThat(ids(INDEX.search("面奶", "zh", 10))).isEmpty();
+    }
+
+    @Test
+    void shouldLimitResultsButCountAll() {
+        List<Product> products = new ArrayList<>();
+        for (int id = 1; id <= 30; id++) {
+            products.add(product(id, new LocalizedText("Brood " + id, null, null, null, null, null), LocalizedText.EMPTY));
+        }
+        SearchIndex index = new SearchIndex(products);
+
+        SearchIndex.Result result = index.search("bro", "nl", 8);
+
+        assertThat(ids(result)).containsExactly(1, 2, 3, 4, 5, 6, 7, 8);
+        assertThat(result.getTotal()).isEqualTo(30);
+        assertThat(ids(index.search("brood 17", "nl", 8))).containsExactly(17);
+    }
+
+    @Test
+    void shouldReturnNothingForEmptyQueries() {
+        assertThat(INDEX.search("", "nl", 10).getProducts()).isEmpty();
+        assertThat(INDEX.search("  - ", "nl", 10).getTotal()).isZero();
+        assertThat(SearchIndex.EMPTY.search("brood", "nl", 10).getProducts()).isEmpty();
+    }
+}
@@ -1,11 +1,13 @@
 package com.example.bakkerij.repository;
 
 import com.example.bakkerij.model.Address;
+import com.example.bakkerij.model.PickupSlot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.Map;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -88,18 +90,26 @@ class UserRepositoryTest {
         String date = "01/12/2025";
         String time = "10:00";
 
-        userRepository.savePickupDetails(sessionId, date, time);
+        userRepository.savePickupSlot(sessionId, new PickupSlot(date, time));
 
-        Map<String, String> details = userRepository.getPickupDetails(sessionId);
-        assertThat(details).containsEntry("date", date);
-        assertThat(details).containsEntry("time", time);
+        assertThat(userRepository.getPickupSlot(sessionId)).contains(new PickupSlot(date, time));
     }
 
     @Test
-    void shouldReturnNullForSessionWithoutPickupDetails() {
-        Map<String, String> details = userRepository.getPickupDetails("nonexistent");
+    void shouldReturnEmptyForSessionWithoutPickupDetails() {
+        assertThat(userRepository.getPickupSlot("nonexistent")).isEmpty();
+    }
+
+    @Test
+    void shouldKeepPickupDetailsAfterLogout() {
+        String sessionId = "session123";
+        userRepository.login(sessionId, "john");
+        userRepository.savePickupSlot(sessionId, new PickupSlot("01/12/2025", "10:00"));
+
+        userRepository.logout(sessionId);
 
-        assertThat(details).isNull();
+        assertThat(userRepository.isLoggedIn(sessionId)).isFalse();
+        assertThat(userRepository.getPickupSlot(sessionId)).isPresent();
     }
 
     @Test
@@ -122,13 +132,11 @@ class UserRepositoryTest {
     @Test
     void shouldOverwritePickupDetails() {
         String sessionId = "session123";
-        userRepository.savePickupDetails(sessionId, "01/12/2025", "10:00");
+        userRepository.savePickupSlot(sessionId, new PickupSlot("01/12/2025", "10:00"));
 
-        userRepository.savePickupDetails(sessionId, "02/12/2025", "14:00");
+        userRepository.savePickupSlot(sessionId, new PickupSlot("02/12/2025", "14:00"));
 
-        Map<String, String> details = userRepository.getPickupDetails(sessionId);
-        assertThat(details).containsEntry("date", "02/12/2025");
-        assertThat(details).containsEntry("time", "14:00");
+        assertThat(userRepository.getPickupSlot(sessionId)).contains(new PickupSlot("02/12/2025", "14:00"));
     }
 
     @Test
@@ -141,4 +149,67 @@ class UserRepositoryTest {
         String method = userRepository.getLastPaymentMethod(sessionId);
         assertThat(method).isEqualTo("cash");
     }
+
+    @Test
+    void shouldExpireIdleSessions() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        UserRepository repository = new UserRepository(Duration.ofHours(1), 100, now::get);
+        repository.login("idle", "john");
+        repository.login("active", "jane");
+        repository.saveLastPaymentMethod("idle", "card");
+
+        now.addAndGet(Duration.ofMinutes(50).toMillis());
+        repository.getUsername("active");
+        now.addAndGet(Duration.ofMinutes(20).toMillis());
+
+        assertThat(repository.isLoggedIn("idle")).isFalse();
+        assertThat(repository.getLastPaymentMethod("idle")).isEmpty();
+        assertThat(repository.getUsername("active")).contains("jane");
+        assertThat(repository.getEvictedSessionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldSweepIdleSessions() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        UserRepository repository = new UserRepository(Duration.ofHours(1), 100, now::get);
+        repository.login("a", "john");
+        repository.savePickupSlot("b", new PickupSlot("01/12/2025", "10:00"));
+
+        now.addAndGet(Duration.ofHours(2).toMillis());
+
+        assertThat(repository.evictExpired()).isEqualTo(2);
+        assertThat(repository.getLiveSessionCount()).isZero();
+    }
+
+    @Test
+    void shouldKeepAddressesWhenSessionsExpire() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        UserRepository repository = new UserRepository(Duration.ofHours(1), 100, now::get);
+        Address address = new Address("Main St 123", "1234AB", "Amsterdam", "NL");
+        repository.login("session123", "john");
+        repository.saveAddress("john", address);
+
+        now.addAndGet(Duration.ofHours(2).toMillis());
+        repository.evictExpired();
+
+        assertThat(repository.getAddress("john")).contains(address);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedSessionsWhenFull() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        UserRepository repository = new UserRepository(Duration.ofDays(30), 10, now::get);
+        for (int i = 0; i < 10; i++) {
+            repository.login("session" + i, "user" + i);
+            now.addAndGet(5_000);
+        }
+        repository.getUsername("session0"); // recently used again
+
+        repository.login("newcomer", "jane");
+
+        assertThat(repository.getLiveSessionCount()).isLessThanOrEqualTo(10);
+        assertThat(repository.isLoggedIn("session0")).isTrue();
+        assertThat(repository.isLoggedIn("newcomer")).isTrue();
+        assertThat(repository.isLoggedIn("session1")).isFalse();
+    }
 }
@@ -0,0 +1,86 @@
+package com.example.bakkerij.service;
+
+import com.example.bakkerij.repository.CartRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CartServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ADDS_PER_THREAD = 5_000;
+
+    private CartService cartService;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        cartService = new CartService(new CartRepository(), mock(ProductService.class));
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void shouldNotLoseIncrementsOnSameSession() throws Exception {
+        runConcurrently(thread -> {
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                cartService.addToCart("shared", 1 + (i % 3), 1);
+            }
+        });
+
+        assertThat(cartService.getCartCount("shared")).isEqualTo(THREADS * ADDS_PER_THREAD);
+    }
+
+    @Test
+    void shouldNotLoseCartsOrIncrementsAcrossSessions() throws Exception {
+        int sessions = 200;
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                cartService.addToCart("session-" + (i % sessions), thread, 1);
+            }
+        });
+
+        int total = 0;
+        for (int s = 0; s < sessions; s++) {
+            total += cartService.getCartCount("session-" + s);
+        }
+        assertThat(total).isEqualTo(THREADS * ADDS_PER_THREAD);
+    }
+
+    private void runConcurrently(ThreadBody body) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                body.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+    }
+
+    private interface ThreadBody {
+        void run(int thread);
+    }
+}
@@ -13,6 +13,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,16 +34,25 @@ class CartServiceTest {
         cartService = new CartService(cartRepository, productService);
     }
 
+    // Applies the change the service passes to updateCart to the given cart
+    @SuppressWarnings("unchecked")
+    private void stubUpdateCart(String sessionId, Cart cart) {
+        when(cartRepository.updateCart(eq(sessionId), any())).thenAnswer(invocation -> {
+            invocation.getArgument(1, Consumer.class).accept(cart);
+            return cart;
+        });
+    }
+
     @Test
     void shouldAddItemToCart() {
         String sessionId = "session123";
         Cart cart = new Cart();
-        when(cartRepository.getCart(sessionId)).thenReturn(cart);
+        stubUpdateCart(sessionId, cart);
 
         cartService.addToCart(sessionId, 1, 2);
 
         assertThat(cart.getQuantity(1)).isEqualTo(2);
-        verify(cartRepository).getCart(sessionId);
+        verify(cartRepository).updateCart(eq(sessionId), any());
     }
 
     @Test
@@ -50,7 +60,7 @@ class CartServiceTest {
         String sessionId = "session123";
         Cart cart = new Cart();
         cart.addItem(1, 5);
-        when(cartRepository.getCart(sessionId)).thenReturn(cart);
+        stubUpdateCart(sessionId, cart);
 
         cartService.updateCartItem(sessionId, 1, 3);
 
@@ -62,7 +72,7 @@ class CartServiceTest {
         String sessionId = "session123";
         Cart cart = new Cart();
         cart.addItem(1, 5);
-        when(cartRepository.getCart(sessionId)).thenReturn(cart);
+        stubUpdateCart(sessionId, cart);
 
         cartService.removeFromCart(sessionId, 1);
 
@@ -75,7 +85,7 @@ class CartServiceTest {
         Cart cart = new Cart();
         cart.addItem(1, 2);
         cart.addItem(2, 3);
-        when(cartRepository.getCart(sessionId)).thenReturn(cart);
+        when(cartRepository.findCart(sessionId)).thenReturn(Optional.of(cart));
 
         int count = cartService.getCartCount(sessionId);
 
@@ -92,7 +102,7 @@ class CartServiceTest {
         Product product1 = createTestProduct(1, "Brood", 2.50);
         Product product2 = createTestProduct(2, "Croissant", 1.50);
 
-        when(cartRepository.getCart(sessionId)).thenReturn(cart);
+        when(cartRepository.findCart(sessionId)).thenReturn(Optional.of(cart));
         when(productService.getProductById(1)).thenReturn(Optional.of(product1));
         when(productService.getProductById(2)).thenReturn(Optional.of(product2));
 
@@ -113,7 +123,7 @@ class CartServiceTest {
         Product product1 = createTestProduct(1, "Brood", 2.50);
         Product product2 = createTestProduct(2, "Croissant", 1.50);
 
-        when(cartRepository.getCart(sessionId)).thenReturn(cart);
+        when(cartRepository.findCart(sessionId)).thenReturn(Optional.of(cart));
         when(productService.getProductById(1)).thenReturn(Optional.of(product1));
         when(productService.getProductById(2)).thenReturn(Optional.of(product2));
 
@@ -129,7 +139,7 @@ class CartServiceTest {
         cart.addItem(1, 2);
 
         Product product = createTestProduct(1, "Brood", 2.50);
-        when(cartRepository.getCart(sessionId)).thenReturn(cart);
+        when(cartRepository.findCart(sessionId)).thenReturn(Optional.of(cart));
         when(productService.getProductById(1)).thenReturn(Optional.of(product));
 
         List<OrderItem> items = cartService.getOrderItems(sessionId);
@@ -152,7 +162,7 @@ class CartServiceTest {
     void shouldCheckIfCartIsEmpty() {
         String sessionId = "session123";
         Cart emptyCart = new Cart();
-        when(cartRepository.getCart(sessionId)).thenReturn(emptyCart);
+        when(cartRepository.findCart(sessionId)).thenReturn(Optional.of(emptyCart));
 
         boolean isEmpty = cartService.isCartEmpty(sessionId);
 
@@ -164,13 +174,22 @@ class CartServiceTest {
         String sessionId = "session123";
         Cart cart = new Cart();
         cart.addItem(1, 2);
-        when(cartRepository.getCart(sessionId)).thenReturn(cart);
+        when(cartRepository.findCart(sessionId)).thenReturn(Optional.of(cart));
 
         boolean isEmpty = cartService.isCartEmpty(sessionId);
 
         assertThat(isEmpty).isFalse();
     }
 
+    @Test
+    void shouldNotCreateCartWhenCountingUnknownSession() {
+        when(cartRepository.findCart("unknown")).thenReturn(Optional.empty());
+
+        assertThat(cartService.getCartCount("unknown")).isZero();
+        assertThat(cartService.getCartItems("unknown")).isEmpty();
+        verify(cartRepository, never()).updateCart(anyString(), any());
+    }
+
     private Product createTestProduct(int id, String name, double price) {
         return new Product(id, name, name, name, name, name, name,
                 "Desc", "Desc", "Desc", "Desc", "Desc", "Desc",
@@ -0,0 +1,92 @@
+package com.example.bakkerij.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OrderNumberGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldHandOutIncreasingNumbers() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(0);
+
+        long first = generator.next();
+        long second = generator.next();
+
+        assertThat(second).isGreaterThan(first);
+    }
+
+    @Test
+    void shouldEndEveryNumberWithTheNodeId() {
+        OrderNumberGenerator node7 = new OrderNumberGenerator(7);
+        OrderNumberGenerator node8 = new OrderNumberGenerator(8);
+
+        for (int i = 0; i < 100; i++) {
+            long a = node7.next();
+            long b = node8.next();
+            assertThat(a % OrderNumberGenerator.MAX_NODES).isEqualTo(7);
+            assertThat(b % OrderNumberGenerator.MAX_NODES).isEqualTo(8);
+            assertThat(a).isNotEqualTo(b);
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidNodeId() {
+        assertThatThrownBy(() -> new OrderNumberGenerator(OrderNumberGenerator.MAX_NODES))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new OrderNumberGenerator(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldContinuePastReservedBlockAfterRestart() {
+        Path file = tempDir.resolve("order-sequence-0");
+        OrderNumberGenerator beforeRestart = new OrderNumberGenerator(0, file);
+        long last = 0;
+        for (int i = 0; i < 1_500; i++) {
+            last = beforeRestart.next();
+        }
+
+        OrderNumberGenerator afterRestart = new OrderNumberGenerator(0, file);
+
+        assertThat(afterRestart.next()).isGreaterThan(last);
+    }
+
+    @Test
+    void shouldStayUniqueUnderConcurrentUse() throws Exception {
+        OrderNumberGenerator generator = new OrderNumberGenerator(3, tempDir.resolve("order-sequence-3"));
+        Set<Long> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        numbers.add(generator.next());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(numbers).hasSize(80_000);
+    }
+}
@@ -11,8 +11,10 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -42,7 +44,7 @@ class OrderServiceTest {
         Order order = orderService.createOrder(username, items);
 
         assertThat(order).isNotNull();
-        assertThat(order.getOrderNumber()).isBetween(10000, 99999);
+        assertThat(order.getOrderNumber()).isPositive();
         assertThat(order.getTotal()).isEqualTo(7.50);
         assertThat(order.getItems()).hasSize(1);
 
@@ -51,6 +53,19 @@ class OrderServiceTest {
         assertThat(orderCaptor.getValue()).isEqualTo(order);
     }
 
+    @Test
+    void shouldGiveEveryOrderADistinctNumber() {
+        Product product = createTestProduct(1, "Brood", 2.50);
+        List<OrderItem> items = List.of(new OrderItem(product, 1));
+
+        Set<Long> numbers = new HashSet<>();
+        for (int i = 0; i < 5_000; i++) {
+            numbers.add(orderService.createOrder("john", items).getOrderNumber());
+        }
+
+        assertThat(numbers).hasSize(5_000);
+    }
+
     @Test
     void shouldGetOrderHistory() {
         String username = "john";
@@ -70,7 +85,7 @@ class OrderServiceTest {
     void shouldFindOrderByNumber() {
         String username = "john";
         Order order = createTestOrder(12345);
-        when(orderRepository.findByUsername(username)).thenReturn(List.of(order));
+        when(orderRepository.findByOrderNumber(username, 12345)).thenReturn(Optional.of(order));
 
         Optional<Order> result = orderService.findOrderByNumber(username, 12345);
 
@@ -81,13 +96,31 @@ class OrderServiceTest {
     @Test
     void shouldReturnEmptyWhenOrderNotFound() {
         String username = "john";
-        when(orderRepository.findByUsername(username)).thenReturn(List.of());
+        when(orderRepository.findByOrderNumber(username, 12345)).thenReturn(Optional.empty());
 
         Optional<Order> result = orderService.findOrderByNumber(username, 12345);
 
         assertThat(result).isEmpty();
     }
 
+    @Test
+    void shouldGetOrderHistoryPage() {
+        String username = "john";
+        List<Order> page = List.of(createTestOrder(12345));
+        when(orderRepository.findPage(username, 10, 5)).thenReturn(page);
+
+        assertThat(orderService.getOrderHistoryPage(username, 10, 5)).isEqualTo(page);
+    }
+
+    @Test
+    void shouldGetOrderHistoryPageBeforeAnOrder() {
+        String username = "john";
+        List<Order> page = List.of(createTestOrder(12345));
+        when(orderRepository.findPageBefore(username, 12346, 5)).thenReturn(page);
+
+        assertThat(orderService.getOrderHistoryPageBefore(username, 12346, 5)).isEqualTo(page);
+    }
+
     @Test
     void shouldGenerateOrderHistory() {
         String username = "john";
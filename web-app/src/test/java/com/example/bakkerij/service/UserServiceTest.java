@@ -1,6 +1,7 @@
 package com.example.bakkerij.service;
 
 import com.example.bakkerij.model.Address;
+import com.example.bakkerij.model.PickupSlot;
 import com.example.bakkerij.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,7 +9,6 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -111,19 +111,18 @@ class UserServiceTest {
 
         userService.savePickupDetails(sessionId, date, time);
 
-        verify(userRepository).savePickupDetails(sessionId, date, time);
+        verify(userRepository).savePickupSlot(sessionId, new PickupSlot(date, time));
     }
 
     @Test
-    void shouldGetPickupDetails() {
+    void shouldGetPickupSlot() {
         String sessionId = "session123";
-        Map<String, String> details = Map.of("date", "01/12/2025", "time", "10:00");
-        when(userRepository.getPickupDetails(sessionId)).thenReturn(details);
+        PickupSlot slot = new PickupSlot("01/12/2025", "10:00");
+        when(userRepository.getPickupSlot(sessionId)).thenReturn(Optional.of(slot));
 
-        Map<String, String> result = userService.getPickupDetails(sessionId);
+        Optional<PickupSlot> result = userService.getPickupSlot(sessionId);
 
-        assertThat(result).containsEntry("date", "01/12/2025");
-        assertThat(result).containsEntry("time", "10:00");
+        assertThat(result).contains(slot);
     }
 
     @Test
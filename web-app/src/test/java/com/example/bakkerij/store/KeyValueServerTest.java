@@ -0,0 +1,64 @@
+package com.example.bakkerij.store;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.*;
+
+class KeyValueServerTest {
+
+    private static final Duration IDLE_TIMEOUT = Duration.ofHours(1);
+    private static final HttpClient http = HttpClient.newHttpClient();
+
+    private KeyValueServer server;
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private int put(String idleTimeout) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.port() + "/kv/cart"))
+            .PUT(HttpRequest.BodyPublishers.ofString("value"));
+        if (idleTimeout != null) {
+            request.header(KeyValueServer.IDLE_TIMEOUT_HEADER, idleTimeout);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Test
+    void shouldRejectWritesWithoutAValidIdleTimeout() throws Exception {
+        server = KeyValueServer.start(0, 100);
+
+        assertThat(put(null)).isEqualTo(400);
+        assertThat(put("soon")).isEqualTo(400);
+        assertThat(put("0")).isEqualTo(400);
+        assertThat(server.size()).isZero();
+
+        assertThat(put("60000")).isEqualTo(204);
+        assertThat(server.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldOnlyServeClientsSendingTheToken() {
+        server = KeyValueServer.start(0, 100, "s3cret");
+        URI uri = URI.create("http://localhost:" + server.port());
+        KeyValueClient withToken = new KeyValueClient(uri, "s3cret");
+        KeyValueClient withoutToken = new KeyValueClient(uri);
+        KeyValueClient wrongToken = new KeyValueClient(uri, "guess");
+
+        long version = withToken.put("cart", "value".getBytes(StandardCharsets.UTF_8), 0, IDLE_TIMEOUT);
+
+        assertThat(withToken.get("cart", 0).getVersion()).isEqualTo(version);
+        assertThatThrownBy(() -> withoutToken.get("cart", 0)).hasMessageContaining("401");
+        assertThatThrownBy(() -> wrongToken.delete("cart")).hasMessageContaining("401");
+        assertThat(server.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bakkerij.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.*;
+
+class HttpCachingTest {
+
+    @Test
+    void shouldAcceptEncodingsListedWithPositiveQuality() {
+        assertThat(HttpCaching.acceptsEncoding("gzip, deflate, br", "gzip")).isTrue();
+        assertThat(HttpCaching.acceptsEncoding("br;q=1.0, gzip;q=0.8", "gzip")).isTrue();
+        assertThat(HttpCaching.acceptsEncoding("GZIP", "gzip")).isTrue();
+        assertThat(HttpCaching.acceptsEncoding("*", "br")).isTrue();
+    }
+
+    @Test
+    void shouldRefuseEncodingsWithQualityZero() {
+        assertThat(HttpCaching.acceptsEncoding("gzip;q=0, br", "gzip")).isFalse();
+        assertThat(HttpCaching.acceptsEncoding("br; q=0.000", "br")).isFalse();
+        assertThat(HttpCaching.acceptsEncoding("*, gzip;q=0", "gzip")).isFalse();
+        assertThat(HttpCaching.acceptsEncoding("*;q=0", "br")).isFalse();
+        assertThat(HttpCaching.acceptsEncoding("gzip;q=high", "gzip")).isFalse();
+    }
+
+    @Test
+    void shouldNotMistakeOtherCodingsForTheRequestedOne() {
+        assertThat(HttpCaching.acceptsEncoding("x-brotli", "br")).isFalse();
+        assertThat(HttpCaching.acceptsEncoding("identity", "gzip")).isFalse();
+        assertThat(HttpCaching.acceptsEncoding(null, "gzip")).isFalse();
+    }
+
+    @Test
+    void shouldGiveEachContentCodingItsOwnEtag() {
+        assertThat(HttpCaching.encodedEtag("\"abc\"", null)).isEqualTo("\"abc\"");
+        assertThat(HttpCaching.encodedEtag("\"abc\"", "gzip")).isEqualTo("\"abc-gz\"");
+        assertThat(HttpCaching.encodedEtag("\"abc\"", "br")).isEqualTo("\"abc-br\"");
+    }
+
+    @Test
+    void shouldCompareEtagsWeakly() {
+        assertThat(HttpCaching.matches("\"abc\"", "W/\"abc\"")).isTrue();
+        assertThat(HttpCaching.matches("W/\"abc\"", "\"abc\"")).isTrue();
+        assertThat(HttpCaching.matches("\"xyz\", W/\"abc\"", "W/\"abc\"")).isTrue();
+        assertThat(HttpCaching.matches("\"abc-gz\"", "\"abc\"")).isFalse();
+        assertThat(HttpCaching.matches("*", "\"abc\"")).isTrue();
+        assertThat(HttpCaching.matches(null, "\"abc\"")).isFalse();
+    }
+}
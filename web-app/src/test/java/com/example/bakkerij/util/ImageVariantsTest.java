@@ -0,0 +1,200 @@
+package com.example.bakkerij.util;
+
+import io.javalin.Javalin;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.*;
+
+// Resizes src/test/resources/public/img/test/crust.png (640 px wide, so every size has its own
+// width) through a started Javalin, with a cache directory per test
+class ImageVariantsTest {
+
+    private static final String IMAGE = "test/crust.png";
+    private static final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @TempDir
+    Path cacheDirectory;
+
+    private Javalin app;
+
+    @BeforeAll
+    static void headless() {
+        System.setProperty("java.awt.headless", "true");
+    }
+
+    @AfterEach
+    void stop() {
+        if (app != null) {
+            app.stop();
+            app = null;
+        }
+    }
+
+    private ImageVariants start(long maxCacheBytes, Metrics metrics) throws IOException {
+        return start(cacheDirectory, maxCacheBytes, metrics);
+    }
+
+    private ImageVariants start(Path directory, long maxCacheBytes, Metrics metrics) throws IOException {
+        stop();
+        ImageVariants images = new ImageVariants(directory, maxCacheBytes, metrics);
+        app = Javalin.create(config -> config.showJavalinBanner = false);
+        app.get(ImageVariants.URL_PREFIX + "/{size}/{hash}/<image>", images::serve);
+        app.start("localhost", 0);
+        return images;
+    }
+
+    @Test
+    void shouldServeACachedJpegPerSize() throws Exception {
+        ImageVariants images = start(1 << 20, Metrics.disabled());
+
+        HttpResponse<byte[]> response = get(images.src(IMAGE, "thumb"), null);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).hasValue("image/jpeg");
+        assertThat(response.headers().firstValue("Cache-Control")).hasValue("public, max-age=31536000, immutable");
+        assertThat(response.body()).isEqualTo(Files.readAllBytes(variantFile(images, "thumb")));
+        assertThat(images.getCachedBytes()).isEqualTo(response.body().length);
+        assertThat(images.srcset(IMAGE)).contains(" 160w, ", " 480w, ").endsWith(" 640w");
+    }
+
+    @Test
+    void shouldKeepImageNamesInsideTheImageDirectory() throws Exception {
+        ImageVariants images = start(1 << 20, Metrics.disabled());
+
+        for (String image : List.of("test/../test/crust.png", "./test/crust.png", "test//crust.png",
+                "/test/crust.png", "test\\crust.png", "../img/test/crust.png", "")) {
+            assertThat(images.src(image, "thumb")).isEqualTo("/img/" + image);
+            assertThat(images.srcset(image)).isEmpty();
+        }
+        String hash = hashOf(images);
+        assertThat(get("/images/thumb/" + hash + "/test%2F..%2Ftest%2Fcrust.png", null).statusCode()).isEqualTo(404);
+        assertThat(get("/images/thumb/" + hash + "/..%2F..%2Fapplication.properties", null).statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void shouldServeAnOutdatedHashWithoutCachingItForever() throws Exception {
+        ImageVariants images = start(1 << 20, Metrics.disabled());
+        String current = images.src(IMAGE, "thumb");
+
+        HttpResponse<byte[]> stale = get(current.replace(hashOf(images), "000000000000"), null);
+
+        assertThat(stale.statusCode()).isEqualTo(200);
+        assertThat(stale.headers().firstValue("Cache-Control")).hasValue("public, no-cache");
+        assertThat(stale.body()).isEqualTo(get(current, null).body());
+        String etag = stale.headers().firstValue("ETag").orElseThrow();
+        assertThat(get(current, etag).statusCode()).isEqualTo(304);
+    }
+
+    @Test
+    void shouldEvictTheLeastRecentlyServedVariantFirst() throws Exception {
+        // JPEG encoding is deterministic, a first uncapped run gives the variant sizes
+        ImageVariants uncapped = start(cacheDirectory.resolve("uncapped"), 1 << 20, Metrics.disabled());
+        long thumb = get(uncapped.src(IMAGE, "thumb"), null).body().length;
+        long medium = get(uncapped.src(IMAGE, "medium"), null).body().length;
+        long full = get(uncapped.src(IMAGE, "full"), null).body().length;
+        // Room for the thumbnail and either larger variant, not for all three
+        ImageVariants images = start(thumb + Math.max(medium, full), Metrics.disabled());
+
+        get(images.src(IMAGE, "thumb"), null);
+        get(images.src(IMAGE, "medium"), null);
+        get(images.src(IMAGE, "thumb"), null); // now served more recently than medium
+        get(images.src(IMAGE, "full"), null);
+
+        assertThat(images.getEvictionCount()).isEqualTo(1);
+        assertThat(images.getCachedBytes()).isEqualTo(thumb + full);
+        assertThat(thumb + Math.max(medium, full)).isLessThan(8 * 1024);
+        assertThat(variantFile(images, "medium")).doesNotExist();
+        assertThat(variantFile(images, "thumb")).exists();
+        assertThat(variantFile(images, "full")).exists();
+    }
+
+    @Test
+    void shouldNeverEvictTheVariantJustStored() throws Exception {
+        ImageVariants images = start(1, Metrics.disabled());
+
+        get(images.src(IMAGE, "thumb"), null);
+        HttpResponse<byte[]> medium = get(images.src(IMAGE, "medium"), null);
+
+        assertThat(medium.statusCode()).isEqualTo(200);
+        assertThat(variantFile(images, "thumb")).doesNotExist();
+        assertThat(images.getCachedBytes()).isEqualTo(medium.body().length);
+    }
+
+    @Test
+    void shouldPickUpVariantsFromAPreviousRunAndDropInterruptedWrites() throws Exception {
+        Path older = Files.write(cacheDirectory.resolve("aaaaaaaaaaaa-thumb.jpg"), new byte[600]);
+        Files.setLastModifiedTime(older, FileTime.fromMillis(1_000_000));
+        Files.write(cacheDirectory.resolve("bbbbbbbbbbbb-thumb.jpg"), new byte[500]);
+        Path interrupted = Files.write(cacheDirectory.resolve("cccccccccccc-full.jpg.tmp"), new byte[100]);
+
+        ImageVariants images = new ImageVariants(cacheDirectory, 1_000);
+
+        assertThat(interrupted).doesNotExist();
+        assertThat(older).doesNotExist(); // the oldest goes first when both do not fit
+        assertThat(images.getCachedBytes()).isEqualTo(500);
+        assertThat(images.getEvictionCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldResizeOnceForConcurrentRequests() throws Exception {
+        Metrics metrics = new Metrics();
+        ImageVariants images = start(1 << 20, metrics);
+        String url = images.src(IMAGE, "full");
+        int requests = 16;
+
+        CountDownLatch ready = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(requests);
+        try {
+            List<Future<HttpResponse<byte[]>>> responses = new ArrayList<>();
+            for (int i = 0; i < requests; i++) {
+                responses.add(executor.submit(() -> {
+                    ready.await();
+                    return get(url, null);
+                }));
+            }
+            ready.countDown();
+            for (Future<HttpResponse<byte[]>> response : responses) {
+                assertThat(response.get().statusCode()).isEqualTo(200);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(metrics.scrape()).contains("_count{operation=\"images.resize\"} 1\n");
+    }
+
+    private HttpResponse<byte[]> get(String path, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + path)).GET();
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private String hashOf(ImageVariants images) {
+        String[] segments = images.src(IMAGE, "thumb").split("/");
+        return segments[3];
+    }
+
+    private Path variantFile(ImageVariants images, String size) {
+        return cacheDirectory.resolve(hashOf(images) + "-" + size + ".jpg");
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.bakkerij.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PageCacheTest {
+    private static final String HTML = "<p>Crème brûlée</p><a id=\"cart-badge\" href=\"/cart\"></a><p>€</p>";
+
+    @Mock
+    private TemplateRenderer templateRenderer;
+
+    private final AtomicLong catalogVersion = new AtomicLong(1);
+    private PageCache pageCache;
+
+    @BeforeEach
+    void setUp() {
+        pageCache = new PageCache(templateRenderer, catalogVersion::get, "brood"::equals, 16);
+    }
+
+    private static Map<String, Object> context() {
+        return new HashMap<>();
+    }
+
+    @Test
+    void shouldSpliceTheCartBadgeAfterMultiByteText() {
+        PageCache.Page page = PageCache.Page.of(HTML, 1);
+
+        assertThat(new String(page.withCartBadge(3), StandardCharsets.UTF_8)).isEqualTo(
+            "<p>Crème brûlée</p><a id=\"cart-badge\" href=\"/cart\"><span class=\"cart-count\">3</span></a><p>€</p>");
+        assertThat(new String(page.withCartBadge(0), StandardCharsets.UTF_8)).isEqualTo(HTML);
+    }
+
+    @Test
+    void shouldGiveEachCartCountItsOwnEtag() {
+        PageCache.Page page = PageCache.Page.of(HTML, 1);
+
+        assertThat(page.getEtag(0)).isNotEqualTo(page.getEtag(1));
+        assertThat(page.getEtag(1)).isNotEqualTo(page.getEtag(2));
+        assertThat(page.getEtag(2)).isEqualTo(PageCache.Page.of(HTML, 2).getEtag(2));
+        PageCache.Page withoutBadge = PageCache.Page.of("<p>Over ons</p>", 1);
+        assertThat(withoutBadge.getEtag(5)).isEqualTo(withoutBadge.getEtag(0));
+    }
+
+    @Test
+    void shouldRenderOncePerKeyUntilTheCatalogChanges() {
+        when(templateRenderer.render(eq("page.jinja"), anyMap(), eq("nl"))).thenReturn("<p>1</p>", "<p>2</p>");
+
+        pageCache.get("page.jinja", "nl", "brood", PageCacheTest::context);
+        PageCache.Page cached = pageCache.get("page.jinja", "nl", "brood", PageCacheTest::context);
+        assertThat(cached.withCartBadge(0)).isEqualTo("<p>1</p>".getBytes(StandardCharsets.UTF_8));
+
+        catalogVersion.incrementAndGet();
+        PageCache.Page reloaded = pageCache.get("page.jinja", "nl", "brood", PageCacheTest::context);
+        assertThat(reloaded.withCartBadge(0)).isEqualTo("<p>2</p>".getBytes(StandardCharsets.UTF_8));
+        verify(templateRenderer, times(2)).render(eq("page.jinja"), anyMap(), eq("nl"));
+    }
+
+    @Test
+    void shouldNotKeepAPageRenderedWhileTheCatalogWasReloaded() {
+        when(templateRenderer.render(eq("page.jinja"), anyMap(), eq("nl"))).thenReturn("<p>old</p>", "<p>new</p>");
+
+        PageCache.Page stale = pageCache.get("page.jinja", "nl", null, () -> {
+            catalogVersion.incrementAndGet();
+            return context();
+        });
+        PageCache.Page fresh = pageCache.get("page.jinja", "nl", null, PageCacheTest::context);
+
+        assertThat(stale.withCartBadge(0)).isEqualTo("<p>old</p>".getBytes(StandardCharsets.UTF_8));
+        assertThat(fresh.withCartBadge(0)).isEqualTo("<p>new</p>".getBytes(StandardCharsets.UTF_8));
+        assertThat(pageCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheUnknownLanguagesOrCategories() {
+        when(templateRenderer.render(eq("page.jinja"), anyMap(), anyString())).thenReturn("<p>brood</p>");
+
+        pageCache.get("page.jinja", "xx", "brood", PageCacheTest::context);
+        pageCache.get("page.jinja", "nl", "gravel", PageCacheTest::context);
+        assertThat(pageCache.size()).isZero();
+
+        pageCache.get("page.jinja", "fr", "brood", PageCacheTest::context);
+        pageCache.get("page.jinja", "fr", null, PageCacheTest::context);
+        assertThat(pageCache.size()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.bakkerij.util;
+
+import io.javalin.Javalin;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+// Serves src/test/resources/static-assets through a started Javalin, so responses go through Jetty
+// and its mapped-buffer write path exactly as in production
+class StaticAssetsTest {
+
+    private static final String CSS = "/styles.css";
+    private static final String IMAGE = "/img/Melkbrood groot+klein.png";
+
+    @TempDir
+    static Path outputDirectory;
+
+    private static StaticAssets assets;
+    private static Javalin app;
+    private static final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeAll
+    static void start() throws IOException {
+        assets = StaticAssets.load("static-assets", outputDirectory);
+        app = Javalin.create(config -> config.showJavalinBanner = false);
+        app.get(StaticAssets.URL_PREFIX + "/*", assets::serve);
+        app.start("localhost", 0);
+    }
+
+    @AfterAll
+    static void stop() {
+        app.stop();
+    }
+
+    @Test
+    void shouldFingerprintEveryFileButThePrecompressedOnes() {
+        assertThat(assets.size()).isEqualTo(2);
+        assertThat(assets.getUrls().get(CSS)).matches("/assets/styles\\.[0-9a-f]{12}\\.css");
+        assertThat(assets.getUrls().get(IMAGE))
+            .matches("/assets/img/Melkbrood%20groot%2Bklein\\.[0-9a-f]{12}\\.png");
+        assertThat(assets.getUrls().get("/unknown.js")).isEqualTo("/unknown.js");
+    }
+
+    @Test
+    void shouldServeTheFileAsIsWithoutAcceptedEncoding() throws Exception {
+        HttpResponse<byte[]> response = get(assets.getUrls().get(CSS), null, null);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(resource(CSS));
+        assertThat(response.headers().firstValue("Content-Type")).hasValue("text/css; charset=utf-8");
+        assertThat(response.headers().firstValue("Content-Length")).hasValue(String.valueOf(resource(CSS).length));
+        assertThat(response.headers().firstValue("Cache-Control")).hasValue("public, max-age=31536000, immutable");
+        assertThat(response.headers().firstValue("Content-Encoding")).isEmpty();
+    }
+
+    @Test
+    void shouldPreferBrotliOverGzip() throws Exception {
+        HttpResponse<byte[]> response = get(assets.getUrls().get(CSS), "gzip, br", null);
+
+        assertThat(response.headers().firstValue("Content-Encoding")).hasValue("br");
+        assertThat(response.body()).isEqualTo(resource(CSS + ".br"));
+        assertThat(response.headers().firstValue("Vary")).hasValue("Accept-Encoding");
+    }
+
+    @Test
+    void shouldFallBackToGzipWhenBrotliIsRefused() throws Exception {
+        HttpResponse<byte[]> response = get(assets.getUrls().get(CSS), "br;q=0, gzip", null);
+
+        assertThat(response.headers().firstValue("Content-Encoding")).hasValue("gzip");
+        assertThat(response.body().length).isLessThan(resource(CSS).length);
+        try (InputStream gunzipped = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            assertThat(gunzipped.readAllBytes()).isEqualTo(resource(CSS));
+        }
+    }
+
+    @Test
+    void shouldNotCompressBinaryFiles() throws Exception {
+        HttpResponse<byte[]> response = get(assets.getUrls().get(IMAGE), "gzip, br", null);
+
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Encoding")).isEmpty();
+        assertThat(response.headers().firstValue("Content-Type")).hasValue("image/png");
+        assertThat(response.body()).isEqualTo(resource(IMAGE));
+    }
+
+    @Test
+    void shouldKeepALiteralPlusInThePath() throws Exception {
+        String url = assets.getUrls().get(IMAGE);
+
+        assertThat(get(url.replace("%2B", "+"), null, null).body()).isEqualTo(resource(IMAGE));
+        assertThat(get(url.replace("%2B", "%20"), null, null).statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void shouldAnswerNotModifiedForTheEtagOfTheSameEncoding() throws Exception {
+        String url = assets.getUrls().get(CSS);
+        String identityEtag = get(url, null, null).headers().firstValue("ETag").orElseThrow();
+        String gzipEtag = get(url, "gzip", null).headers().firstValue("ETag").orElseThrow();
+
+        assertThat(gzipEtag).isEqualTo(HttpCaching.encodedEtag(identityEtag, "gzip"));
+        HttpResponse<byte[]> notModified = get(url, "gzip", gzipEtag);
+        assertThat(notModified.statusCode()).isEqualTo(304);
+        assertThat(notModified.body()).isEmpty();
+        assertThat(get(url, null, gzipEtag).statusCode()).isEqualTo(200);
+        assertThat(get(url, null, identityEtag).statusCode()).isEqualTo(304);
+    }
+
+    @Test
+    void shouldNotFindUnknownOrUnfingerprintedAssets() throws Exception {
+        assertThat(get("/assets/styles.css", null, null).statusCode()).isEqualTo(404);
+        assertThat(get("/assets/nothing.js", null, null).statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    void shouldFailForAMissingDirectory() {
+        assertThatThrownBy(() -> StaticAssets.load("no-such-directory", outputDirectory))
+            .isInstanceOf(IOException.class);
+    }
+
+    private static HttpResponse<byte[]> get(String path, String acceptEncoding, String ifNoneMatch) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + app.port() + path)).GET();
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        if (ifNoneMatch != null) {
+            request.header("If-None-Match", ifNoneMatch);
+        }
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static byte[] resource(String path) throws IOException {
+        try (InputStream in = StaticAssetsTest.class.getResourceAsStream("/static-assets" + path)) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bakkerij.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class TranslationServiceTest {
+    // t.some_key and t['some_key'] in templates
+    private static final Pattern TEMPLATE_KEY = Pattern.compile("\\bt(?:\\.(\\w+)|\\['(\\w+)'\\])");
+
+    private static TranslationService load(String resourceName) {
+        TranslationService translationService = new TranslationService();
+        translationService.loadTranslations(resourceName);
+        return translationService;
+    }
+
+    @Test
+    void shouldShipEveryKeyInEveryLanguage() {
+        TranslationService translationService = load("translations.json");
+
+        assertThat(translationService.getMissingKeys()).isEmpty();
+        assertThat(translationService.getTranslations("zh").get("update_address")).isEqualTo("保存地址");
+    }
+
+    @Test
+    void shouldShipEveryKeyTheTemplatesUse() throws Exception {
+        Map<String, String> translations = load("translations.json").getTranslations("nl");
+        Set<String> used = new TreeSet<>();
+        Path templates = Path.of(getClass().getClassLoader().getResource("templates").toURI());
+        try (Stream<Path> files = Files.walk(templates)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".jinja")).toList()) {
+                Matcher matcher = TEMPLATE_KEY.matcher(Files.readString(file));
+                while (matcher.find()) {
+                    used.add(matcher.group(1) != null ? matcher.group(1) : matcher.group(2));
+                }
+            }
+        }
+
+        assertThat(used).isNotEmpty();
+        assertThat(used).allSatisfy(key -> assertThat(translations).containsKey(key));
+    }
+
+    @Test
+    void shouldFallBackToDutchForMissingKeys() {
+        TranslationService translationService = load("translations-partial.json");
+
+        Map<String, String> fr = translationService.getTranslations("fr");
+        assertThat(fr.get("cart")).isEqualTo("Panier");
+        assertThat(fr.get("total")).isEqualTo("Totaal");
+        assertThat(translationService.getTranslations("nl").get("only_fr")).isNull();
+        assertThat(translationService.getMissingKeys())
+            .containsExactly(Map.entry("nl", List.of("only_fr")), Map.entry("fr", List.of("total")));
+    }
+
+    @Test
+    void shouldUseDutchForUnknownLanguages() {
+        TranslationService translationService = load("translations-partial.json");
+
+        assertThat(translationService.getTranslations("xx")).isSameAs(translationService.getTranslations("nl"));
+    }
+
+    @Test
+    void shouldReturnNothingForUnknownKeys() {
+        Map<String, String> nl = load("translations-partial.json").getTranslations("nl");
+
+        assertThat(nl.get("no_such_key")).isNull();
+        assertThat(nl.get(42)).isNull();
+        assertThat(nl.containsKey("no_such_key")).isFalse();
+        assertThat(nl.getOrDefault("no_such_key", "-")).isEqualTo("-");
+        assertThat(nl).hasSize(3).containsEntry("cart", "Winkelmandje");
+    }
+}